@@ -0,0 +1,270 @@
+package com.example.jeopardy;
+
+import com.example.jeopardy.model.Question;
+import com.example.jeopardy.service.GameService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Measures what a burst of answer submissions does to the light
+ * endpoints, with and without the grading stage. The application is
+ * started twice on a random port with a small request thread pool, once
+ * grading on the request threads and once through the
+ * admission-controlled grading stage, whose limits are scaled to the
+ * pool so the burst reaches them. Both runs use platform threads: the
+ * project targets Java 17, so this is not a virtual thread comparison. Each time many clients
+ * post batches of fresh answers to {@code /answers} as fast as they can,
+ * mostly into a few games, while a handful of probes poll {@code /state}
+ * and {@code /random-question} of quiet games every few milliseconds.
+ *
+ * <p>It prints the probes' p50/p99/max latency and how many batches got
+ * 200, 429 and 503 in each mode.
+ *
+ * <p>Run with {@code mvn -Pjmh compile exec:exec -Djmh.mainClass=com.example.jeopardy.BurstTest
+ * -Djmh.args="<submitters> <batch size> <seconds> <request threads>"}.
+ */
+public class BurstTest {
+
+    private static final int PROBES = 4;
+    private static final int BUSY_GAMES = 3;
+    private static final String[] STATUSES = {"200", "429", "503", "other"};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final String baseUrl;
+    private final List<String> categories;
+    private final List<Question> questions = new ArrayList<>();
+    private final int batchSize;
+    private volatile boolean measuring;
+    private volatile boolean stopped;
+
+    BurstTest(String baseUrl, GameService gameService, int batchSize) {
+        this.baseUrl = baseUrl;
+        this.categories = gameService.getCategories();
+        for (String category : categories) {
+            questions.addAll(gameService.getQuestionBank().getQuestions(category));
+        }
+        this.batchSize = batchSize;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int submitters = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int requestThreads = args.length > 3 ? Integer.parseInt(args[3]) : 16;
+
+        System.out.printf("%d submitters x %d answers per batch, %d request threads, %d s per mode%n",
+                submitters, batchSize, requestThreads, seconds);
+        System.out.printf("%-10s %-16s %10s %9s %9s %9s %9s %9s %9s %9s%n", "admission", "endpoint",
+                "requests", "p50 ms", "p99 ms", "max ms", "200", "429", "503", "other");
+        for (boolean admission : new boolean[] {false, true}) {
+            // as arguments, since application.properties would override default properties
+            String[] properties = {
+                    "--server.port=0",
+                    "--jeopardy.journal.dir=" + Files.createTempDirectory("jeopardy-burst"),
+                    "--jeopardy.verdict-cache.max-size=0",
+                    "--server.tomcat.threads.max=" + requestThreads,
+                    "--server.tomcat.threads.min-spare=" + requestThreads,
+                    "--jeopardy.grading.admission.enabled=" + admission,
+                    // admission counts answers, so the limits hold that many batches
+                    "--jeopardy.grading.queue-capacity=" + requestThreads * 2 * batchSize,
+                    "--jeopardy.grading.per-game-capacity=" + requestThreads / 2 * batchSize,
+                    "--logging.level.root=WARN"};
+            try (ConfigurableApplicationContext context = SpringApplication.run(JeopardyApplication.class,
+                    properties)) {
+                String port = context.getEnvironment().getProperty("local.server.port");
+                BurstTest test = new BurstTest("http://localhost:" + port + "/api/game",
+                        context.getBean(GameService.class), batchSize);
+                test.run(admission ? "on" : "off", submitters, seconds);
+            }
+        }
+    }
+
+    void run(String mode, int submitters, int seconds) throws IOException, InterruptedException {
+        List<String> busy = new ArrayList<>();
+        for (int i = 0; i < BUSY_GAMES; i++) {
+            busy.add(startGame());
+        }
+        List<Thread> threads = new ArrayList<>();
+        List<Probe> probes = new ArrayList<>();
+        AtomicLongArray statuses = new AtomicLongArray(STATUSES.length);
+        Histogram batches = new Histogram(TimeUnit.MINUTES.toMicros(1), 3);
+        for (int i = 0; i < PROBES; i++) {
+            Probe probe = new Probe(startGame());
+            probes.add(probe);
+            threads.add(new Thread(probe, "probe-" + i));
+        }
+        for (int i = 0; i < submitters; i++) {
+            String gameId = busy.get(i % busy.size());
+            threads.add(new Thread(() -> submit(gameId, statuses, batches), "submitter-" + i));
+        }
+        threads.forEach(Thread::start);
+        // let the JIT and the pools settle before counting
+        TimeUnit.SECONDS.sleep(Math.max(1, seconds / 4));
+        for (Probe probe : probes) {
+            probe.reset();
+        }
+        synchronized (batches) {
+            batches.reset();
+        }
+        for (int i = 0; i < STATUSES.length; i++) {
+            statuses.set(i, 0);
+        }
+        measuring = true;
+        TimeUnit.SECONDS.sleep(seconds);
+        measuring = false;
+        stopped = true;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Histogram state = new Histogram(3);
+        Histogram draw = new Histogram(3);
+        for (Probe probe : probes) {
+            state.add(probe.latencies[0]);
+            draw.add(probe.latencies[1]);
+        }
+        print(mode, "state", state, null);
+        print(mode, "random-question", draw, null);
+        print(mode, "answers", batches, statuses);
+    }
+
+    private static void print(String mode, String name, Histogram latencies, AtomicLongArray statuses) {
+        System.out.printf("%-10s %-16s %10d %9.3f %9.3f %9.3f", mode, name, latencies.getTotalCount(),
+                millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(99)),
+                millis(latencies.getMaxValue()));
+        for (int i = 0; i < STATUSES.length; i++) {
+            System.out.printf(" %9s", statuses != null ? Long.toString(statuses.get(i)) : "-");
+        }
+        System.out.println();
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000d;
+    }
+
+    private String startGame() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/start"))
+                .header("Content-Type", "application/json")
+                .POST(body(Map.of("teamNames", List.of("Team 1", "Team 2")))).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        return objectMapper.readTree(response.body()).path("gameId").asText();
+    }
+
+    private void submit(String gameId, AtomicLongArray statuses, Histogram batches) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (!stopped) {
+            List<Map<String, Object>> answers = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                Question question = questions.get(random.nextInt(questions.size()));
+                // never the same text twice, so every answer goes through the whole cascade
+                answers.add(Map.of("questionId", question.getId(), "teamName", "Team " + (1 + random.nextInt(2)),
+                        "answer", question.getAnswer() + " " + Long.toString(random.nextLong() >>> 1, 36)));
+            }
+            long start = System.nanoTime();
+            int status;
+            try {
+                status = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/answers"))
+                        .header("Content-Type", "application/json")
+                        .POST(body(Map.of("gameId", gameId, "answers", answers))).build(),
+                        HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                status = -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!measuring) {
+                continue;
+            }
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+            statuses.incrementAndGet(status == 200 ? 0 : status == 429 ? 1 : status == 503 ? 2 : 3);
+            synchronized (batches) {
+                batches.recordValue(Math.min(micros, batches.getHighestTrackableValue()));
+            }
+            if (status == 429 || status == 503) {
+                // back off a little, as the Retry-After asks, without waiting the whole second
+                try {
+                    TimeUnit.MILLISECONDS.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private HttpRequest.BodyPublisher body(Object value) throws IOException {
+        return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(value));
+    }
+
+    /**
+     * Polls a quiet game's state and draws from it, one request every few
+     * milliseconds.
+     */
+    private final class Probe implements Runnable {
+        final Histogram[] latencies = new Histogram[2];
+        final String gameId;
+
+        Probe(String gameId) {
+            this.gameId = gameId;
+            reset();
+        }
+
+        synchronized void reset() {
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new Histogram(TimeUnit.MINUTES.toMicros(1), 3);
+            }
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int request = 0;
+            while (!stopped) {
+                try {
+                    int endpoint = request++ & 1;
+                    String url = endpoint == 0
+                            ? baseUrl + "/state?gameId=" + encode(gameId)
+                            : baseUrl + "/random-question?gameId=" + encode(gameId) + "&category="
+                            + encode(categories.get(random.nextInt(categories.size())));
+                    long start = System.nanoTime();
+                    HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(URI.create(url)).GET().build(),
+                            HttpResponse.BodyHandlers.ofByteArray());
+                    long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+                    if (measuring && response.statusCode() == 200) {
+                        synchronized (this) {
+                            latencies[endpoint].recordValue(Math.min(micros,
+                                    latencies[endpoint].getHighestTrackableValue()));
+                        }
+                    }
+                    TimeUnit.MILLISECONDS.sleep(5);
+                } catch (IOException e) {
+                    // a refused probe still tells; keep polling
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,345 @@
+package com.example.jeopardy;
+
+import com.example.jeopardy.model.Question;
+import com.example.jeopardy.service.GameEventBroadcaster;
+import com.example.jeopardy.service.GameService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Starts the application on a random port, opens thousands of
+ * {@code /events} streams for one game and then answers questions for
+ * it at a fixed rate, one answer at a time. Each answer is one score
+ * change, so the k-th answer's score event carries {@code scoreVersion}
+ * k and its delivery latency is the time from sending the answer to a
+ * subscriber reading the event.
+ *
+ * <p>Prints p50/p99/p999/max delivery latency over every subscriber and
+ * event, and checks each stream: score versions only go up, no event is
+ * missing, and the scores a subscriber ends up with are those of
+ * {@code /state}. Exits with 1 otherwise.
+ *
+ * <p>With stalled readers, that many more streams are opened halfway
+ * through and never read from, so the server's writes to them back up.
+ * Latency is then printed for each half: the streams that do read must
+ * not slow down once others stall.
+ *
+ * <p>Run with {@code mvn -Pjmh compile exec:exec -Djmh.mainClass=com.example.jeopardy.EventFanOut
+ * -Djmh.args="<subscribers> <answers> <answers per second> [stalled readers]"}.
+ */
+public class EventFanOut {
+
+    private static final List<String> TEAMS = List.of("Red", "Green", "Blue", "Gold");
+    // streams being opened at once; more only piles up in the server's accept queue
+    private static final int CONNECTING = 64;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService clientThreads = Executors.newFixedThreadPool(4, runnable -> {
+        Thread thread = new Thread(runnable, "fan-out-client");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(clientThreads)
+            .build();
+    private final String baseUrl;
+    private final List<Question> questions = new ArrayList<>();
+    // delivery latency before and after the stalled readers connect
+    private final Histogram[] latencies = {new ConcurrentHistogram(3), new ConcurrentHistogram(3)};
+    private final GameEventBroadcaster broadcaster;
+    private final List<Socket> stalledReaders = new ArrayList<>();
+    private AtomicLongArray sentAt;
+    private int stallAt;
+
+    EventFanOut(String baseUrl, GameService gameService, GameEventBroadcaster broadcaster) {
+        this.baseUrl = baseUrl;
+        this.broadcaster = broadcaster;
+        for (String category : gameService.getCategories()) {
+            questions.addAll(gameService.getQuestionBank().getQuestions(category));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int subscribers = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int answers = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int rate = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        int stalled = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+        String[] properties = {
+                "--server.port=0",
+                "--server.tomcat.max-connections=" + (subscribers + stalled + 200),
+                "--jeopardy.journal.dir=",
+                "--logging.level.root=WARN",
+                // streams still open at shutdown time out there; that is expected
+                "--logging.level.org.springframework.web.servlet.mvc.support=ERROR"};
+        Class<?>[] sources = stalled > 0
+                ? new Class<?>[] {JeopardyApplication.class, SmallSendBuffers.class}
+                : new Class<?>[] {JeopardyApplication.class};
+        boolean consistent;
+        EventFanOut fanOut;
+        try (ConfigurableApplicationContext context = SpringApplication.run(sources, properties)) {
+            String port = context.getEnvironment().getProperty("local.server.port");
+            fanOut = new EventFanOut("http://localhost:" + port + "/api/game",
+                    context.getBean(GameService.class), context.getBean(GameEventBroadcaster.class));
+            consistent = fanOut.run(subscribers, answers, rate, stalled);
+        }
+        // only now, or the server logs the broken pipes of writes still stuck on them
+        for (Socket socket : fanOut.stalledReaders) {
+            socket.close();
+        }
+        System.exit(consistent ? 0 : 1);
+    }
+
+    boolean run(int subscribers, int answers, int rate, int stalled) throws Exception {
+        String gameId = send("/start", Map.of("teamNames", TEAMS)).path("gameId").asText();
+        sentAt = new AtomicLongArray(answers + 1);
+        stallAt = stalled > 0 ? answers / 2 : answers;
+
+        long openStart = System.nanoTime();
+        Semaphore connecting = new Semaphore(CONNECTING);
+        List<Stream> streams = new ArrayList<>(subscribers);
+        for (int i = 0; i < subscribers; i++) {
+            connecting.acquire();
+            Stream stream = new Stream(connecting);
+            streams.add(stream);
+            client.sendAsync(HttpRequest.newBuilder(URI.create(baseUrl + "/events?gameId="
+                                    + URLEncoder.encode(gameId, StandardCharsets.UTF_8))).GET().build(),
+                            HttpResponse.BodyHandlers.fromLineSubscriber(stream))
+                    .whenComplete((response, failure) -> stream.closed(failure));
+        }
+        connecting.acquire(CONNECTING);
+        System.out.printf("%d streams open in %.1f s%n", subscribers, (System.nanoTime() - openStart) / 1e9);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long next = System.nanoTime();
+        for (int k = 1; k <= answers; k++) {
+            if (k == stallAt + 1) {
+                for (int i = 0; i < stalled; i++) {
+                    stalledReaders.add(openUnread(gameId));
+                }
+                next = System.nanoTime();
+            }
+            long delay = next - System.nanoTime();
+            if (delay > 0) {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            }
+            next += interval;
+            Question question = questions.get(random.nextInt(questions.size()));
+            sentAt.set(k, System.nanoTime());
+            send("/answer", Map.of("gameId", gameId, "questionId", question.getId(),
+                    "teamName", TEAMS.get(random.nextInt(TEAMS.size())),
+                    "answer", random.nextBoolean() ? question.getAnswer() : "no idea"));
+        }
+
+        // give the last events time to get through to every stream
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (delivered() < (long) subscribers * answers && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+
+        JsonNode state = get("/state?gameId=" + URLEncoder.encode(gameId, StandardCharsets.UTF_8));
+        Map<String, Integer> expected = new HashMap<>();
+        for (JsonNode team : state.path("teams")) {
+            expected.put(team.path("name").asText(), team.path("score").asInt());
+        }
+        long incomplete = 0;
+        long disordered = 0;
+        long wrongScores = 0;
+        for (Stream stream : streams) {
+            incomplete += stream.received.get() != answers ? 1 : 0;
+            disordered += stream.disordered.get() > 0 ? 1 : 0;
+            wrongScores += stream.scores.equals(expected) ? 0 : 1;
+        }
+
+        System.out.printf("%d subscribers x %d score events at %d/s%n", subscribers, answers, rate);
+        System.out.printf("%-18s %12s %9s %9s %9s %9s%n", "", "delivered", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        if (stalled > 0) {
+            print("before stalling", latencies[0]);
+            print(stalled + " stalled", latencies[1]);
+            System.out.printf("stalled streams the server dropped: %d of %d%n",
+                    subscribers + stalled - broadcaster.getSubscriberCount(gameId), stalled);
+        } else {
+            print("", latencies[0]);
+        }
+        System.out.printf("streams missing events: %d, out of order: %d, ending on other scores than /state: %d%n",
+                incomplete, disordered, wrongScores);
+        for (Stream stream : streams) {
+            stream.cancel();
+        }
+        return incomplete == 0 && disordered == 0 && wrongScores == 0;
+    }
+
+    private long delivered() {
+        return latencies[0].getTotalCount() + latencies[1].getTotalCount();
+    }
+
+    private static void print(String label, Histogram histogram) {
+        System.out.printf("%-18s %12d %9.3f %9.3f %9.3f %9.3f%n", label, histogram.getTotalCount(),
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()));
+    }
+
+    /**
+     * Opens an {@code /events} stream that is never read. The receive
+     * buffer is kept small so the server's writes back up quickly.
+     */
+    private Socket openUnread(String gameId) throws IOException {
+        URI uri = URI.create(baseUrl + "/events?gameId=" + URLEncoder.encode(gameId, StandardCharsets.UTF_8));
+        Socket socket = new Socket();
+        socket.setReceiveBufferSize(1024);
+        socket.connect(new InetSocketAddress(uri.getHost(), uri.getPort()));
+        socket.getOutputStream().write(("GET " + uri.getRawPath() + "?" + uri.getRawQuery() + " HTTP/1.1\r\n"
+                + "Host: " + uri.getHost() + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        return socket;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000d;
+    }
+
+    private JsonNode send(String path, Object body) throws IOException, InterruptedException {
+        return check(client.send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body))).build(),
+                HttpResponse.BodyHandlers.ofByteArray()));
+    }
+
+    private JsonNode get(String path) throws IOException, InterruptedException {
+        return check(client.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray()));
+    }
+
+    private JsonNode check(HttpResponse<byte[]> response) throws IOException {
+        if (response.statusCode() != 200) {
+            throw new IOException("HTTP " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    /**
+     * Fixes the server's socket send buffers at a few kilobytes. Otherwise
+     * the kernel grows them to megabytes and a stalled reader takes
+     * thousands of events to back up.
+     */
+    static class SmallSendBuffers {
+        @Bean
+        WebServerFactoryCustomizer<TomcatServletWebServerFactory> smallSendBuffers() {
+            return factory -> factory.addConnectorCustomizers(
+                    connector -> connector.setProperty("socket.txBufSize", "8192"));
+        }
+    }
+
+    /**
+     * One {@code /events} stream, read line by line as the client gets
+     * them. Records the latency of each score event and the scores it
+     * leaves the subscriber with.
+     */
+    private final class Stream implements Flow.Subscriber<String> {
+        final Map<String, Integer> scores = new ConcurrentHashMap<>();
+        final AtomicLong received = new AtomicLong();
+        final AtomicLong disordered = new AtomicLong();
+        private final Semaphore connecting;
+        private Flow.Subscription subscription;
+        private String event;
+        private long scoreVersion = -1;
+        private final AtomicBoolean open = new AtomicBoolean();
+
+        Stream(Semaphore connecting) {
+            this.connecting = connecting;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            long now = System.nanoTime();
+            if (line.startsWith("event:")) {
+                event = line.substring("event:".length());
+            } else if (line.startsWith("data:")) {
+                try {
+                    onEvent(event, objectMapper.readTree(line.substring("data:".length())), now);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+
+        private void onEvent(String type, JsonNode data, long now) {
+            long version = data.path("scoreVersion").asLong(-1);
+            if ("state".equals(type)) {
+                scoreVersion = version;
+                for (JsonNode team : data.path("teams")) {
+                    scores.put(team.path("name").asText(), team.path("score").asInt());
+                }
+                if (open.compareAndSet(false, true)) {
+                    connecting.release();
+                }
+            } else if ("score".equals(type)) {
+                if (version <= scoreVersion) {
+                    disordered.incrementAndGet();
+                }
+                scoreVersion = version;
+                JsonNode team = data.path("team");
+                scores.put(team.path("name").asText(), team.path("score").asInt());
+                received.incrementAndGet();
+                if (version > 0 && version < sentAt.length()) {
+                    latencies[version > stallAt ? 1 : 0]
+                            .recordValue(TimeUnit.NANOSECONDS.toMicros(now - sentAt.get((int) version)));
+                }
+            }
+        }
+
+        void closed(Throwable failure) {
+            if (open.compareAndSet(false, true)) {
+                // never got its first event; don't hold up the others
+                connecting.release();
+                if (failure != null) {
+                    System.err.println("stream failed: " + failure);
+                }
+            }
+        }
+
+        void cancel() {
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            closed(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            closed(null);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.jeopardy;
+
+import com.example.jeopardy.model.Question;
+import com.example.jeopardy.service.GameService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the application on a random port and drives it like many
+ * classrooms at once: each session starts a game, then keeps drawing
+ * questions and answering them for random teams, starting a new game
+ * every {@value #QUESTIONS_PER_GAME} questions. Answers are a mix of
+ * exact, sloppy, partial and wrong ones. After a warm-up it reports
+ * throughput and p50/p99/p999 latency per endpoint.
+ *
+ * <p>Each session waits for a response before sending the next request
+ * (a closed loop), so latencies are service times under that load, not
+ * what an open stream of arrivals would see.
+ *
+ * <p>Run with {@code mvn -Pjmh compile exec:exec -Djmh.mainClass=com.example.jeopardy.LoadGenerator
+ * -Djmh.args="<sessions> <teams> <seconds> <warmup seconds>"}.
+ */
+public class LoadGenerator {
+
+    private static final int QUESTIONS_PER_GAME = 30;
+    private static final String[] ENDPOINTS = {"start", "random-question", "answer"};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final String baseUrl;
+    private final List<String> categories;
+    private final Map<Long, Question> questions = new HashMap<>();
+    private final List<Question> questionList;
+    private final int teams;
+    private volatile boolean measuring;
+    private volatile boolean stopped;
+
+    LoadGenerator(String baseUrl, GameService gameService, int teams) {
+        this.baseUrl = baseUrl;
+        this.categories = gameService.getCategories();
+        for (String category : categories) {
+            for (Question question : gameService.getQuestionBank().getQuestions(category)) {
+                questions.put(question.getId(), question);
+            }
+        }
+        this.questionList = new ArrayList<>(questions.values());
+        this.teams = teams;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int teams = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int warmup = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        SpringApplication application = new SpringApplication(JeopardyApplication.class);
+        application.setDefaultProperties(Map.of(
+                "server.port", "0",
+                "jeopardy.journal.dir", Files.createTempDirectory("jeopardy-load").toString(),
+                "server.tomcat.threads.max", Integer.toString(Math.max(200, sessions))));
+        try (ConfigurableApplicationContext context = application.run()) {
+            String port = context.getEnvironment().getProperty("local.server.port");
+            LoadGenerator generator = new LoadGenerator("http://localhost:" + port + "/api/game",
+                    context.getBean(GameService.class), teams);
+            generator.run(sessions, warmup, seconds);
+        }
+    }
+
+    void run(int sessions, int warmupSeconds, int seconds) throws InterruptedException {
+        List<Session> running = new ArrayList<>(sessions);
+        for (int i = 0; i < sessions; i++) {
+            Session session = new Session();
+            session.thread = new Thread(session, "load-" + i);
+            session.thread.start();
+            running.add(session);
+        }
+        TimeUnit.SECONDS.sleep(warmupSeconds);
+        for (Session session : running) {
+            session.reset();
+        }
+        measuring = true;
+        long start = System.nanoTime();
+        TimeUnit.SECONDS.sleep(seconds);
+        measuring = false;
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        stopped = true;
+        for (Session session : running) {
+            session.thread.join();
+        }
+
+        System.out.printf("%d sessions x %d teams, %d s warm-up, %.1f s measured%n",
+                sessions, teams, warmupSeconds, elapsed);
+        System.out.printf("%-16s %10s %10s %9s %9s %9s %9s %7s%n",
+                "endpoint", "requests", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "errors");
+        Histogram total = new Histogram(3);
+        for (int e = 0; e < ENDPOINTS.length; e++) {
+            Histogram latencies = new Histogram(3);
+            long errors = 0;
+            for (Session session : running) {
+                latencies.add(session.latencies[e]);
+                errors += session.errors[e];
+            }
+            total.add(latencies);
+            print(ENDPOINTS[e], latencies, errors, elapsed);
+        }
+        long errors = running.stream().mapToLong(s -> Arrays.stream(s.errors).sum()).sum();
+        print("all", total, errors, elapsed);
+    }
+
+    private static void print(String name, Histogram latencies, long errors, double elapsed) {
+        System.out.printf("%-16s %10d %10.0f %9.3f %9.3f %9.3f %9.3f %7d%n", name, latencies.getTotalCount(),
+                latencies.getTotalCount() / elapsed, millis(latencies.getValueAtPercentile(50)),
+                millis(latencies.getValueAtPercentile(99)), millis(latencies.getValueAtPercentile(99.9)),
+                millis(latencies.getMaxValue()), errors);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000d;
+    }
+
+    /**
+     * Something a team might type for {@code expected}: usually close to
+     * it, sometimes another question's answer.
+     */
+    String answerFor(Question expected) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String answer = expected.getAnswer();
+        switch (random.nextInt(6)) {
+            case 0:
+                return answer;
+            case 1:
+                return answer.toLowerCase(Locale.ROOT);
+            case 2: {
+                // a typo: one character dropped
+                if (answer.length() < 2) {
+                    return answer;
+                }
+                int at = random.nextInt(answer.length());
+                return answer.substring(0, at) + answer.substring(at + 1);
+            }
+            case 3: {
+                String[] words = answer.split(" ");
+                return String.join(" ", Arrays.copyOf(words, Math.max(1, words.length / 2)));
+            }
+            case 4:
+                return "  " + answer.toUpperCase(Locale.ROOT) + "!";
+            default:
+                return questionList.get(random.nextInt(questionList.size())).getAnswer();
+        }
+    }
+
+    private final class Session implements Runnable {
+        final Histogram[] latencies = new Histogram[ENDPOINTS.length];
+        final long[] errors = new long[ENDPOINTS.length];
+        Thread thread;
+
+        Session() {
+            reset();
+        }
+
+        void reset() {
+            synchronized (this) {
+                for (int e = 0; e < ENDPOINTS.length; e++) {
+                    latencies[e] = new Histogram(TimeUnit.MINUTES.toMicros(1), 3);
+                    errors[e] = 0;
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            List<String> teamNames = new ArrayList<>(teams);
+            for (int t = 1; t <= teams; t++) {
+                teamNames.add("Team " + t);
+            }
+            String gameId = null;
+            int asked = 0;
+            while (!stopped) {
+                try {
+                    if (gameId == null || asked == QUESTIONS_PER_GAME) {
+                        JsonNode state = send(0, HttpRequest.newBuilder(URI.create(baseUrl + "/start"))
+                                .header("Content-Type", "application/json")
+                                .POST(body(Map.of("teamNames", teamNames))));
+                        gameId = state != null ? state.path("gameId").asText(null) : null;
+                        asked = 0;
+                        continue;
+                    }
+                    String category = categories.get(random.nextInt(categories.size()));
+                    JsonNode question = send(1, HttpRequest.newBuilder(URI.create(baseUrl
+                            + "/random-question?gameId=" + encode(gameId) + "&category=" + encode(category))).GET());
+                    asked++;
+                    Question expected = question != null ? questions.get(question.path("id").asLong()) : null;
+                    if (expected == null) {
+                        continue;
+                    }
+                    send(2, HttpRequest.newBuilder(URI.create(baseUrl + "/answer"))
+                            .header("Content-Type", "application/json")
+                            .POST(body(Map.of(
+                                    "gameId", gameId,
+                                    "questionId", expected.getId(),
+                                    "teamName", teamNames.get(random.nextInt(teamNames.size())),
+                                    "answer", answerFor(expected)))));
+                } catch (IOException e) {
+                    // counted by send; keep the session going
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private JsonNode send(int endpoint, HttpRequest.Builder request) throws IOException, InterruptedException {
+            long start = System.nanoTime();
+            HttpResponse<byte[]> response;
+            try {
+                response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            } catch (IOException e) {
+                record(endpoint, start, false);
+                throw e;
+            }
+            boolean ok = response.statusCode() == 200;
+            record(endpoint, start, ok);
+            return ok ? objectMapper.readTree(response.body()) : null;
+        }
+
+        private void record(int endpoint, long start, boolean ok) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+            if (!measuring) {
+                return;
+            }
+            synchronized (this) {
+                latencies[endpoint].recordValue(Math.min(micros, latencies[endpoint].getHighestTrackableValue()));
+                if (!ok) {
+                    errors[endpoint]++;
+                }
+            }
+        }
+
+        private HttpRequest.BodyPublisher body(Object value) throws IOException {
+            return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(value));
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
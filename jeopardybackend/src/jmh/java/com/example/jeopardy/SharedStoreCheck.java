@@ -0,0 +1,184 @@
+package com.example.jeopardy;
+
+import com.example.jeopardy.model.Question;
+import com.example.jeopardy.service.FileGameStateStore;
+import com.example.jeopardy.service.GameService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Starts two application contexts in this JVM on random ports, both with
+ * {@code jeopardy.store.type=file} on the same directory, and has many
+ * clients answer for one game on both at once: single answers and small
+ * batches, right and wrong, each request to either node at random. Every
+ * client adds up the score changes its verdicts imply, so the sum is what
+ * the scoreboard must show if no update was lost.
+ *
+ * <p>It then reads {@code /state} from both nodes, prints it next to the
+ * expected scores with the compare-and-set conflicts each node retried,
+ * and exits with 1 on any difference.
+ *
+ * <p>Run with {@code mvn -Pjmh compile exec:exec -Djmh.mainClass=com.example.jeopardy.SharedStoreCheck
+ * -Djmh.args="<clients> <requests per client>"}.
+ */
+public class SharedStoreCheck {
+
+    private static final List<String> TEAMS = List.of("Red", "Green", "Blue", "Gold");
+    private static final int BATCH_SIZE = 4;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final String[] baseUrls;
+    private final List<Question> questions = new ArrayList<>();
+    private final AtomicLongArray expected = new AtomicLongArray(TEAMS.size());
+    private final AtomicLong failures = new AtomicLong();
+
+    SharedStoreCheck(String[] baseUrls, GameService gameService) {
+        this.baseUrls = baseUrls;
+        for (String category : gameService.getCategories()) {
+            questions.addAll(gameService.getQuestionBank().getQuestions(category));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        Path storeDir = Files.createTempDirectory("jeopardy-shared");
+        String[] properties = {
+                "--server.port=0",
+                "--jeopardy.store.type=file",
+                "--jeopardy.store.dir=" + storeDir,
+                "--jeopardy.journal.dir=",
+                "--logging.level.root=WARN"};
+        try (ConfigurableApplicationContext first = SpringApplication.run(JeopardyApplication.class, properties);
+             ConfigurableApplicationContext second = SpringApplication.run(JeopardyApplication.class, properties)) {
+            ConfigurableApplicationContext[] nodes = {first, second};
+            String[] baseUrls = new String[nodes.length];
+            for (int i = 0; i < nodes.length; i++) {
+                baseUrls[i] = "http://localhost:" + nodes[i].getEnvironment().getProperty("local.server.port")
+                        + "/api/game";
+            }
+            SharedStoreCheck check = new SharedStoreCheck(baseUrls, first.getBean(GameService.class));
+            boolean consistent = check.run(clients, requests);
+            for (int i = 0; i < nodes.length; i++) {
+                System.out.printf("node %d: %d compare-and-set conflicts retried%n", i + 1,
+                        nodes[i].getBean(FileGameStateStore.class).getConflicts());
+            }
+            if (!consistent) {
+                System.exit(1);
+            }
+        }
+    }
+
+    boolean run(int clients, int requests) throws IOException, InterruptedException {
+        String gameId = send(0, "/start", Map.of("teamNames", TEAMS)).path("gameId").asText();
+        long start = System.nanoTime();
+        List<Thread> threads = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            Thread thread = new Thread(() -> answer(gameId, requests), "client-" + i);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d clients x %d requests on 2 nodes in %.1f s (%.0f req/s), %d failed%n",
+                clients, requests, seconds, clients * requests / seconds, failures.get());
+
+        boolean consistent = failures.get() == 0;
+        long[] versions = new long[baseUrls.length];
+        for (int node = 0; node < baseUrls.length; node++) {
+            JsonNode state = get(node, "/state?gameId=" + URLEncoder.encode(gameId, StandardCharsets.UTF_8));
+            versions[node] = state.path("version").asLong();
+            StringBuilder line = new StringBuilder("node " + (node + 1) + " at version " + versions[node] + ":");
+            for (JsonNode team : state.path("teams")) {
+                int index = TEAMS.indexOf(team.path("name").asText());
+                long score = team.path("score").asLong();
+                line.append(String.format(" %s %d (expected %d)", TEAMS.get(index), score, expected.get(index)));
+                consistent &= score == expected.get(index);
+            }
+            System.out.println(line);
+        }
+        consistent &= versions[0] == versions[1];
+        System.out.println(consistent ? "OK: no score update lost" : "FAILED: nodes disagree or updates were lost");
+        return consistent;
+    }
+
+    private void answer(String gameId, int requests) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int r = 0; r < requests; r++) {
+            int node = random.nextInt(baseUrls.length);
+            try {
+                if (random.nextBoolean()) {
+                    int team = random.nextInt(TEAMS.size());
+                    Map<String, Object> answer = answer(random, team);
+                    answer.put("gameId", gameId);
+                    JsonNode result = send(node, "/answer", answer);
+                    expected.addAndGet(team, result.path("correct").asBoolean() ? 5 : -1);
+                } else {
+                    List<Map<String, Object>> answers = new ArrayList<>(BATCH_SIZE);
+                    int[] teams = new int[BATCH_SIZE];
+                    for (int i = 0; i < BATCH_SIZE; i++) {
+                        teams[i] = random.nextInt(TEAMS.size());
+                        answers.add(answer(random, teams[i]));
+                    }
+                    JsonNode result = send(node, "/answers", Map.of("gameId", gameId, "answers", answers));
+                    int i = 0;
+                    for (JsonNode verdict : result.path("verdicts")) {
+                        expected.addAndGet(teams[i++], verdict.path("correct").asBoolean() ? 5 : -1);
+                    }
+                }
+            } catch (IOException e) {
+                failures.incrementAndGet();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private Map<String, Object> answer(ThreadLocalRandom random, int team) {
+        Question question = questions.get(random.nextInt(questions.size()));
+        Map<String, Object> answer = new HashMap<>();
+        answer.put("questionId", question.getId());
+        answer.put("teamName", TEAMS.get(team));
+        answer.put("answer", random.nextBoolean() ? question.getAnswer() : "no idea");
+        return answer;
+    }
+
+    private JsonNode send(int node, String path, Object body) throws IOException, InterruptedException {
+        return check(client.send(HttpRequest.newBuilder(URI.create(baseUrls[node] + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body))).build(),
+                HttpResponse.BodyHandlers.ofByteArray()));
+    }
+
+    private JsonNode get(int node, String path) throws IOException, InterruptedException {
+        return check(client.send(HttpRequest.newBuilder(URI.create(baseUrls[node] + path)).GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray()));
+    }
+
+    private JsonNode check(HttpResponse<byte[]> response) throws IOException {
+        if (response.statusCode() != 200) {
+            throw new IOException("HTTP " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body());
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.jeopardy.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Grades one submission per exit path of {@link AiAnswerEvaluator#isCorrect}:
+ * strict/contains match, alias, Jaro-Winkler, cosine, token coverage,
+ * character trigrams and reject.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnswerEvaluatorBenchmark {
+
+    public enum ExitPath {
+        STRICT("NEET (National Eligibility cum Entrance Test)", "neet"),
+        ALIAS("All India Bar Examination", "i passed the aibe last year",
+                List.of("AIBE", "All India Bar Exam")),
+        JARO("Charles Frederick Worth", "charles fredrick wroth"),
+        COSINE("Constitutional Law, Criminal Law, Civil Law, Contract Law",
+                "contract law civil law criminal law constitutional law"),
+        COVERAGE("NEET (National Eligibility cum Entrance Test)",
+                "national eligibility entrance test for doctors in india"),
+        NGRAM("Constitutional Law, Criminal Law, Civil Law, Contract Law",
+                "constitutonal law criminl law civl law contrct law"),
+        REJECT("NEET (National Eligibility cum Entrance Test)", "the bar council exam");
+
+        final String expected;
+        final String provided;
+        final List<String> aliases;
+
+        ExitPath(String expected, String provided) {
+            this(expected, provided, List.of());
+        }
+
+        ExitPath(String expected, String provided, List<String> aliases) {
+            this.expected = expected;
+            this.provided = provided;
+            this.aliases = aliases;
+        }
+    }
+
+    @Param({"STRICT", "ALIAS", "JARO", "COSINE", "COVERAGE", "NGRAM", "REJECT"})
+    public ExitPath path;
+
+    private final AiAnswerEvaluator evaluator = new AiAnswerEvaluator();
+    private CompiledAnswer compiled;
+    private String provided;
+
+    @Setup
+    public void setUp() {
+        compiled = evaluator.compile(path.expected, path.aliases);
+        provided = path.provided;
+    }
+
+    @Benchmark
+    public boolean isCorrect() {
+        return evaluator.isCorrect(compiled, provided);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean isCorrectContended() {
+        return evaluator.isCorrect(compiled, provided);
+    }
+}
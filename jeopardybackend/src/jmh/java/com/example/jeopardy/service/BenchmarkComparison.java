@@ -0,0 +1,67 @@
+package com.example.jeopardy.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares two JMH JSON result files (for example the committed
+ * baseline and a fresh run) and prints score and allocation ratios
+ * for every benchmark present in both.
+ */
+public class BenchmarkComparison {
+
+    private static final String ALLOC_METRIC = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: BenchmarkComparison <baseline.json> <result.json>");
+            System.exit(2);
+        }
+        Map<String, JsonNode> baseline = read(new File(args[0]));
+        Map<String, JsonNode> current = read(new File(args[1]));
+
+        System.out.printf("%-90s %14s %14s %8s %12s %12s%n",
+                "benchmark", "baseline", "current", "ratio", "B/op base", "B/op now");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (before == null) {
+                continue;
+            }
+            JsonNode after = entry.getValue();
+            double baseScore = before.path("primaryMetric").path("score").asDouble();
+            double score = after.path("primaryMetric").path("score").asDouble();
+            System.out.printf("%-90s %14.3f %14.3f %8.2f %12.1f %12.1f%n",
+                    entry.getKey(), baseScore, score, score / baseScore,
+                    allocation(before), allocation(after));
+        }
+    }
+
+    private static Map<String, JsonNode> read(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText())
+                    .append(' ').append(run.path("mode").asText());
+            run.path("params").fields().forEachRemaining(param ->
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText()));
+            results.put(key.toString(), run);
+        }
+        return results;
+    }
+
+    private static double allocation(JsonNode run) {
+        JsonNode secondary = run.path("secondaryMetrics");
+        var names = secondary.fieldNames();
+        while (names.hasNext()) {
+            String name = names.next();
+            if (name.endsWith(ALLOC_METRIC)) {
+                return secondary.path(name).path("score").asDouble();
+            }
+        }
+        return Double.NaN;
+    }
+}
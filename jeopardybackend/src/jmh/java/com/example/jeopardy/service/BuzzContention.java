@@ -0,0 +1,91 @@
+package com.example.jeopardy.service;
+
+import com.example.jeopardy.dto.BuzzResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+
+/**
+ * Releases one thread per team at the same instant, every thread buzzing
+ * for the same question, and repeats that for many rounds. Prints the
+ * latency of {@link GameService#buzz} under that contention and checks
+ * each round: exactly one winner and every rank from 1 to the team count
+ * handed out once.
+ *
+ * <p>Run with {@code mvn -Pjmh compile exec:exec
+ * -Djmh.mainClass=com.example.jeopardy.service.BuzzContention -Djmh.args="<teams> <rounds>"}.
+ */
+public class BuzzContention {
+
+    private static final long QUESTION_ID = 1L;
+
+    public static void main(String[] args) throws Exception {
+        int teams = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        GameService gameService = new GameService(new GameEventBroadcaster(new ObjectMapper()),
+                new VerdictCache(0, Duration.ofMinutes(1)), GradingMetrics.disabled(),
+                GradingThresholds.defaults(), GameJournal.disabled(),
+                QuestionStats.disabled(), SessionExpiry.disabled(), new InMemoryGameStateStore(),
+                GradingStage.disabled());
+        List<String> names = new ArrayList<>(teams);
+        for (int t = 0; t < teams; t++) {
+            names.add("Team " + t);
+        }
+        GameSession session = gameService.startGame(names);
+        String gameId = session.getId();
+
+        int[][] ranks = new int[rounds][teams];
+        Histogram[] latencies = new Histogram[teams];
+        // the last thread through the barrier opens the next round before anyone is released
+        int[] round = {-1};
+        CyclicBarrier start = new CyclicBarrier(teams, () -> {
+            round[0]++;
+            session.openBuzzRound(QUESTION_ID);
+        });
+        List<Thread> buzzers = new ArrayList<>(teams);
+        for (int t = 0; t < teams; t++) {
+            int team = t;
+            latencies[t] = new Histogram(3);
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int r = 0; r < rounds; r++) {
+                        start.await();
+                        long begin = System.nanoTime();
+                        BuzzResult result = gameService.buzz(gameId, QUESTION_ID, names.get(team));
+                        latencies[team].recordValue(System.nanoTime() - begin);
+                        ranks[round[0]][team] = result.getRank();
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }, "buzzer-" + t);
+            buzzers.add(thread);
+            thread.start();
+        }
+        for (Thread thread : buzzers) {
+            thread.join();
+        }
+
+        for (int r = 0; r < rounds; r++) {
+            boolean[] seen = new boolean[teams + 1];
+            for (int rank : ranks[r]) {
+                if (rank < 1 || rank > teams || seen[rank]) {
+                    throw new AssertionError("round " + r + ": rank " + rank + " handed out twice or out of range");
+                }
+                seen[rank] = true;
+            }
+        }
+        Histogram all = new Histogram(3);
+        for (Histogram latency : latencies) {
+            all.add(latency);
+        }
+        System.out.printf("%d teams x %d rounds: every round had one winner and ranks 1..%d%n", teams, rounds, teams);
+        System.out.printf("buzz latency us: p50 %.2f  p99 %.2f  p999 %.2f  max %.2f%n",
+                all.getValueAtPercentile(50) / 1e3, all.getValueAtPercentile(99) / 1e3,
+                all.getValueAtPercentile(99.9) / 1e3, all.getMaxValue() / 1e3);
+    }
+}
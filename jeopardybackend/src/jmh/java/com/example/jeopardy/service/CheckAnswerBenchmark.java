@@ -0,0 +1,74 @@
+package com.example.jeopardy.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Grades and scores an answer for the last team of a game with many
+ * teams, alternating a fuzzy-correct and a rejected submission.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CheckAnswerBenchmark {
+
+    // "What does NEET stand for?" in the built-in bank
+    private static final long QUESTION_ID = 5L;
+    private static final String[] ANSWERS = {
+            "national eligibility entrance test", "bar council of india"
+    };
+
+    @Param({"8", "1000"})
+    public int teamCount;
+
+    // without the verdict cache every call runs the full grading cascade
+    @Param({"true", "false"})
+    public boolean verdictCache;
+
+    private GameService gameService;
+    private String gameId;
+    private String teamName;
+
+    @Setup
+    public void setUp() {
+        gameService = new GameService(new GameEventBroadcaster(new ObjectMapper()),
+                new VerdictCache(verdictCache ? 10_000 : 0, Duration.ofMinutes(10)), GradingMetrics.disabled(),
+                GradingThresholds.defaults(), GameJournal.disabled(),
+                new QuestionStats(Duration.ZERO, "uniform", 0.6), SessionExpiry.disabled(),
+                new InMemoryGameStateStore(), GradingStage.disabled());
+        List<String> names = new ArrayList<>(teamCount);
+        for (int i = 1; i <= teamCount; i++) {
+            names.add("Team " + i);
+        }
+        gameId = gameService.startGame(names).getId();
+        teamName = "team " + teamCount;
+    }
+
+    @State(Scope.Thread)
+    public static class Submission {
+        int next;
+
+        String answer() {
+            return ANSWERS[next++ & 1];
+        }
+    }
+
+    @Benchmark
+    public boolean checkAnswer(Submission submission) {
+        return gameService.checkAnswer(gameId, QUESTION_ID, teamName, submission.answer());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean checkAnswerContended(Submission submission) {
+        return gameService.checkAnswer(gameId, QUESTION_ID, teamName, submission.answer());
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.jeopardy.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Journal throughput and recovery time. {@code append} logs score changes
+ * as fast as the writer's group commits let it (the queue is bounded, so
+ * the sustained rate is the disk's); {@code recover} replays a journal of
+ * {@code events} records, either as raw segments or after compaction.
+ */
+@Fork(1)
+public class GameJournalBenchmark {
+
+    private static final int GAMES = 100;
+    private static final List<String> TEAMS = List.of("Team 1", "Team 2", "Team 3", "Team 4");
+
+    @State(Scope.Benchmark)
+    public static class Appending {
+        Path dir;
+        GameJournal journal;
+
+        @Setup
+        public void setUp() throws IOException {
+            dir = Files.createTempDirectory("journal-bench");
+            journal = new GameJournal(dir.toString(), 100_000);
+            journal.recover();
+            for (int game = 0; game < GAMES; game++) {
+                journal.gameStarted("game-" + game, TEAMS);
+            }
+        }
+
+        @TearDown
+        public void tearDown() throws Exception {
+            journal.close();
+            delete(dir);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Threads(4)
+    public void append(Appending state, Cursor cursor) {
+        int next = cursor.next++;
+        state.journal.scoreChanged("game-" + (next % GAMES), TEAMS.get(next & 3), 5);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Written {
+        @Param({"100000", "1000000"})
+        public int events;
+
+        @Param({"false", "true"})
+        public boolean compacted;
+
+        Path dir;
+
+        @Setup
+        public void setUp() throws Exception {
+            dir = Files.createTempDirectory("journal-bench");
+            GameJournal journal = new GameJournal(dir.toString(), Integer.MAX_VALUE);
+            journal.recover();
+            for (int game = 0; game < GAMES; game++) {
+                journal.gameStarted("game-" + game, TEAMS);
+            }
+            for (int i = 0; i < events; i++) {
+                String gameId = "game-" + (i % GAMES);
+                if (i % 10 == 0) {
+                    journal.questionDrawn(gameId, "Doctor", i % 10, i % 100 == 0);
+                } else {
+                    journal.scoreChanged(gameId, TEAMS.get(i & 3), i % 3 == 0 ? -1 : 5);
+                }
+            }
+            journal.close();
+            if (compacted) {
+                // a restart folds the previous run's segments into one snapshot
+                GameJournal restarted = new GameJournal(dir.toString(), Integer.MAX_VALUE);
+                restarted.recover();
+                restarted.close();
+            }
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            delete(dir);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public Map<String, GameJournal.RecoveredGame> recover(Written state) throws IOException {
+        return GameJournal.read(state.dir);
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
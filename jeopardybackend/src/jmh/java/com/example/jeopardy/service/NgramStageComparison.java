@@ -0,0 +1,154 @@
+package com.example.jeopardy.service;
+
+import com.example.jeopardy.model.Question;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Shows what the n-gram stage changes about the verdicts. Every answer of
+ * a bank is graded against misspelt copies of itself and against the
+ * answers of other questions; the report counts how many of each the
+ * cascade accepted before the n-gram stage existed, how many it accepts
+ * now, and how the trigram scores of the previously rejected ones spread
+ * over a range of thresholds.
+ *
+ * <p>Run with {@code mvn -Pjmh compile exec:exec
+ * -Djmh.mainClass=com.example.jeopardy.service.NgramStageComparison -Djmh.args="[bank] [variants]"};
+ * without a bank it uses the built-in one.
+ */
+public class NgramStageComparison {
+
+    private static final double[] THRESHOLDS = {0.5, 0.6, 0.65, 0.7, 0.75, 0.8, 0.85, 0.9};
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+    public static void main(String[] args) throws Exception {
+        AiAnswerEvaluator evaluator = new AiAnswerEvaluator();
+        QuestionBankLoader loader = new QuestionBankLoader(evaluator);
+        QuestionBank bank = args.length > 0 ? loader.load(Paths.get(args[0])) : loader.loadBuiltIn();
+        int variants = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        List<Question> questions = new ArrayList<>(bank.size());
+        bank.getQuestionsByCategory().values().forEach(questions::addAll);
+
+        SplittableRandom random = new SplittableRandom(42);
+        Tally[] typos = {new Tally("1 typo"), new Tally("2 typos"), new Tally("3 typos")};
+        Tally wrong = new Tally("other answer");
+        for (Question question : questions) {
+            CompiledAnswer compiled = bank.getCompiledAnswer(question.getId());
+            for (int v = 0; v < variants; v++) {
+                int edits = 1 + v % typos.length;
+                typos[edits - 1].grade(evaluator, compiled, misspell(random, question.getAnswer(), edits));
+                Question other = questions.get(random.nextInt(questions.size()));
+                if (other.getId() != question.getId() && !other.getAnswer().equals(question.getAnswer())) {
+                    wrong.grade(evaluator, compiled, other.getAnswer());
+                }
+            }
+        }
+
+        System.out.printf("%d questions, %d variants each%n", questions.size(), variants);
+        System.out.printf("%-14s %9s %12s %12s%n", "submission", "graded", "accepted", "accepted");
+        System.out.printf("%-14s %9s %12s %12s%n", "", "", "before", "now");
+        for (Tally tally : typos) {
+            tally.printVerdicts();
+        }
+        wrong.printVerdicts();
+
+        System.out.printf("%nPreviously rejected submissions the n-gram stage would accept, by threshold%n");
+        System.out.printf("%-14s", "submission");
+        for (double threshold : THRESHOLDS) {
+            System.out.printf(" %7.2f", threshold);
+        }
+        System.out.println();
+        for (Tally tally : typos) {
+            tally.printSweep();
+        }
+        wrong.printSweep();
+    }
+
+    /**
+     * Deletes, replaces, inserts or swaps letters inside words, the way a
+     * hurried player would.
+     */
+    static String misspell(SplittableRandom random, String answer, int edits) {
+        StringBuilder text = new StringBuilder(answer);
+        for (int e = 0; e < edits; e++) {
+            int at = letterAt(random, text);
+            if (at < 0) {
+                break;
+            }
+            switch (random.nextInt(4)) {
+                case 0:
+                    if (text.length() > 1) {
+                        text.deleteCharAt(at);
+                    }
+                    break;
+                case 1:
+                    text.setCharAt(at, LETTERS.charAt(random.nextInt(LETTERS.length())));
+                    break;
+                case 2:
+                    text.insert(at, LETTERS.charAt(random.nextInt(LETTERS.length())));
+                    break;
+                default:
+                    if (at + 1 < text.length() && Character.isLetter(text.charAt(at + 1))) {
+                        char c = text.charAt(at);
+                        text.setCharAt(at, text.charAt(at + 1));
+                        text.setCharAt(at + 1, c);
+                    }
+            }
+        }
+        return text.toString();
+    }
+
+    private static int letterAt(SplittableRandom random, CharSequence text) {
+        for (int attempt = 0; attempt < 20 && text.length() > 0; attempt++) {
+            int at = random.nextInt(text.length());
+            if (Character.isLetter(text.charAt(at))) {
+                return at;
+            }
+        }
+        return -1;
+    }
+
+    private static final class Tally {
+        final String name;
+        int graded;
+        int acceptedBefore;
+        int acceptedNow;
+        // scores of submissions the stages before the n-gram stage rejected
+        final List<Double> rejectedScores = new ArrayList<>();
+
+        Tally(String name) {
+            this.name = name;
+        }
+
+        void grade(AiAnswerEvaluator evaluator, CompiledAnswer expected, String provided) {
+            AiAnswerEvaluator.Stage stage = evaluator.evaluate(expected, provided);
+            graded++;
+            if (stage != AiAnswerEvaluator.Stage.REJECTED) {
+                acceptedNow++;
+            }
+            if (stage != AiAnswerEvaluator.Stage.REJECTED && stage != AiAnswerEvaluator.Stage.NGRAM) {
+                acceptedBefore++;
+            } else {
+                TextNormalizer text = TextNormalizer.forCurrentThread().normalize(provided);
+                rejectedScores.add(text.isBlank() ? 0d : expected.ngramSimilarity(text.collectTrigrams()));
+            }
+        }
+
+        void printVerdicts() {
+            System.out.printf("%-14s %9d %11.1f%% %11.1f%%%n", name, graded,
+                    100d * acceptedBefore / graded, 100d * acceptedNow / graded);
+        }
+
+        void printSweep() {
+            System.out.printf("%-14s", name);
+            for (double threshold : THRESHOLDS) {
+                long passing = rejectedScores.stream().filter(score -> score >= threshold).count();
+                System.out.printf(" %6.1f%%", 100d * passing / graded);
+            }
+            System.out.println();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.jeopardy.service;
+
+import com.example.jeopardy.model.Question;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Loads the same synthetic bank from JSON and from a compiled
+ * {@code .qbank} snapshot and prints the load time, the time until the
+ * first answer is graded and the heap each bank retains. It also checks
+ * that both banks hold the same questions and grade alike.
+ *
+ * <p>Run with {@code mvn -Pjmh compile exec:exec
+ * -Djmh.mainClass=com.example.jeopardy.service.QuestionBankLoadComparison -Djmh.args="200000"}.
+ */
+public class QuestionBankLoadComparison {
+
+    private static final int RUNS = 5;
+    private static final String[] WORDS = {
+            "heart", "lung", "contract", "tort", "fabric", "pattern", "surgery", "appeal", "silk", "draping",
+            "diagnosis", "statute", "couture", "anatomy", "verdict", "seam", "clinic", "evidence", "textile", "résumé"
+    };
+
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        Path dir = Files.createTempDirectory("bank-compare");
+        Path json = dir.resolve("bank.json");
+        Path snapshot = dir.resolve("bank" + QuestionBankSnapshot.EXTENSION);
+        writeJson(json, size);
+        QuestionBankLoader loader = new QuestionBankLoader(new AiAnswerEvaluator());
+        QuestionBankSnapshot.write(loader.load(json), snapshot);
+        System.out.printf("%d questions: %d MB JSON, %d MB snapshot%n", size,
+                Files.size(json) >> 20, Files.size(snapshot) >> 20);
+
+        check(loader.load(json), loader.load(snapshot));
+        report("json", loader, json);
+        report("snapshot", loader, snapshot);
+        for (Path file : List.of(json, snapshot, dir)) {
+            Files.delete(file);
+        }
+    }
+
+    private static void report(String name, QuestionBankLoader loader, Path file) throws Exception {
+        AiAnswerEvaluator evaluator = new AiAnswerEvaluator();
+        long bestLoad = Long.MAX_VALUE;
+        long bestFirstGrade = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            QuestionBank bank = loader.load(file);
+            long loaded = System.nanoTime();
+            Question first = bank.getQuestions(bank.getCategories().iterator().next()).get(0);
+            evaluator.isCorrect(bank.getCompiledAnswer(first.getId()), first.getAnswer());
+            long graded = System.nanoTime();
+            bestLoad = Math.min(bestLoad, loaded - start);
+            bestFirstGrade = Math.min(bestFirstGrade, graded - start);
+        }
+        long before = usedHeap();
+        QuestionBank bank = loader.load(file);
+        long retained = usedHeap() - before;
+        // what a bank costs once every question has been drawn and graded
+        for (List<Question> questions : bank.getQuestionsByCategory().values()) {
+            for (Question question : questions) {
+                bank.getCompiledAnswer(question.getId());
+            }
+        }
+        long decoded = usedHeap() - before;
+        System.out.printf("%-9s load %8.1f ms   first grade %8.1f ms   heap %6.1f MB, %6.1f MB fully decoded%n",
+                name, bestLoad / 1e6, bestFirstGrade / 1e6, retained / 1048576d, decoded / 1048576d);
+        if (bank.size() == 0) {
+            throw new AssertionError("empty bank");
+        }
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static void check(QuestionBank parsed, QuestionBank mapped) {
+        if (!parsed.getQuestionsByCategory().keySet().equals(mapped.getQuestionsByCategory().keySet())) {
+            throw new AssertionError("categories differ");
+        }
+        AiAnswerEvaluator evaluator = new AiAnswerEvaluator();
+        Random random = new Random(42);
+        for (Map.Entry<String, List<Question>> entry : parsed.getQuestionsByCategory().entrySet()) {
+            List<Question> other = mapped.getQuestions(entry.getKey());
+            for (int i = 0; i < entry.getValue().size(); i++) {
+                Question expected = entry.getValue().get(i);
+                Question actual = other.get(i);
+                if (expected.getId() != actual.getId() || !expected.getText().equals(actual.getText())
+                        || !expected.getAnswer().equals(actual.getAnswer())
+                        || !expected.getCategory().equals(actual.getCategory())
+                        || mapped.getQuestion(expected.getId()) != actual) {
+                    throw new AssertionError("question " + expected.getId() + " differs");
+                }
+                String answer = WORDS[random.nextInt(WORDS.length)] + " " + expected.getAnswer().substring(1);
+                if (evaluator.evaluate(parsed.getCompiledAnswer(expected.getId()), answer)
+                        != evaluator.evaluate(mapped.getCompiledAnswer(expected.getId()), answer)) {
+                    throw new AssertionError("grading of question " + expected.getId() + " differs");
+                }
+            }
+        }
+        System.out.println("snapshot matches the parsed bank");
+    }
+
+    private static void writeJson(Path file, int size) throws Exception {
+        Random random = new Random(7);
+        List<Map<String, Object>> questions = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            StringBuilder text = new StringBuilder("Which term describes");
+            for (int w = 0; w < 8; w++) {
+                text.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            StringBuilder answer = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+            for (int w = random.nextInt(4); w > 0; w--) {
+                answer.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            questions.add(Map.of("id", i, "category", "Category " + (i % 20),
+                    "text", text.append('?').toString(), "answer", answer.toString()));
+        }
+        new ObjectMapper().writeValue(file.toFile(), questions);
+    }
+}
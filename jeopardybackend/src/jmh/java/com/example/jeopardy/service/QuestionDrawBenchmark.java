@@ -0,0 +1,69 @@
+package com.example.jeopardy.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.example.jeopardy.model.Question;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Draws questions from one large category. Draws run until the category
+ * is exhausted and it refills, so the refill cost is part of the average.
+ * In adaptive mode the category's questions have recorded accuracies
+ * spread from 0 to 1 and draws go through the weighted alias table.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QuestionDrawBenchmark {
+
+    private static final String CATEGORY = "Benchmark";
+
+    @Param({"1000", "100000"})
+    public int categorySize;
+
+    @Param({"uniform", "adaptive"})
+    public String drawMode;
+
+    private GameService gameService;
+    private String gameId;
+
+    @Setup
+    public void setUp() {
+        QuestionStats stats = new QuestionStats(Duration.ZERO, drawMode, 0.6);
+        gameService = new GameService(new GameEventBroadcaster(new ObjectMapper()),
+                new VerdictCache(10_000, Duration.ofMinutes(10)), GradingMetrics.disabled(),
+                GradingThresholds.defaults(), GameJournal.disabled(), stats, SessionExpiry.disabled(),
+                new InMemoryGameStateStore(), GradingStage.disabled());
+        QuestionBank.Builder bank = new QuestionBank.Builder(new AiAnswerEvaluator());
+        for (int i = 0; i < categorySize; i++) {
+            bank.add(CATEGORY, "Question " + i, "Answer " + i);
+        }
+        gameService.setQuestionBank(bank.build());
+        for (Question q : gameService.getQuestionBank().getQuestions(CATEGORY)) {
+            // ten answers each, 0 to 10 of them correct
+            int correct = (int) (q.getId() % 11);
+            for (int a = 0; a < 10; a++) {
+                stats.record(q.getId(), a < correct);
+            }
+        }
+        stats.aggregate();
+        gameId = gameService.startGame(List.of("Team 1", "Team 2")).getId();
+    }
+
+    @Benchmark
+    public Question getRandomQuestion() {
+        return gameService.getRandomQuestion(gameId, CATEGORY);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Question getRandomQuestionContended() {
+        return gameService.getRandomQuestion(gameId, CATEGORY);
+    }
+}
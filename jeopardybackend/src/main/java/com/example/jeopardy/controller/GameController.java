@@ -2,23 +2,39 @@ package com.example.jeopardy.controller;
 
 import com.example.jeopardy.dto.*;
 import com.example.jeopardy.model.Question;
-import com.example.jeopardy.model.Team;
 import com.example.jeopardy.service.GameService;
+import com.example.jeopardy.service.GameSession;
+import com.example.jeopardy.service.GradingStage;
+import com.example.jeopardy.service.QuestionStats;
+import com.example.jeopardy.service.VerdictCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/game")
 @CrossOrigin(origins = "http://localhost:3000")
 public class GameController {
 
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int MAX_LEADERBOARD_SIZE = 1000;
+    private static final int MAX_QUESTION_STATS_SIZE = 1000;
+
     private final GameService gameService;
+    private final GradingStage gradingStage;
 
-    public GameController(GameService gameService) {
+    public GameController(GameService gameService, GradingStage gradingStage) {
         this.gameService = gameService;
+        this.gradingStage = gradingStage;
     }
 
     @GetMapping("/categories")
@@ -26,20 +42,114 @@ public class GameController {
         return ResponseEntity.ok(gameService.getCategories());
     }
 
+    @GetMapping("/verdict-cache")
+    public ResponseEntity<CacheStatsResponse> getVerdictCacheStats() {
+        VerdictCache cache = gameService.getVerdictCache();
+        CacheStats stats = cache.stats();
+        return ResponseEntity.ok(new CacheStatsResponse(cache.size(), stats.hitCount(), stats.missCount(),
+                stats.hitRate(), stats.evictionCount()));
+    }
+
+    /**
+     * Accuracy of the hardest questions, as of the last background
+     * aggregation of the answer counters.
+     */
+    @GetMapping("/question-stats")
+    public ResponseEntity<QuestionStatsResponse> getQuestionStats(
+            @RequestParam(name = "category", required = false) String category,
+            @RequestParam(name = "limit", defaultValue = "50") int limit) {
+        if (limit < 1 || limit > MAX_QUESTION_STATS_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        QuestionStats stats = gameService.getQuestionStats();
+        QuestionStats.Snapshot snapshot = stats.getSnapshot();
+        return ResponseEntity.ok(new QuestionStatsResponse(snapshot.getAggregatedAt(), snapshot.getTotalAttempts(),
+                stats.isAdaptive() ? "adaptive" : "uniform", gameService.getHardestQuestions(snapshot, category, limit)));
+    }
+
     @PostMapping("/start")
     public ResponseEntity<GameState> startGame(@RequestBody GameStartRequest request) {
-        gameService.startGame(request.getTeamNames());
-        return ResponseEntity.ok(new GameState(gameService.getTeams()));
+        GameSession session = gameService.startGame(request.getTeamNames());
+        return ResponseEntity.ok(session.getState(-1));
     }
 
+    /**
+     * The scoreboard, or only the teams that changed after version
+     * {@code since}. The version doubles as the ETag, so a poll with a
+     * current {@code If-None-Match} gets a bodiless 304.
+     */
     @GetMapping("/state")
-    public ResponseEntity<GameState> getState() {
-        return ResponseEntity.ok(new GameState(gameService.getTeams()));
+    public ResponseEntity<GameState> getState(@RequestParam("gameId") String gameId,
+                                              @RequestParam(name = "since", required = false) Long since,
+                                              @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false)
+                                              String ifNoneMatch) {
+        GameSession session = gameService.getSession(gameId);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        String current = etag(session.getVersion());
+        if (ifNoneMatch != null && matchesAny(ifNoneMatch, current)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(current).build();
+        }
+        GameState state = session.getState(since != null ? since : -1);
+        return ResponseEntity.ok().eTag(etag(state.getVersion())).body(state);
+    }
+
+    private static String etag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    private static boolean matchesAny(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @GetMapping("/leaderboard")
+    public ResponseEntity<LeaderboardResponse> getLeaderboard(@RequestParam("gameId") String gameId,
+                                                              @RequestParam(name = "top", defaultValue = "10") int top) {
+        if (top < 1 || top > MAX_LEADERBOARD_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        GameSession session = gameService.getSession(gameId);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(new LeaderboardResponse(session.getId(), session.getTeamCount(),
+                session.getLeaderboard(top)));
+    }
+
+    @GetMapping("/leaderboard/rank")
+    public ResponseEntity<LeaderboardEntry> getRanking(@RequestParam("gameId") String gameId,
+                                                       @RequestParam("teamName") String teamName) {
+        GameSession session = gameService.getSession(gameId);
+        LeaderboardEntry entry = session != null ? session.getRanking(teamName) : null;
+        if (entry == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(entry);
+    }
+
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribe(@RequestParam("gameId") String gameId) {
+        SseEmitter emitter = gameService.subscribe(gameId);
+        if (emitter == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(emitter);
     }
 
     @GetMapping("/random-question")
-    public ResponseEntity<QuestionResponse> getRandomQuestion(@RequestParam("category") String category) {
-        Question q = gameService.getRandomQuestion(category);
+    public ResponseEntity<QuestionResponse> getRandomQuestion(@RequestParam("gameId") String gameId,
+                                                              @RequestParam("category") String category) {
+        Question q = gameService.getRandomQuestion(gameId, category);
         if (q == null) {
             return ResponseEntity.notFound().build();
         }
@@ -47,12 +157,80 @@ public class GameController {
         return ResponseEntity.ok(dto);
     }
 
+    /**
+     * Buzzes in for the question the game drew last. Every buzzing team
+     * gets its rank back; 409 if the question is no longer open.
+     */
+    @PostMapping("/buzz")
+    public ResponseEntity<BuzzResult> buzz(@RequestBody BuzzRequest request) {
+        try {
+            BuzzResult result = gameService.buzz(request.getGameId(), request.getQuestionId(),
+                    request.getTeamName());
+            if (result == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(result);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    /**
+     * Grades an answer through the grading stage; the request thread is
+     * free again while it waits there. 429 if the game has too many
+     * answers pending, 503 if the server as a whole has.
+     */
     @PostMapping("/answer")
-    public ResponseEntity<AnswerResult> submitAnswer(@RequestBody AnswerRequest request) {
-        boolean correct = gameService.checkAnswer(request.getQuestionId(), request.getTeamName(), request.getAnswer());
-        String correctAnswer = gameService.getCorrectAnswer(request.getQuestionId());
-        List<Team> teams = gameService.getTeams();
-        AnswerResult result = new AnswerResult(correct, correctAnswer, teams);
-        return ResponseEntity.ok(result);
+    public CompletableFuture<ResponseEntity<AnswerResult>> submitAnswer(@RequestBody AnswerRequest request) {
+        if (gameService.getSession(request.getGameId()) == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        try {
+            return gradingStage.submit(request.getGameId(), 1, () -> {
+                boolean correct = gameService.checkAnswer(request.getGameId(), request.getQuestionId(),
+                        request.getTeamName(), request.getAnswer());
+                String correctAnswer = gameService.getCorrectAnswer(request.getQuestionId());
+                GameSession session = gameService.getSession(request.getGameId());
+                AnswerResult result = new AnswerResult(correct, correctAnswer,
+                        session != null ? session.getState(-1) : new GameState(request.getGameId(), List.of()));
+                return ResponseEntity.ok(result);
+            });
+        } catch (GradingStage.Rejected e) {
+            return CompletableFuture.completedFuture(rejected(e));
+        }
+    }
+
+    @PostMapping("/answers")
+    public CompletableFuture<ResponseEntity<BatchAnswerResult>> submitAnswers(
+            @RequestBody BatchAnswerRequest request) {
+        List<AnswerRequest> answers = request.getAnswers();
+        if (answers == null || answers.size() > MAX_BATCH_SIZE) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        if (gameService.getSession(request.getGameId()) == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        try {
+            // a batch takes as much of the game's and the stage's room as its answers would one by one
+            return gradingStage.submit(request.getGameId(), answers.size(), () -> {
+                boolean[] correct = gameService.checkAnswers(request.getGameId(), answers);
+                List<AnswerVerdict> verdicts = new ArrayList<>(answers.size());
+                for (int i = 0; i < answers.size(); i++) {
+                    AnswerRequest answer = answers.get(i);
+                    verdicts.add(answer != null
+                            ? new AnswerVerdict(answer.getQuestionId(), answer.getTeamName(), correct[i])
+                            : new AnswerVerdict(0L, null, false));
+                }
+                BatchAnswerResult result = new BatchAnswerResult(verdicts, gameService.getTeams(request.getGameId()));
+                return ResponseEntity.ok(result);
+            });
+        } catch (GradingStage.Rejected e) {
+            return CompletableFuture.completedFuture(rejected(e));
+        }
+    }
+
+    private static <T> ResponseEntity<T> rejected(GradingStage.Rejected e) {
+        HttpStatus status = e.isOverloaded() ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.TOO_MANY_REQUESTS;
+        return ResponseEntity.status(status).header(HttpHeaders.RETRY_AFTER, "1").build();
     }
 }
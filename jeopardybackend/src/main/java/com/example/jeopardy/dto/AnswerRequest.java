@@ -1,12 +1,21 @@
 package com.example.jeopardy.dto;
 
 public class AnswerRequest {
+    private String gameId;
     private long questionId;
     private String teamName;
     private String answer;
 
     public AnswerRequest() {}
 
+    public String getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
+
     public long getQuestionId() {
         return questionId;
     }
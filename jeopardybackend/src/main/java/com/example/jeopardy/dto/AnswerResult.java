@@ -7,13 +7,15 @@ public class AnswerResult {
     private boolean correct;
     private String correctAnswer;
     private List<Team> teams;
+    private long version;
 
     public AnswerResult() {}
 
-    public AnswerResult(boolean correct, String correctAnswer, List<Team> teams) {
+    public AnswerResult(boolean correct, String correctAnswer, GameState state) {
         this.correct = correct;
         this.correctAnswer = correctAnswer;
-        this.teams = teams;
+        this.teams = state.getTeams();
+        this.version = state.getVersion();
     }
 
     public boolean isCorrect() {
@@ -28,6 +30,14 @@ public class AnswerResult {
         return teams;
     }
 
+    /**
+     * Scoreboard version of {@code teams}, comparable to the
+     * {@code scoreVersion} of pushed events.
+     */
+    public long getVersion() {
+        return version;
+    }
+
     public void setCorrect(boolean correct) {
         this.correct = correct;
     }
@@ -39,4 +49,8 @@ public class AnswerResult {
     public void setTeams(List<Team> teams) {
         this.teams = teams;
     }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,39 @@
+package com.example.jeopardy.dto;
+
+public class AnswerVerdict {
+    private long questionId;
+    private String teamName;
+    private boolean correct;
+
+    public AnswerVerdict() {}
+
+    public AnswerVerdict(long questionId, String teamName, boolean correct) {
+        this.questionId = questionId;
+        this.teamName = teamName;
+        this.correct = correct;
+    }
+
+    public long getQuestionId() {
+        return questionId;
+    }
+
+    public String getTeamName() {
+        return teamName;
+    }
+
+    public boolean isCorrect() {
+        return correct;
+    }
+
+    public void setQuestionId(long questionId) {
+        this.questionId = questionId;
+    }
+
+    public void setTeamName(String teamName) {
+        this.teamName = teamName;
+    }
+
+    public void setCorrect(boolean correct) {
+        this.correct = correct;
+    }
+}
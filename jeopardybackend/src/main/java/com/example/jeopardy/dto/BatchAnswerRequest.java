@@ -0,0 +1,26 @@
+package com.example.jeopardy.dto;
+
+import java.util.List;
+
+public class BatchAnswerRequest {
+    private String gameId;
+    private List<AnswerRequest> answers;
+
+    public BatchAnswerRequest() {}
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
+
+    public List<AnswerRequest> getAnswers() {
+        return answers;
+    }
+
+    public void setAnswers(List<AnswerRequest> answers) {
+        this.answers = answers;
+    }
+}
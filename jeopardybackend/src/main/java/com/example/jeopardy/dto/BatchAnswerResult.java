@@ -0,0 +1,32 @@
+package com.example.jeopardy.dto;
+
+import java.util.List;
+import com.example.jeopardy.model.Team;
+
+public class BatchAnswerResult {
+    private List<AnswerVerdict> verdicts;
+    private List<Team> teams;
+
+    public BatchAnswerResult() {}
+
+    public BatchAnswerResult(List<AnswerVerdict> verdicts, List<Team> teams) {
+        this.verdicts = verdicts;
+        this.teams = teams;
+    }
+
+    public List<AnswerVerdict> getVerdicts() {
+        return verdicts;
+    }
+
+    public List<Team> getTeams() {
+        return teams;
+    }
+
+    public void setVerdicts(List<AnswerVerdict> verdicts) {
+        this.verdicts = verdicts;
+    }
+
+    public void setTeams(List<Team> teams) {
+        this.teams = teams;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.jeopardy.dto;
+
+public class BuzzRequest {
+    private String gameId;
+    private long questionId;
+    private String teamName;
+
+    public BuzzRequest() {}
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
+
+    public long getQuestionId() {
+        return questionId;
+    }
+
+    public void setQuestionId(long questionId) {
+        this.questionId = questionId;
+    }
+
+    public String getTeamName() {
+        return teamName;
+    }
+
+    public void setTeamName(String teamName) {
+        this.teamName = teamName;
+    }
+}
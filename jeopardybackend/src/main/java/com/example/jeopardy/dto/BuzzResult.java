@@ -0,0 +1,67 @@
+package com.example.jeopardy.dto;
+
+/**
+ * Outcome of one team's buzz: its rank among the teams that buzzed for
+ * the question (1 wins) and how long after the question opened it came.
+ */
+public class BuzzResult {
+    private String gameId;
+    private long questionId;
+    private String teamName;
+    private int rank;
+    private long microsToBuzz;
+
+    public BuzzResult() {}
+
+    public BuzzResult(String gameId, long questionId, String teamName, int rank, long microsToBuzz) {
+        this.gameId = gameId;
+        this.questionId = questionId;
+        this.teamName = teamName;
+        this.rank = rank;
+        this.microsToBuzz = microsToBuzz;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public long getQuestionId() {
+        return questionId;
+    }
+
+    public String getTeamName() {
+        return teamName;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public boolean isFirst() {
+        return rank == 1;
+    }
+
+    public long getMicrosToBuzz() {
+        return microsToBuzz;
+    }
+
+    public void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
+
+    public void setQuestionId(long questionId) {
+        this.questionId = questionId;
+    }
+
+    public void setTeamName(String teamName) {
+        this.teamName = teamName;
+    }
+
+    public void setRank(int rank) {
+        this.rank = rank;
+    }
+
+    public void setMicrosToBuzz(long microsToBuzz) {
+        this.microsToBuzz = microsToBuzz;
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.jeopardy.dto;
+
+import java.util.List;
+import com.example.jeopardy.model.Team;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Change pushed to scoreboard subscribers. {@code version} increases by
+ * one per event within a game, so clients can spot gaps and resubscribe.
+ * Score and state events also carry {@code scoreVersion}, the scoreboard
+ * version their scores are at least as new as; a client drops any whose
+ * {@code scoreVersion} is below the last one it applied, whether that
+ * came from an event or a response.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class GameEvent {
+    public static final String STATE = "state";
+    public static final String SCORE = "score";
+    public static final String QUESTION = "question";
+    public static final String BUZZ = "buzz";
+
+    private long version;
+    private Long scoreVersion;
+    private String type;
+    private List<Team> teams;
+    private Team team;
+    private Integer delta;
+    private Boolean correct;
+    private QuestionResponse question;
+    private BuzzResult buzz;
+
+    public GameEvent() {}
+
+    public static GameEvent state(List<Team> teams, long scoreVersion) {
+        GameEvent event = new GameEvent();
+        event.type = STATE;
+        event.teams = teams;
+        event.scoreVersion = scoreVersion;
+        return event;
+    }
+
+    public static GameEvent score(Team team, int delta, boolean correct, long scoreVersion) {
+        GameEvent event = new GameEvent();
+        event.type = SCORE;
+        event.scoreVersion = scoreVersion;
+        event.team = team;
+        event.delta = delta;
+        event.correct = correct;
+        return event;
+    }
+
+    public static GameEvent question(QuestionResponse question) {
+        GameEvent event = new GameEvent();
+        event.type = QUESTION;
+        event.question = question;
+        return event;
+    }
+
+    public static GameEvent buzz(BuzzResult buzz) {
+        GameEvent event = new GameEvent();
+        event.type = BUZZ;
+        event.buzz = buzz;
+        return event;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Long getScoreVersion() {
+        return scoreVersion;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public List<Team> getTeams() {
+        return teams;
+    }
+
+    public Team getTeam() {
+        return team;
+    }
+
+    public Integer getDelta() {
+        return delta;
+    }
+
+    public Boolean getCorrect() {
+        return correct;
+    }
+
+    public QuestionResponse getQuestion() {
+        return question;
+    }
+
+    public BuzzResult getBuzz() {
+        return buzz;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public void setScoreVersion(Long scoreVersion) {
+        this.scoreVersion = scoreVersion;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public void setTeams(List<Team> teams) {
+        this.teams = teams;
+    }
+
+    public void setTeam(Team team) {
+        this.team = team;
+    }
+
+    public void setDelta(Integer delta) {
+        this.delta = delta;
+    }
+
+    public void setCorrect(Boolean correct) {
+        this.correct = correct;
+    }
+
+    public void setQuestion(QuestionResponse question) {
+        this.question = question;
+    }
+
+    public void setBuzz(BuzzResult buzz) {
+        this.buzz = buzz;
+    }
+}
@@ -2,21 +2,62 @@ package com.example.jeopardy.dto;
 
 import java.util.List;
 import com.example.jeopardy.model.Team;
+import com.fasterxml.jackson.annotation.JsonInclude;
 
+/**
+ * Scoreboard of a game at {@code version}. When {@code changesSince} is
+ * set, {@code teams} only holds the teams whose score moved after that
+ * version.
+ */
 public class GameState {
+    private String gameId;
     private List<Team> teams;
+    private long version;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long changesSince;
 
     public GameState() {}
 
-    public GameState(List<Team> teams) {
+    public GameState(String gameId, List<Team> teams) {
+        this.gameId = gameId;
         this.teams = teams;
     }
 
+    public GameState(String gameId, List<Team> teams, long version) {
+        this.gameId = gameId;
+        this.teams = teams;
+        this.version = version;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
     public List<Team> getTeams() {
         return teams;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public Long getChangesSince() {
+        return changesSince;
+    }
+
+    public void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
+
     public void setTeams(List<Team> teams) {
         this.teams = teams;
     }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public void setChangesSince(Long changesSince) {
+        this.changesSince = changesSince;
+    }
 }
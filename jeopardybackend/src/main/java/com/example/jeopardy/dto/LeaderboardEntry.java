@@ -0,0 +1,39 @@
+package com.example.jeopardy.dto;
+
+public class LeaderboardEntry {
+    private int rank;
+    private String name;
+    private int score;
+
+    public LeaderboardEntry() {}
+
+    public LeaderboardEntry(int rank, String name, int score) {
+        this.rank = rank;
+        this.name = name;
+        this.score = score;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public void setRank(int rank) {
+        this.rank = rank;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public void setScore(int score) {
+        this.score = score;
+    }
+}
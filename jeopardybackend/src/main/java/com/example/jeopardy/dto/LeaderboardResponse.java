@@ -0,0 +1,41 @@
+package com.example.jeopardy.dto;
+
+import java.util.List;
+
+public class LeaderboardResponse {
+    private String gameId;
+    private int teamCount;
+    private List<LeaderboardEntry> entries;
+
+    public LeaderboardResponse() {}
+
+    public LeaderboardResponse(String gameId, int teamCount, List<LeaderboardEntry> entries) {
+        this.gameId = gameId;
+        this.teamCount = teamCount;
+        this.entries = entries;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public int getTeamCount() {
+        return teamCount;
+    }
+
+    public List<LeaderboardEntry> getEntries() {
+        return entries;
+    }
+
+    public void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
+
+    public void setTeamCount(int teamCount) {
+        this.teamCount = teamCount;
+    }
+
+    public void setEntries(List<LeaderboardEntry> entries) {
+        this.entries = entries;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.jeopardy.dto;
+
+public class QuestionStatsEntry {
+    private long questionId;
+    private String category;
+    private long attempts;
+    private long correct;
+    private double accuracy;
+
+    public QuestionStatsEntry() {}
+
+    public QuestionStatsEntry(long questionId, String category, long attempts, long correct) {
+        this.questionId = questionId;
+        this.category = category;
+        this.attempts = attempts;
+        this.correct = correct;
+        this.accuracy = attempts > 0 ? (double) correct / attempts : 0d;
+    }
+
+    public long getQuestionId() {
+        return questionId;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public long getAttempts() {
+        return attempts;
+    }
+
+    public long getCorrect() {
+        return correct;
+    }
+
+    public double getAccuracy() {
+        return accuracy;
+    }
+
+    public void setQuestionId(long questionId) {
+        this.questionId = questionId;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public void setAttempts(long attempts) {
+        this.attempts = attempts;
+    }
+
+    public void setCorrect(long correct) {
+        this.correct = correct;
+    }
+
+    public void setAccuracy(double accuracy) {
+        this.accuracy = accuracy;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.jeopardy.dto;
+
+import java.util.List;
+
+/**
+ * Per-question accuracy as of the last aggregation, hardest questions
+ * first.
+ */
+public class QuestionStatsResponse {
+    private long aggregatedAt;
+    private long totalAttempts;
+    private String drawMode;
+    private List<QuestionStatsEntry> entries;
+
+    public QuestionStatsResponse() {}
+
+    public QuestionStatsResponse(long aggregatedAt, long totalAttempts, String drawMode,
+                                 List<QuestionStatsEntry> entries) {
+        this.aggregatedAt = aggregatedAt;
+        this.totalAttempts = totalAttempts;
+        this.drawMode = drawMode;
+        this.entries = entries;
+    }
+
+    public long getAggregatedAt() {
+        return aggregatedAt;
+    }
+
+    public long getTotalAttempts() {
+        return totalAttempts;
+    }
+
+    public String getDrawMode() {
+        return drawMode;
+    }
+
+    public List<QuestionStatsEntry> getEntries() {
+        return entries;
+    }
+
+    public void setAggregatedAt(long aggregatedAt) {
+        this.aggregatedAt = aggregatedAt;
+    }
+
+    public void setTotalAttempts(long totalAttempts) {
+        this.totalAttempts = totalAttempts;
+    }
+
+    public void setDrawMode(String drawMode) {
+        this.drawMode = drawMode;
+    }
+
+    public void setEntries(List<QuestionStatsEntry> entries) {
+        this.entries = entries;
+    }
+}
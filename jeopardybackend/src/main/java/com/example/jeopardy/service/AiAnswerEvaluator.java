@@ -1,14 +1,8 @@
 package com.example.jeopardy.service;
 
-import java.text.Normalizer;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Locale;
-import java.util.Map;
-import java.util.Set;
-
-import org.apache.commons.text.similarity.CosineSimilarity;
-import org.apache.commons.text.similarity.JaroWinklerSimilarity;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Lightweight natural-language matching utility that mimics an
@@ -17,85 +11,256 @@ import org.apache.commons.text.similarity.JaroWinklerSimilarity;
  */
 public class AiAnswerEvaluator {
 
-    private static final double COSINE_THRESHOLD = 0.80;
-    private static final double JARO_THRESHOLD = 0.90;
+    /**
+     * The stage of the cascade that decided a verdict.
+     */
+    public enum Stage {
+        STRICT, ALIAS, JARO_WINKLER, COSINE, TOKEN_COVERAGE, NGRAM, REJECTED
+    }
+
+    private final GradingMetrics metrics;
+    private final GradingThresholds thresholds;
+
+    public AiAnswerEvaluator() {
+        this(GradingMetrics.disabled());
+    }
+
+    public AiAnswerEvaluator(GradingMetrics metrics) {
+        this(metrics, GradingThresholds.defaults());
+    }
+
+    public AiAnswerEvaluator(GradingMetrics metrics, GradingThresholds thresholds) {
+        this.metrics = metrics;
+        this.thresholds = thresholds;
+    }
 
-    private final CosineSimilarity cosineSimilarity = new CosineSimilarity();
-    private final JaroWinklerSimilarity jaroWinkler = new JaroWinklerSimilarity();
+    public GradingThresholds getThresholds() {
+        return thresholds;
+    }
+
+    /**
+     * Pre-processes an expected answer so it can be graded many times
+     * without re-normalizing it. Returns {@code null} for blank answers,
+     * which never match anything. Answers compiled here weigh all
+     * trigrams alike; a {@link QuestionBank} re-weighs its answers by how
+     * common each trigram is across the bank.
+     */
+    public CompiledAnswer compile(String expected) {
+        return compile(expected, List.of());
+    }
+
+    /**
+     * Like {@link #compile(String)}, but a submission containing one of
+     * {@code aliases} (e.g. "LLB" for "Bachelor of Laws") as whole words
+     * is accepted too. Aliases without letters or digits are ignored.
+     */
+    public CompiledAnswer compile(String expected, List<String> aliases) {
+        if (expected == null) {
+            return null;
+        }
+        String cleanedExpected = expected.trim();
+        if (cleanedExpected.isEmpty()) {
+            return null;
+        }
+        List<char[]> aliasForms = new ArrayList<>(aliases.size());
+        TextNormalizer aliasText = new TextNormalizer();
+        for (String alias : aliases) {
+            aliasText.normalize(alias);
+            if (aliasText.strictLength > 0) {
+                aliasForms.add(Arrays.copyOf(aliasText.strict, aliasText.strictLength));
+            }
+        }
+        // compiled answers outlive the call, so they get their own buffers
+        return new CompiledAnswer(cleanedExpected, new TextNormalizer().normalize(cleanedExpected),
+                AliasMatcher.of(aliasForms), NgramModel.UNIFORM);
+    }
 
     public boolean isCorrect(String expected, String provided) {
+        return isCorrect(compile(expected), provided);
+    }
+
+    public boolean isCorrect(CompiledAnswer expected, String provided) {
+        return evaluate(expected, provided) != Stage.REJECTED;
+    }
+
+    /**
+     * Runs the grading cascade and returns the stage that accepted the
+     * answer, or {@link Stage#REJECTED}.
+     */
+    public Stage evaluate(CompiledAnswer expected, String provided) {
+        boolean timed = metrics.isEnabled();
+        Stage stage = decide(expected, provided, timed);
+        if (timed) {
+            metrics.verdict(stage);
+        }
+        return stage;
+    }
+
+    private Stage decide(CompiledAnswer expected, String provided, boolean timed) {
         if (expected == null || provided == null) {
-            return false;
+            return Stage.REJECTED;
         }
 
-        String cleanedExpected = expected.trim();
-        String cleanedProvided = provided.trim();
-        if (cleanedExpected.isEmpty() || cleanedProvided.isEmpty()) {
-            return false;
+        TextNormalizer text = TextNormalizer.forCurrentThread().normalize(provided);
+        if (text.isBlank()) {
+            return Stage.REJECTED;
         }
+        long start = timed ? System.nanoTime() : 0L;
 
-        String normalizedExpected = normalizeStrict(cleanedExpected);
-        String normalizedProvided = normalizeStrict(cleanedProvided);
+        char[] normalizedExpected = expected.getStrict();
+        boolean strictMatch = contains(normalizedExpected, normalizedExpected.length, text.strict, text.strictLength)
+                || contains(text.strict, text.strictLength, normalizedExpected, normalizedExpected.length);
+        if (timed) {
+            start = metrics.stageDone(Stage.STRICT, start);
+        }
+        if (strictMatch) {
+            return Stage.STRICT;
+        }
 
-        if (normalizedExpected.equals(normalizedProvided)
-                || normalizedExpected.contains(normalizedProvided)
-                || normalizedProvided.contains(normalizedExpected)) {
-            return true;
+        AliasMatcher aliases = expected.getAliases();
+        if (!aliases.isEmpty()) {
+            boolean aliasMatch = aliases.matches(text);
+            if (timed) {
+                start = metrics.stageDone(Stage.ALIAS, start);
+            }
+            if (aliasMatch) {
+                return Stage.ALIAS;
+            }
         }
 
-        double jaroScore = jaroWinkler.apply(cleanedExpected.toLowerCase(Locale.ROOT),
-                cleanedProvided.toLowerCase(Locale.ROOT));
-        if (jaroScore >= JARO_THRESHOLD) {
-            return true;
+        char[] lowerExpected = expected.getLowerCased();
+        boolean jaroMatch;
+        if (timed) {
+            // the score distribution needs the exact score, so no early exit here
+            double jaroScore = SimilarityKernels.jaroWinkler(lowerExpected, lowerExpected.length,
+                    text.lower, text.lowerLength);
+            start = metrics.stageDone(Stage.JARO_WINKLER, start);
+            metrics.jaroWinklerScore(jaroScore);
+            jaroMatch = jaroScore >= thresholds.getJaroWinkler();
+        } else {
+            jaroMatch = SimilarityKernels.jaroWinklerAtLeast(lowerExpected, lowerExpected.length,
+                    text.lower, text.lowerLength, thresholds.getJaroWinkler());
+        }
+        if (jaroMatch) {
+            return Stage.JARO_WINKLER;
         }
 
-        double cosineScore = cosineSimilarity.apply(toVector(cleanedExpected), toVector(cleanedProvided));
-        if (Double.isFinite(cosineScore) && cosineScore >= COSINE_THRESHOLD) {
-            return true;
+        // both remaining stages only depend on how many distinct tokens the answers share
+        int expectedTokens = expected.getTokenCount();
+        int overlapping = overlappingTokens(expected, text);
+        double cosineScore = SimilarityKernels.cosine(overlapping, expectedTokens, text.tokenCount);
+        if (timed) {
+            start = metrics.stageDone(Stage.COSINE, start);
+            metrics.cosineScore(cosineScore);
+        }
+        if (Double.isFinite(cosineScore) && cosineScore >= thresholds.getCosine()) {
+            return Stage.COSINE;
         }
 
-        Set<String> expectedTokens = tokenize(cleanedExpected);
-        Set<String> providedTokens = tokenize(cleanedProvided);
-        if (!expectedTokens.isEmpty()) {
-            long overlapping = providedTokens.stream().filter(expectedTokens::contains).count();
-            double coverage = (double) overlapping / expectedTokens.size();
-            if (coverage >= 0.6d) {
-                return true;
+        if (expectedTokens > 0) {
+            double coverage = (double) overlapping / expectedTokens;
+            if (timed) {
+                start = metrics.stageDone(Stage.TOKEN_COVERAGE, start);
+                metrics.coverageScore(coverage);
+            }
+            if (coverage >= thresholds.getCoverage()) {
+                return Stage.TOKEN_COVERAGE;
             }
         }
 
-        return false;
+        // last resort for misspelt words: the stages above only see whole tokens
+        double ngramScore = expected.ngramSimilarity(text.collectTrigrams());
+        if (timed) {
+            metrics.stageDone(Stage.NGRAM, start);
+            metrics.ngramScore(ngramScore);
+        }
+        if (ngramScore >= thresholds.getNgram()) {
+            return Stage.NGRAM;
+        }
+
+        return Stage.REJECTED;
     }
 
-    private Map<CharSequence, Integer> toVector(String input) {
-        Map<CharSequence, Integer> vector = new HashMap<>();
-        for (String token : tokenize(input)) {
-            vector.merge(token, 1, Integer::sum);
+    private static int overlappingTokens(CompiledAnswer expected, TextNormalizer text) {
+        int overlapping = 0;
+        for (int i = 0; i < text.tokenCount; i++) {
+            if (expected.containsToken(text.strict, text.tokenStart[i], text.tokenEnd[i], text.tokenHash[i])) {
+                overlapping++;
+            }
         }
-        return vector;
+        return overlapping;
     }
 
-    private Set<String> tokenize(String input) {
-        if (input == null) {
-            return Set.of();
-        }
-        String normalized = Normalizer.normalize(input, Normalizer.Form.NFKD)
-                .replaceAll("[^\p{Alnum} ]+", " ")
-                .toLowerCase(Locale.ROOT);
-        String[] parts = normalized.split("\\s+");
-        Set<String> tokens = new HashSet<>();
-        for (String part : parts) {
-            if (!part.isBlank()) {
-                tokens.add(part);
-            }
+    /**
+     * Computes what every stage of the cascade sees, without stopping at
+     * the first one that accepts, so the verdict under any thresholds can
+     * be read off {@code out} afterwards. Records no metrics.
+     */
+    Scores score(CompiledAnswer expected, String provided, Scores out) {
+        out.exact = null;
+        out.jaroWinkler = out.cosine = out.coverage = out.ngram = Double.NaN;
+        if (expected == null || provided == null) {
+            return out;
+        }
+        TextNormalizer text = TextNormalizer.forCurrentThread().normalize(provided);
+        if (text.isBlank()) {
+            return out;
+        }
+        char[] normalizedExpected = expected.getStrict();
+        if (contains(normalizedExpected, normalizedExpected.length, text.strict, text.strictLength)
+                || contains(text.strict, text.strictLength, normalizedExpected, normalizedExpected.length)) {
+            out.exact = Stage.STRICT;
+            return out;
+        }
+        if (expected.getAliases().matches(text)) {
+            out.exact = Stage.ALIAS;
+            return out;
         }
-        return tokens;
+        char[] lowerExpected = expected.getLowerCased();
+        out.jaroWinkler = SimilarityKernels.jaroWinkler(lowerExpected, lowerExpected.length,
+                text.lower, text.lowerLength);
+        int expectedTokens = expected.getTokenCount();
+        int overlapping = overlappingTokens(expected, text);
+        double cosine = SimilarityKernels.cosine(overlapping, expectedTokens, text.tokenCount);
+        out.cosine = Double.isFinite(cosine) ? cosine : Double.NaN;
+        if (expectedTokens > 0) {
+            out.coverage = (double) overlapping / expectedTokens;
+        }
+        out.ngram = expected.ngramSimilarity(text.collectTrigrams());
+        return out;
     }
 
-    private String normalizeStrict(String input) {
-        String normalized = Normalizer.normalize(input, Normalizer.Form.NFKD)
-                .replaceAll("[^\p{Alnum}]+", "")
-                .toLowerCase(Locale.ROOT);
-        return normalized;
+    /**
+     * Per-stage scores of one submission; a score is NaN where its stage
+     * never runs, which no threshold accepts.
+     */
+    static final class Scores {
+        // STRICT or ALIAS when those accepted, which no threshold changes
+        Stage exact;
+        double jaroWinkler;
+        double cosine;
+        double coverage;
+        double ngram;
+
+        boolean accepted(GradingThresholds thresholds) {
+            return exact != null
+                    || jaroWinkler >= thresholds.getJaroWinkler()
+                    || cosine >= thresholds.getCosine()
+                    || coverage >= thresholds.getCoverage()
+                    || ngram >= thresholds.getNgram();
+        }
+    }
+
+    /**
+     * {@link String#contains} over the first {@code length} chars of two
+     * buffers; like it, an empty needle is contained in anything.
+     */
+    private static boolean contains(char[] haystack, int haystackLength, char[] needle, int needleLength) {
+        for (int i = 0, last = haystackLength - needleLength; i <= last; i++) {
+            if (Arrays.equals(haystack, i, i + needleLength, needle, 0, needleLength)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,129 @@
+package com.example.jeopardy.service;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Aho-Corasick automaton over the strict forms of one answer's aliases
+ * ("LLB" for "Bachelor of Laws", "AIBE" for "All India Bar Examination").
+ * A single pass over a submission's strict form finds every alias it
+ * contains; a hit only counts when it starts and ends on token
+ * boundaries, so "llb" does not match inside "allbright".
+ *
+ * <p>Transitions are a dense table over the 36 chars of the strict form,
+ * so the pass does one array read per char. Matchers are immutable and
+ * built with the compiled answer, i.e. whenever a bank is (re)loaded off
+ * the request path.
+ */
+final class AliasMatcher {
+
+    private static final int ALPHABET = 36;
+
+    static final AliasMatcher NONE = new AliasMatcher(new char[0][]);
+
+    private final char[][] aliases;
+    private final int[] next;
+    // length of the longest alias ending in each state, 0 if none
+    private final int[] matchLength;
+    // nearest state on the failure chain that ends an alias, 0 if none
+    private final int[] outputLink;
+
+    /**
+     * {@code aliases} are non-empty strict forms, as produced by
+     * {@link TextNormalizer}.
+     */
+    AliasMatcher(char[][] aliases) {
+        this.aliases = aliases;
+        int maxStates = 1;
+        for (char[] alias : aliases) {
+            maxStates += alias.length;
+        }
+        int[] goTo = new int[maxStates * ALPHABET];
+        Arrays.fill(goTo, -1);
+        int[] length = new int[maxStates];
+        int states = 1;
+        for (char[] alias : aliases) {
+            int state = 0;
+            for (char c : alias) {
+                int edge = state * ALPHABET + code(c);
+                if (goTo[edge] < 0) {
+                    goTo[edge] = states++;
+                }
+                state = goTo[edge];
+            }
+            length[state] = alias.length;
+        }
+
+        // breadth-first, so every state's failure target is finished before the state itself
+        int[] failure = new int[states];
+        int[] output = new int[states];
+        int[] queue = new int[states];
+        int head = 0;
+        int tail = 0;
+        for (int c = 0; c < ALPHABET; c++) {
+            if (goTo[c] < 0) {
+                goTo[c] = 0;
+            } else {
+                queue[tail++] = goTo[c];
+            }
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            int fail = failure[state];
+            output[state] = length[fail] > 0 ? fail : output[fail];
+            for (int c = 0; c < ALPHABET; c++) {
+                int edge = state * ALPHABET + c;
+                if (goTo[edge] < 0) {
+                    goTo[edge] = goTo[fail * ALPHABET + c];
+                } else {
+                    failure[goTo[edge]] = goTo[fail * ALPHABET + c];
+                    queue[tail++] = goTo[edge];
+                }
+            }
+        }
+        this.next = Arrays.copyOf(goTo, states * ALPHABET);
+        this.matchLength = Arrays.copyOf(length, states);
+        this.outputLink = output;
+    }
+
+    static AliasMatcher of(List<char[]> aliases) {
+        return aliases.isEmpty() ? NONE : new AliasMatcher(aliases.toArray(new char[0][]));
+    }
+
+    private static int code(char c) {
+        return c >= 'a' ? c - 'a' : c - '0' + 26;
+    }
+
+    boolean isEmpty() {
+        return aliases.length == 0;
+    }
+
+    char[][] getAliases() {
+        return aliases;
+    }
+
+    /**
+     * Whether the normalized submission contains one of the aliases as a
+     * run of whole tokens.
+     */
+    boolean matches(TextNormalizer text) {
+        if (aliases.length == 0) {
+            return false;
+        }
+        char[] strict = text.strict;
+        int state = 0;
+        for (int i = 0; i < text.strictLength; i++) {
+            state = next[state * ALPHABET + code(strict[i])];
+            int end = i + 1;
+            if (!text.isTokenBoundary(end)) {
+                continue;
+            }
+            for (int hit = matchLength[state] > 0 ? state : outputLink[state]; hit != 0; hit = outputLink[hit]) {
+                if (text.isTokenBoundary(end - matchLength[hit])) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
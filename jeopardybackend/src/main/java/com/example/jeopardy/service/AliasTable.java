@@ -0,0 +1,78 @@
+package com.example.jeopardy.service;
+
+import com.example.jeopardy.model.Question;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Walker/Vose alias table over one category's questions: built in O(n)
+ * from per-question weights, it picks an index with probability
+ * proportional to its weight using one random slot and one coin flip.
+ */
+final class AliasTable {
+
+    private final List<Question> questions;
+    private final double[] probability;
+    private final int[] alias;
+
+    /**
+     * {@code weights[i]} is the positive weight of {@code questions.get(i)}.
+     */
+    AliasTable(List<Question> questions, double[] weights) {
+        int n = weights.length;
+        this.questions = questions;
+        this.probability = new double[n];
+        this.alias = new int[n];
+        double total = 0d;
+        for (double weight : weights) {
+            total += weight;
+        }
+        // scaled so the average is 1; slots below it borrow from slots above it
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / total;
+            if (scaled[i] < 1d) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1d;
+            if (scaled[more] < 1d) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // whatever is left is 1 up to rounding
+        while (largeCount > 0) {
+            probability[large[--largeCount]] = 1d;
+        }
+        while (smallCount > 0) {
+            probability[small[--smallCount]] = 1d;
+        }
+    }
+
+    /**
+     * Whether the table was built for exactly this list, i.e. the bank
+     * has not been reloaded since.
+     */
+    boolean covers(List<Question> questions) {
+        return this.questions == questions;
+    }
+
+    int sample(Random random) {
+        int slot = random.nextInt(probability.length);
+        return random.nextDouble() < probability[slot] ? slot : alias[slot];
+    }
+}
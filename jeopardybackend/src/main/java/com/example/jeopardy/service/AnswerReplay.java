@@ -0,0 +1,426 @@
+package com.example.jeopardy.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a file of labeled submissions through the grading cascade and
+ * reports how a grid of thresholds would have graded them. Each line is
+ * {@code questionId<TAB>submitted answer<TAB>expected verdict}, the
+ * verdict being {@code true}/{@code false} or {@code 1}/{@code 0}; blank
+ * lines and lines starting with {@code #} are skipped.
+ *
+ * <p>Every submission is scored once, by every stage. Since the cascade
+ * accepts as soon as any stage's score reaches its threshold, a
+ * submission's verdict under any thresholds follows from which grid
+ * value each score reaches. The replay only counts submissions per
+ * combination of those positions; prefix sums over the counts then give
+ * the confusion matrix of every threshold combination at once, however
+ * large the grid.
+ *
+ * <p>Run with {@code AnswerReplay <records.tsv> [bank] [stage=from:to:step ...] [top=N]}, where
+ * {@code stage} is {@code jaro-winkler}, {@code cosine}, {@code coverage} or {@code ngram}.
+ * Without a bank it grades against the built-in one.
+ */
+public final class AnswerReplay {
+
+    static final String[] STAGES = {"jaro-winkler", "cosine", "coverage", "ngram"};
+
+    private static final int BATCH = 4096;
+
+    private AnswerReplay() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: AnswerReplay <records.tsv> [bank] [stage=from:to:step ...] [top=N]");
+            System.exit(2);
+        }
+        GradingThresholds current = GradingThresholds.defaults();
+        double[][] grid = {range(0.80, 0.98, 0.02), range(0.50, 1.00, 0.05), range(0.30, 1.00, 0.10),
+                range(0.50, 0.95, 0.05)};
+        Path bankPath = null;
+        int top = 10;
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            int equals = arg.indexOf('=');
+            if (equals < 0) {
+                bankPath = Paths.get(arg);
+            } else if (arg.startsWith("top=")) {
+                top = Integer.parseInt(arg.substring(equals + 1));
+            } else {
+                int stage = Arrays.asList(STAGES).indexOf(arg.substring(0, equals));
+                String[] spec = arg.substring(equals + 1).split(":");
+                if (stage < 0 || spec.length != 3) {
+                    throw new IllegalArgumentException("Expected stage=from:to:step, got " + arg);
+                }
+                grid[stage] = range(Double.parseDouble(spec[0]), Double.parseDouble(spec[1]),
+                        Double.parseDouble(spec[2]));
+            }
+        }
+        // the configured thresholds are always on the grid, as the baseline
+        double[] baseline = {current.getJaroWinkler(), current.getCosine(), current.getCoverage(), current.getNgram()};
+        for (int d = 0; d < grid.length; d++) {
+            grid[d] = withValue(grid[d], baseline[d]);
+        }
+
+        AiAnswerEvaluator evaluator = new AiAnswerEvaluator();
+        QuestionBankLoader loader = new QuestionBankLoader(evaluator);
+        QuestionBank bank = bankPath != null ? loader.load(bankPath) : loader.loadBuiltIn();
+        int threads = Runtime.getRuntime().availableProcessors();
+        long start = System.nanoTime();
+        Result result = replay(Paths.get(args[0]), bank, evaluator, grid, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf(Locale.ROOT, "Replayed %,d records (%,d skipped) in %.2f s on %d threads: %,.0f records/s%n",
+                result.records, result.skipped, seconds, threads, result.records / seconds);
+        System.out.printf(Locale.ROOT, "%,d correct and %,d incorrect submissions, %,d threshold combinations%n%n",
+                result.positives, result.negatives, result.combinations());
+        int[] at = new int[grid.length];
+        for (int d = 0; d < grid.length; d++) {
+            at[d] = Arrays.binarySearch(grid[d], baseline[d]);
+        }
+        System.out.printf("%-12s %8s %8s %8s %8s %9s %9s %7s %7s%n", "", STAGES[0], STAGES[1], STAGES[2], STAGES[3],
+                "accuracy", "precision", "recall", "false+");
+        print("configured", result.outcome(at));
+        List<Outcome> best = result.best(top);
+        for (int i = 0; i < best.size(); i++) {
+            print(i == 0 ? "best" : "", best.get(i));
+        }
+        if (!best.isEmpty()) {
+            System.out.printf("%nTo grade with the best combination:%n");
+            for (int d = 0; d < STAGES.length; d++) {
+                System.out.printf(Locale.ROOT, "jeopardy.grading.%s-threshold=%.3f%n", STAGES[d],
+                        best.get(0).thresholds[d]);
+            }
+        }
+    }
+
+    private static void print(String label, Outcome outcome) {
+        System.out.printf(Locale.ROOT, "%-12s %8.3f %8.3f %8.3f %8.3f %8.2f%% %8.2f%% %6.2f%% %7d%n", label,
+                outcome.thresholds[0], outcome.thresholds[1], outcome.thresholds[2], outcome.thresholds[3],
+                100 * outcome.accuracy(), 100 * outcome.precision(), 100 * outcome.recall(), outcome.falsePositives);
+    }
+
+    static double[] range(double from, double to, double step) {
+        if (!(step > 0) || to < from) {
+            throw new IllegalArgumentException("Empty threshold range " + from + ":" + to + ":" + step);
+        }
+        int count = (int) Math.floor((to - from) / step + 1e-9) + 1;
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            // rounded, so 0.1-steps land on the values they are written as
+            values[i] = Math.round((from + i * step) * 1e6) / 1e6;
+        }
+        return values;
+    }
+
+    private static double[] withValue(double[] values, double value) {
+        if (Arrays.binarySearch(values, value) >= 0) {
+            return values;
+        }
+        double[] merged = Arrays.copyOf(values, values.length + 1);
+        merged[values.length] = value;
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    /**
+     * Scores every record of {@code records} on {@code threads} threads
+     * and counts them against {@code grid}, one ascending array of
+     * thresholds per stage in {@link #STAGES} order.
+     */
+    static Result replay(Path records, QuestionBank bank, AiAnswerEvaluator evaluator, double[][] grid, int threads)
+            throws IOException, InterruptedException {
+        Collection<Tally> tallies = new ConcurrentLinkedQueue<>();
+        ThreadLocal<Tally> tally = ThreadLocal.withInitial(() -> {
+            Tally own = new Tally(grid);
+            tallies.add(own);
+            return own;
+        });
+        // a full queue makes the reading thread grade a batch itself, which holds the reader back
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        try (BufferedReader in = Files.newBufferedReader(records, StandardCharsets.UTF_8)) {
+            List<String> batch = new ArrayList<>(BATCH);
+            String line;
+            while ((line = in.readLine()) != null) {
+                batch.add(line);
+                if (batch.size() == BATCH) {
+                    List<String> lines = batch;
+                    workers.execute(() -> tally.get().addAll(lines, bank, evaluator));
+                    batch = new ArrayList<>(BATCH);
+                }
+            }
+            List<String> lines = batch;
+            workers.execute(() -> tally.get().addAll(lines, bank, evaluator));
+        } finally {
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        Tally total = new Tally(grid);
+        for (Tally own : tallies) {
+            total.merge(own);
+        }
+        return new Result(grid, total);
+    }
+
+    /**
+     * One thread's counts. A record lands in the histogram cell given by,
+     * per stage, how many grid thresholds its score reaches; the stage
+     * accepts it under every threshold below that position.
+     */
+    private static final class Tally {
+        final double[][] grid;
+        final int[] strides;
+        // per cell: submissions labeled correct, and labeled incorrect
+        final long[] positives;
+        final long[] negatives;
+        // strict and alias matches, accepted whatever the thresholds
+        long exactPositives;
+        long exactNegatives;
+        long skipped;
+        final AiAnswerEvaluator.Scores scores = new AiAnswerEvaluator.Scores();
+        final double[] values = new double[STAGES.length];
+
+        Tally(double[][] grid) {
+            this.grid = grid;
+            this.strides = new int[grid.length];
+            int cells = 1;
+            for (int d = grid.length - 1; d >= 0; d--) {
+                strides[d] = cells;
+                cells *= grid[d].length + 1;
+            }
+            this.positives = new long[cells];
+            this.negatives = new long[cells];
+        }
+
+        void addAll(List<String> lines, QuestionBank bank, AiAnswerEvaluator evaluator) {
+            for (String line : lines) {
+                add(line, bank, evaluator);
+            }
+        }
+
+        private void add(String line, QuestionBank bank, AiAnswerEvaluator evaluator) {
+            if (line.isBlank() || line.startsWith("#")) {
+                return;
+            }
+            int first = line.indexOf('\t');
+            int last = line.lastIndexOf('\t');
+            CompiledAnswer expected = null;
+            Boolean correct = null;
+            if (first > 0 && last > first) {
+                try {
+                    expected = bank.getCompiledAnswer(Long.parseLong(line.substring(0, first).trim()));
+                } catch (NumberFormatException e) {
+                    // counted as skipped below
+                }
+                correct = label(line.substring(last + 1).trim());
+            }
+            if (expected == null || correct == null) {
+                skipped++;
+                return;
+            }
+            evaluator.score(expected, line.substring(first + 1, last), scores);
+            if (scores.exact != null) {
+                if (correct) {
+                    exactPositives++;
+                } else {
+                    exactNegatives++;
+                }
+                return;
+            }
+            values[0] = scores.jaroWinkler;
+            values[1] = scores.cosine;
+            values[2] = scores.coverage;
+            values[3] = scores.ngram;
+            int cell = 0;
+            for (int d = 0; d < values.length; d++) {
+                cell += reached(grid[d], values[d]) * strides[d];
+            }
+            if (correct) {
+                positives[cell]++;
+            } else {
+                negatives[cell]++;
+            }
+        }
+
+        /**
+         * Number of thresholds in ascending {@code thresholds} that
+         * {@code score} reaches; 0 for NaN.
+         */
+        private static int reached(double[] thresholds, double score) {
+            int reached = 0;
+            while (reached < thresholds.length && score >= thresholds[reached]) {
+                reached++;
+            }
+            return reached;
+        }
+
+        private static Boolean label(String verdict) {
+            switch (verdict.toLowerCase(Locale.ROOT)) {
+                case "true":
+                case "1":
+                    return Boolean.TRUE;
+                case "false":
+                case "0":
+                    return Boolean.FALSE;
+                default:
+                    return null;
+            }
+        }
+
+        void merge(Tally other) {
+            for (int i = 0; i < positives.length; i++) {
+                positives[i] += other.positives[i];
+                negatives[i] += other.negatives[i];
+            }
+            exactPositives += other.exactPositives;
+            exactNegatives += other.exactNegatives;
+            skipped += other.skipped;
+        }
+    }
+
+    /**
+     * The confusion matrix of every threshold combination on the grid.
+     */
+    static final class Result {
+        final double[][] grid;
+        final int[] strides;
+        final long records;
+        final long skipped;
+        final long positives;
+        final long negatives;
+        // per cell: submissions of each label that every stage rejects at that cell's thresholds
+        private final long[] rejectedPositives;
+        private final long[] rejectedNegatives;
+
+        private Result(double[][] grid, Tally tally) {
+            this.grid = grid;
+            this.strides = tally.strides;
+            this.skipped = tally.skipped;
+            long sumPositives = tally.exactPositives;
+            long sumNegatives = tally.exactNegatives;
+            for (int i = 0; i < tally.positives.length; i++) {
+                sumPositives += tally.positives[i];
+                sumNegatives += tally.negatives[i];
+            }
+            this.positives = sumPositives;
+            this.negatives = sumNegatives;
+            this.records = sumPositives + sumNegatives;
+            // at threshold index i a stage rejects what reached at most i thresholds: a prefix sum per stage
+            this.rejectedPositives = prefixSums(tally.positives);
+            this.rejectedNegatives = prefixSums(tally.negatives);
+        }
+
+        private long[] prefixSums(long[] counts) {
+            long[] sums = counts.clone();
+            for (int d = 0; d < grid.length; d++) {
+                int stride = strides[d];
+                int extent = grid[d].length + 1;
+                for (int cell = 0; cell < sums.length; cell++) {
+                    if ((cell / stride) % extent > 0) {
+                        sums[cell] += sums[cell - stride];
+                    }
+                }
+            }
+            return sums;
+        }
+
+        long combinations() {
+            long combinations = 1;
+            for (double[] thresholds : grid) {
+                combinations *= thresholds.length;
+            }
+            return combinations;
+        }
+
+        /**
+         * The outcome with threshold {@code grid[d][at[d]]} for each stage.
+         */
+        Outcome outcome(int[] at) {
+            int cell = 0;
+            double[] thresholds = new double[grid.length];
+            for (int d = 0; d < grid.length; d++) {
+                cell += at[d] * strides[d];
+                thresholds[d] = grid[d][at[d]];
+            }
+            long falseNegatives = rejectedPositives[cell];
+            long trueNegatives = rejectedNegatives[cell];
+            return new Outcome(thresholds, positives - falseNegatives, negatives - trueNegatives, trueNegatives,
+                    falseNegatives);
+        }
+
+        /**
+         * The {@code count} combinations with the highest accuracy, ties
+         * going to fewer wrongly accepted answers.
+         */
+        List<Outcome> best(int count) {
+            Comparator<Outcome> order = Comparator.comparingDouble(Outcome::accuracy).reversed()
+                    .thenComparingLong(outcome -> outcome.falsePositives);
+            List<Outcome> all = new ArrayList<>();
+            int[] at = new int[grid.length];
+            do {
+                all.add(outcome(at));
+            } while (next(at));
+            all.sort(order);
+            return all.subList(0, Math.min(count, all.size()));
+        }
+
+        private boolean next(int[] at) {
+            for (int d = at.length - 1; d >= 0; d--) {
+                if (++at[d] < grid[d].length) {
+                    return true;
+                }
+                at[d] = 0;
+            }
+            return false;
+        }
+    }
+
+    static final class Outcome {
+        final double[] thresholds;
+        final long truePositives;
+        final long falsePositives;
+        final long trueNegatives;
+        final long falseNegatives;
+
+        Outcome(double[] thresholds, long truePositives, long falsePositives, long trueNegatives,
+                long falseNegatives) {
+            this.thresholds = thresholds;
+            this.truePositives = truePositives;
+            this.falsePositives = falsePositives;
+            this.trueNegatives = trueNegatives;
+            this.falseNegatives = falseNegatives;
+        }
+
+        double accuracy() {
+            long total = truePositives + falsePositives + trueNegatives + falseNegatives;
+            return total > 0 ? (double) (truePositives + trueNegatives) / total : 0d;
+        }
+
+        double precision() {
+            long accepted = truePositives + falsePositives;
+            return accepted > 0 ? (double) truePositives / accepted : 0d;
+        }
+
+        double recall() {
+            long correct = truePositives + falseNegatives;
+            return correct > 0 ? (double) truePositives / correct : 0d;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.jeopardy.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Buzzer arbitration for one open question. A team's first buzz claims
+ * its slot with a CAS and then takes the next rank together with its
+ * buzz time from a single atomic word, which is the arbitration point:
+ * whoever advances it first wins, with no lock anywhere, and a later
+ * rank never shows an earlier time. A team that buzzes again gets the
+ * rank it already has.
+ */
+final class BuzzRound {
+
+    private static final int CLAIMED = -1;
+    // the arbitration word: buzzes so far above, microseconds since opening of the last one below
+    private static final int TIME_BITS = 40;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+
+    private final long questionId;
+    private final long openedAt;
+    private final AtomicLong buzzes = new AtomicLong();
+    // per team: 0 before it buzzes, CLAIMED while its buzz is being ranked, then its rank
+    private final AtomicIntegerArray ranks;
+    // per team: microseconds from opening to its buzz
+    private final AtomicLongArray buzzedAt;
+
+    /**
+     * A round for a question opened at {@code openedAt}, a
+     * {@link System#nanoTime()} reading.
+     */
+    BuzzRound(long questionId, int teamCount, long openedAt) {
+        this.questionId = questionId;
+        this.openedAt = openedAt;
+        this.ranks = new AtomicIntegerArray(teamCount);
+        this.buzzedAt = new AtomicLongArray(teamCount);
+    }
+
+    long getQuestionId() {
+        return questionId;
+    }
+
+    /**
+     * Ranks team {@code team}'s buzz and returns its rank, 1 for the
+     * first team to buzz, or 0 if the team had buzzed already.
+     */
+    int buzz(int team) {
+        if (ranks.get(team) != 0 || !ranks.compareAndSet(team, 0, CLAIMED)) {
+            return 0;
+        }
+        while (true) {
+            long last = buzzes.get();
+            // read after the word, so a buzz that advanced it before us has the earlier time
+            long micros = Math.max(last & TIME_MASK,
+                    Math.min(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - openedAt), TIME_MASK));
+            int rank = (int) (last >>> TIME_BITS) + 1;
+            if (buzzes.compareAndSet(last, (long) rank << TIME_BITS | micros)) {
+                buzzedAt.set(team, micros);
+                ranks.set(team, rank);
+                return rank;
+            }
+        }
+    }
+
+    /**
+     * The rank team {@code team} got, or 0 if it has not buzzed.
+     */
+    int rankOf(int team) {
+        int rank;
+        // the same team buzzing from two devices at once; its other buzz is a few instructions from done
+        while ((rank = ranks.get(team)) == CLAIMED) {
+            Thread.onSpinWait();
+        }
+        return rank;
+    }
+
+    /**
+     * Time from opening the question to team {@code team}'s buzz.
+     */
+    long microsToBuzz(int team) {
+        return buzzedAt.get(team);
+    }
+}
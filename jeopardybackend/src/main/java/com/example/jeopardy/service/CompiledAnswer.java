@@ -0,0 +1,170 @@
+package com.example.jeopardy.service;
+
+import java.util.Arrays;
+
+/**
+ * Expected answer of a question, pre-processed once by
+ * {@link AiAnswerEvaluator#compile(String)} so grading only has to
+ * normalize the submitted text.
+ */
+public class CompiledAnswer {
+    private final String cleaned;
+    private final char[] lowerCased;
+    private final char[] strict;
+    private final int tokenCount;
+    // open-addressing table of the distinct tokens, probed with the normalizer's token hashes
+    private final long[] tokenHashes;
+    private final char[][] tokens;
+    private final AliasMatcher aliases;
+    // tf-idf trigram vector: sorted distinct trigram codes and their normalized weights
+    private final NgramModel ngramModel;
+    private final int[] ngrams;
+    private final float[] ngramWeights;
+
+    CompiledAnswer(String cleaned, TextNormalizer text, AliasMatcher aliases, NgramModel ngramModel) {
+        this(cleaned, Arrays.copyOf(text.lower, text.lowerLength), Arrays.copyOf(text.strict, text.strictLength),
+                Arrays.copyOf(text.tokenHash, text.tokenCount), distinctTokens(text), aliases, ngramModel);
+    }
+
+    /**
+     * An answer compiled earlier, e.g. read back from a bank snapshot.
+     * {@code tokens} are distinct and {@code tokenHashes} are their
+     * {@link TextNormalizer} hashes.
+     */
+    CompiledAnswer(String cleaned, char[] lowerCased, char[] strict, long[] tokenHashes, char[][] tokens,
+                   AliasMatcher aliases, NgramModel ngramModel) {
+        this.cleaned = cleaned;
+        this.aliases = aliases;
+        this.lowerCased = lowerCased;
+        this.strict = strict;
+        this.tokenCount = tokens.length;
+        int slots = Integer.highestOneBit(Math.max(1, tokenCount)) << 2;
+        this.tokenHashes = new long[slots];
+        this.tokens = new char[slots][];
+        for (int i = 0; i < tokenCount; i++) {
+            int slot = TextNormalizer.slotOf(tokenHashes[i], slots - 1);
+            while (this.tokens[slot] != null) {
+                slot = (slot + 1) & (slots - 1);
+            }
+            this.tokenHashes[slot] = tokenHashes[i];
+            this.tokens[slot] = tokens[i];
+        }
+        this.ngramModel = ngramModel;
+        int[] grams = sortedTrigrams(tokens, strict.length);
+        this.ngramWeights = ngramModel.weigh(grams, grams.length);
+        this.ngrams = Arrays.copyOf(grams, ngramWeights.length);
+    }
+
+    private CompiledAnswer(CompiledAnswer answer, NgramModel ngramModel) {
+        this.cleaned = answer.cleaned;
+        this.lowerCased = answer.lowerCased;
+        this.strict = answer.strict;
+        this.tokenCount = answer.tokenCount;
+        this.tokenHashes = answer.tokenHashes;
+        this.tokens = answer.tokens;
+        this.aliases = answer.aliases;
+        this.ngramModel = ngramModel;
+        int[] grams = sortedTrigrams(tokens, strict.length);
+        this.ngramWeights = ngramModel.weigh(grams, grams.length);
+        // the distinct codes do not depend on the weights
+        this.ngrams = answer.ngrams;
+    }
+
+    /**
+     * Trigram codes of {@code tokens}, repeats included, in ascending
+     * order; null entries (empty table slots) are skipped.
+     */
+    private static int[] sortedTrigrams(char[][] tokens, int strictLength) {
+        int[] grams = new int[strictLength];
+        int count = 0;
+        for (char[] token : tokens) {
+            if (token != null) {
+                count = NgramModel.trigrams(token, 0, token.length, grams, count);
+            }
+        }
+        Arrays.sort(grams, 0, count);
+        return count == grams.length ? grams : Arrays.copyOf(grams, count);
+    }
+
+    /**
+     * The same answer with its trigrams weighted by {@code ngramModel},
+     * once the whole bank is known.
+     */
+    CompiledAnswer withNgramModel(NgramModel ngramModel) {
+        return new CompiledAnswer(this, ngramModel);
+    }
+
+    private static char[][] distinctTokens(TextNormalizer text) {
+        char[][] tokens = new char[text.tokenCount][];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = Arrays.copyOfRange(text.strict, text.tokenStart[i], text.tokenEnd[i]);
+        }
+        return tokens;
+    }
+
+    public String getCleaned() {
+        return cleaned;
+    }
+
+    char[] getLowerCased() {
+        return lowerCased;
+    }
+
+    char[] getStrict() {
+        return strict;
+    }
+
+    int getTokenCount() {
+        return tokenCount;
+    }
+
+    /**
+     * Hands each distinct token and its hash to {@code consumer}, in no
+     * particular order.
+     */
+    void forEachToken(TokenConsumer consumer) {
+        for (int slot = 0; slot < tokens.length; slot++) {
+            if (tokens[slot] != null) {
+                consumer.accept(tokenHashes[slot], tokens[slot]);
+            }
+        }
+    }
+
+    interface TokenConsumer {
+        void accept(long hash, char[] token);
+    }
+
+    AliasMatcher getAliases() {
+        return aliases;
+    }
+
+    /**
+     * Distinct trigram codes of the answer, ascending.
+     */
+    int[] getNgrams() {
+        return ngrams;
+    }
+
+    /**
+     * Cosine similarity of the answer's and {@code text}'s tf-idf trigram
+     * vectors; {@code text} must have {@linkplain TextNormalizer#collectTrigrams() collected}
+     * its trigrams.
+     */
+    double ngramSimilarity(TextNormalizer text) {
+        return ngramModel.cosine(ngrams, ngramWeights, text.trigrams, text.trigramCount);
+    }
+
+    /**
+     * Whether {@code buffer[start, end)}, whose hash is {@code hash}, is
+     * one of the expected tokens.
+     */
+    boolean containsToken(char[] buffer, int start, int end, long hash) {
+        int mask = tokens.length - 1;
+        for (int slot = TextNormalizer.slotOf(hash, mask); tokens[slot] != null; slot = (slot + 1) & mask) {
+            if (tokenHashes[slot] == hash && Arrays.equals(tokens[slot], 0, tokens[slot].length, buffer, start, end)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,583 @@
+package com.example.jeopardy.service;
+
+import com.example.jeopardy.dto.BuzzResult;
+import com.example.jeopardy.model.Question;
+import com.example.jeopardy.model.Team;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Games shared by every node pointing {@code jeopardy.store.dir} at the
+ * same directory, a local stand-in for a shared key-value store. Each game
+ * is one file holding its latest {@link GameRecord}, replaced as a whole
+ * by an atomic rename, so a reader never sees half a record.
+ *
+ * <p>The record holds everything nodes must agree on: teams and scores,
+ * the questions each category drew this cycle, and the open question
+ * with its buzzes. A score change, draw or buzz is an optimistic
+ * compare-and-set: read the record without any lock, apply the change,
+ * and write it back only if the stored version is still the one read.
+ * Only that compare-and-write holds a lock, a byte of {@code store.lock}
+ * picked by the game id, for the few microseconds it takes, as a database
+ * would for a versioned row update. A writer that lost to another node
+ * counts a conflict, reads again and retries, so no update is lost, no
+ * question is drawn twice in a cycle and no two teams get the same buzz
+ * rank.
+ *
+ * <p>Every lookup checks for a newer version and brings this node's copy
+ * up to date before handing it out. A lookup costs no file access while
+ * the game is unchanged: every write also bumps a counter in
+ * {@code store.versions}, a small table memory-mapped by every node, and
+ * a record is only read and decoded again once its counter moved.
+ *
+ * <p>Event streams stay with the node that serves them. A node tells its
+ * own writes from other nodes' by the writer id in the record; whenever
+ * it catches up with a record another node wrote, it hands what changed
+ * to the listener bound with {@link #bindRemoteChanges}, which passes it
+ * on to this node's subscribers. Games with subscribers here are checked
+ * every {@code jeopardy.store.poll-interval}, so their events arrive
+ * even while no request reads the game on this node.
+ *
+ * <p>Dropping an idle or oversized game drops this node's copy. The game
+ * ends for every node, and its file is deleted, once no node has changed
+ * it for {@code jeopardy.sessions.idle-timeout}.
+ */
+@Component
+@ConditionalOnProperty(name = "jeopardy.store.type", havingValue = "file")
+public class FileGameStateStore implements GameStateStore, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(FileGameStateStore.class);
+
+    // game ids become file names, so only what startGame hands out is accepted
+    private static final Pattern GAME_ID = Pattern.compile("[A-Za-z0-9-]{1,64}");
+    private static final String SUFFIX = ".game";
+    private static final int STRIPES = 64;
+    // change counters in store.versions; a multiple of STRIPES, so a counter is only bumped under one stripe's lock
+    private static final int COUNTERS = 4096;
+    private static final VarHandle COUNTER = MethodHandles.byteBufferViewVarHandle(long[].class,
+            ByteOrder.nativeOrder());
+    // the JVM refuses overlapping file locks of its own, so threads (and contexts) take the stripe here first
+    private static final Object[] JVM_STRIPES = new Object[STRIPES];
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            JVM_STRIPES[i] = new Object();
+        }
+    }
+
+    private final Path dir;
+    private final FileChannel locks;
+    private final MappedByteBuffer counters;
+    private final SessionExpiry sessionExpiry;
+    private final long idleTimeoutMillis;
+    private final long pollIntervalMillis;
+    // written into every record this node writes; never 0, which older records carry
+    private final long nodeId = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+    private final Map<String, GameSession> sessions = new ConcurrentHashMap<>();
+    // per game, the newest record whose changes this node has passed on or made itself
+    private final Map<String, Seen> seen = new ConcurrentHashMap<>();
+    // the last record read or written per game, with the change counter it was current at
+    private final Map<String, StoredRecord> records = new ConcurrentHashMap<>();
+    private final AtomicLong conflicts = new AtomicLong();
+    private volatile Predicate<String> watched = gameId -> false;
+    private volatile BiConsumer<GameSession, RemoteChange> remoteChanges = (session, change) -> { };
+    private ScheduledExecutorService poller;
+
+    public FileGameStateStore(@Value("${jeopardy.store.dir:shared-games}") String dir,
+                              @Value("${jeopardy.store.poll-interval:PT0.1S}") Duration pollInterval,
+                              @Value("${jeopardy.sessions.idle-timeout:PT2H}") Duration idleTimeout,
+                              SessionExpiry sessionExpiry) throws IOException {
+        this.dir = Paths.get(dir).toAbsolutePath();
+        this.pollIntervalMillis = pollInterval.isNegative() ? 0 : pollInterval.toMillis();
+        this.idleTimeoutMillis = idleTimeout.isNegative() ? 0 : idleTimeout.toMillis();
+        this.sessionExpiry = sessionExpiry;
+        Files.createDirectories(this.dir);
+        this.locks = FileChannel.open(this.dir.resolve("store.lock"), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        try (FileChannel versions = FileChannel.open(this.dir.resolve("store.versions"), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // the mapping outlives the channel; a new file is zero-filled, which every node reads the same
+            this.counters = versions.map(FileChannel.MapMode.READ_WRITE, 0, (long) COUNTERS * Long.BYTES);
+        }
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (poller != null || pollIntervalMillis == 0) {
+            return;
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "store-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(() -> {
+            try {
+                poll();
+            } catch (RuntimeException e) {
+                // a failed poll must not cancel the schedule
+                log.warn("Checking shared games for changes failed", e);
+            }
+        }, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (poller != null) {
+            poller.shutdownNow();
+            poller = null;
+        }
+        locks.close();
+    }
+
+    @Override
+    public boolean isShared() {
+        return true;
+    }
+
+    @Override
+    public void add(GameSession session) {
+        GameRecord record = session.toRecord().writtenBy(nodeId);
+        seen.put(session.getId(), new Seen(record));
+        try {
+            if (!compareAndSet(-1, record)) {
+                seen.remove(session.getId());
+                throw new IllegalStateException("Game " + session.getId() + " exists already");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        sessions.put(session.getId(), session);
+    }
+
+    @Override
+    public GameSession get(String gameId) {
+        if (gameId == null || !GAME_ID.matcher(gameId).matches()) {
+            return null;
+        }
+        GameRecord record = read(gameId);
+        if (record == null) {
+            return null;
+        }
+        GameSession session = sessions.get(gameId);
+        if (session != null) {
+            catchUp(session, record);
+            return session;
+        }
+        GameSession created = GameSession.fromRecord(record, sessionExpiry.heapAccount());
+        // what the game was like before this node held it is nothing its subscribers here have missed
+        seen.putIfAbsent(gameId, new Seen(record));
+        GameSession raced = sessions.putIfAbsent(gameId, created);
+        if (raced != null) {
+            created.release();
+            catchUp(raced, record);
+            return raced;
+        }
+        sessionExpiry.track(created);
+        return created;
+    }
+
+    @Override
+    public Team adjustTeamScore(GameSession session, String teamName, int delta) {
+        int[] team = {-1};
+        GameRecord updated = update(session, record -> {
+            team[0] = record.indexOf(teamName);
+            return team[0] >= 0 ? record.withDelta(team[0], delta) : null;
+        });
+        return updated != null ? new Team(updated.getTeamName(team[0]), updated.getScore(team[0])) : null;
+    }
+
+    @Override
+    public void adjustTeamScores(GameSession session, Map<String, Integer> deltas) {
+        update(session, record -> record.withDeltas(deltas));
+    }
+
+    /**
+     * Draws like {@link GameSession#drawQuestion}, from the ids the
+     * shared record holds for the category's running cycle. A weighted
+     * pick the cycle already drew is rejected, as there.
+     */
+    @Override
+    public Question drawQuestion(GameSession session, String category, List<Question> all, Random random,
+                                 AliasTable table) {
+        if (all == null || all.isEmpty()) {
+            return null;
+        }
+        Question[] drawn = new Question[1];
+        GameRecord updated = update(session, record -> {
+            long[] cycle = record.getDrawn(category).clone();
+            Arrays.sort(cycle);
+            int undrawn = 0;
+            for (Question question : all) {
+                undrawn += Arrays.binarySearch(cycle, question.getId()) < 0 ? 1 : 0;
+            }
+            boolean refilled = undrawn == 0;
+            if (refilled) {
+                cycle = new long[0];
+                undrawn = all.size();
+            }
+            drawn[0] = pick(all, cycle, undrawn, random, table);
+            return record.withDraw(category, drawn[0].getId(), refilled, nowMicros());
+        });
+        return updated != null ? drawn[0] : null;
+    }
+
+    private static Question pick(List<Question> all, long[] drawn, int undrawn, Random random, AliasTable table) {
+        if (table != null && table.covers(all)) {
+            for (int attempt = 0; attempt < GameSession.WEIGHTED_ATTEMPTS; attempt++) {
+                Question candidate = all.get(table.sample(random));
+                if (Arrays.binarySearch(drawn, candidate.getId()) < 0) {
+                    return candidate;
+                }
+            }
+        }
+        int skip = random.nextInt(undrawn);
+        for (Question question : all) {
+            if (Arrays.binarySearch(drawn, question.getId()) < 0 && skip-- == 0) {
+                return question;
+            }
+        }
+        throw new IllegalStateException("No undrawn question left");
+    }
+
+    /**
+     * Ranks a buzz in the shared record, so teams buzzing on different
+     * nodes are ranked against each other. Buzz times are measured from
+     * the wall-clock time the drawing node opened the question.
+     */
+    @Override
+    public BuzzResult buzz(GameSession session, long questionId, String teamName, Consumer<BuzzResult> onWin) {
+        BuzzResult[] result = new BuzzResult[1];
+        GameRecord updated = update(session, record -> {
+            result[0] = null;
+            int team = record.indexOf(teamName);
+            if (team < 0) {
+                return null;
+            }
+            if (record.getOpenQuestionId() != questionId) {
+                throw new IllegalStateException("Question " + questionId + " is not open for buzzing");
+            }
+            int rank = record.rankOf(team);
+            if (rank > 0) {
+                // buzzed already; nothing to write
+                result[0] = buzzResult(record, rank);
+                return null;
+            }
+            GameRecord next = record.withBuzz(team, nowMicros());
+            result[0] = buzzResult(next, next.getBuzzCount());
+            return next;
+        });
+        if (updated != null && result[0].getRank() == 1) {
+            onWin.accept(result[0]);
+        }
+        return result[0];
+    }
+
+    private static BuzzResult buzzResult(GameRecord record, int rank) {
+        return new BuzzResult(record.getGameId(), record.getOpenQuestionId(),
+                record.getTeamName(record.getBuzzTeam(rank)), rank, record.getBuzzMicros(rank));
+    }
+
+    private static long nowMicros() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000 + now.getNano() / 1_000;
+    }
+
+    @Override
+    public void bindRemoteChanges(Predicate<String> watched, BiConsumer<GameSession, RemoteChange> listener) {
+        this.watched = watched;
+        this.remoteChanges = listener;
+    }
+
+    /**
+     * Brings the games this node holds and someone here watches up to
+     * date, which passes on what other nodes changed.
+     */
+    private void poll() {
+        for (GameSession session : sessions.values()) {
+            if (watched.test(session.getId())) {
+                GameRecord record = read(session.getId());
+                if (record != null) {
+                    catchUp(session, record);
+                }
+            }
+        }
+    }
+
+    /**
+     * Brings this node's copy of a game up to {@code record} and, if
+     * another node wrote changes this node has not seen yet, passes them
+     * on. Changes are passed on in version order, one game at a time.
+     */
+    private void catchUp(GameSession session, GameRecord record) {
+        session.apply(record);
+        Seen last = seen.get(session.getId());
+        if (last == null) {
+            return;
+        }
+        synchronized (last) {
+            GameRecord previous = last.record;
+            if (record.getVersion() <= previous.getVersion()) {
+                return;
+            }
+            last.record = record;
+            if (record.getWriter() != nodeId) {
+                remoteChanges.accept(session, changeBetween(previous, record));
+            }
+        }
+    }
+
+    private static RemoteChange changeBetween(GameRecord previous, GameRecord record) {
+        boolean drew = record.getDraws() > previous.getDraws();
+        BuzzResult winner = record.getBuzzCount() > 0 && (drew || previous.getBuzzCount() == 0)
+                ? buzzResult(record, 1) : null;
+        return new RemoteChange(record.getScoreVersion() > previous.getScoreVersion(),
+                drew ? record.getOpenQuestionId() : -1, winner);
+    }
+
+    /**
+     * Applies {@code change} to the latest record until it is the one to
+     * publish the next version, then brings {@code session} up to it.
+     * Returns the published record, or {@code null} if the game is gone or
+     * {@code change} had nothing to do.
+     */
+    private GameRecord update(GameSession session, UnaryOperator<GameRecord> change) {
+        try {
+            while (true) {
+                GameRecord current = read(session.getId());
+                if (current == null) {
+                    return null;
+                }
+                // other nodes' changes are passed on before this one lands on top of them
+                catchUp(session, current);
+                GameRecord next = change.apply(current);
+                if (next == null) {
+                    return null;
+                }
+                next = next.writtenBy(nodeId);
+                if (compareAndSet(current.getVersion(), next)) {
+                    catchUp(session, next);
+                    return next;
+                }
+                conflicts.incrementAndGet();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Drops this node's copy, and the shared record too if no node has
+     * changed the game for the idle timeout: the game has ended then.
+     */
+    @Override
+    public boolean remove(GameSession session) {
+        String gameId = session.getId();
+        if (!sessions.remove(gameId, session)) {
+            return false;
+        }
+        records.remove(gameId);
+        seen.remove(gameId);
+        if (idleTimeoutMillis > 0) {
+            try {
+                deleteIfIdle(gameId);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Map<String, GameSession> localSessions() {
+        return sessions;
+    }
+
+    /**
+     * Score updates that lost a compare-and-set to another writer and
+     * were retried.
+     */
+    public long getConflicts() {
+        return conflicts.get();
+    }
+
+    /**
+     * Stores {@code next} if the game's stored version is
+     * {@code expectedVersion}, -1 meaning no such game yet.
+     */
+    private boolean compareAndSet(long expectedVersion, GameRecord next) throws IOException {
+        String gameId = next.getGameId();
+        Path file = file(gameId);
+        return locked(gameId, () -> {
+            GameRecord current = read(gameId);
+            if ((current != null ? current.getVersion() : -1) != expectedVersion) {
+                return false;
+            }
+            Path pending = Files.createTempFile(dir, gameId, ".tmp");
+            try {
+                Files.write(pending, next.encode());
+                Files.move(pending, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(pending);
+            }
+            records.put(gameId, new StoredRecord(changed(gameId), next));
+            return true;
+        });
+    }
+
+    /**
+     * Deletes the game's record if it was last written more than the idle
+     * timeout ago. A write racing with this takes the same lock, so it
+     * either lands first and keeps the game or finds it gone.
+     */
+    private void deleteIfIdle(String gameId) throws IOException {
+        Path file = file(gameId);
+        locked(gameId, () -> {
+            try {
+                long idleFor = System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis();
+                if (idleFor <= idleTimeoutMillis || !Files.deleteIfExists(file)) {
+                    return false;
+                }
+                changed(gameId);
+                return true;
+            } catch (NoSuchFileException e) {
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Runs {@code action} holding the game's stripe of {@code store.lock},
+     * for this JVM and every other process on the directory.
+     */
+    private boolean locked(String gameId, LockedAction action) throws IOException {
+        int stripe = counter(gameId) % STRIPES;
+        synchronized (JVM_STRIPES[stripe]) {
+            FileLock lock = locks.lock(stripe, 1, false);
+            try {
+                return action.run();
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    /**
+     * The stored record of a game, or {@code null} if there is none. The
+     * file is only read if the game's change counter moved since.
+     */
+    private GameRecord read(String gameId) {
+        // read before the file: a write landing in between leaves an entry the next read replaces
+        long stamp = (long) COUNTER.getVolatile(counters, counter(gameId) * Long.BYTES);
+        StoredRecord cached = records.get(gameId);
+        if (cached != null && cached.stamp == stamp) {
+            return cached.record;
+        }
+        try {
+            GameRecord record = GameRecord.decode(gameId, Files.readAllBytes(file(gameId)));
+            records.merge(gameId, new StoredRecord(stamp, record),
+                    (old, read) -> read.record.getVersion() >= old.record.getVersion() ? read : old);
+            return record;
+        } catch (NoSuchFileException e) {
+            records.remove(gameId);
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Bumps the change counter of a game just written or deleted, holding
+     * its stripe's lock, and returns the new count.
+     */
+    private long changed(String gameId) {
+        return (long) COUNTER.getAndAdd(counters, counter(gameId) * Long.BYTES, 1L) + 1;
+    }
+
+    private static int counter(String gameId) {
+        return Math.floorMod(gameId.hashCode(), COUNTERS);
+    }
+
+    private Path file(String gameId) {
+        return dir.resolve(gameId + SUFFIX);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("jeopardy.store.conflicts", conflicts, AtomicLong::get)
+                .description("Score updates retried after another node changed the game first")
+                .register(registry);
+    }
+
+    @FunctionalInterface
+    private interface LockedAction {
+        boolean run() throws IOException;
+    }
+
+    /**
+     * The newest record of a game whose changes this node has passed on.
+     */
+    private static final class Seen {
+        // guarded by this
+        GameRecord record;
+
+        Seen(GameRecord record) {
+            this.record = record;
+        }
+    }
+
+    /**
+     * A decoded record and the change counter it is current at. Games
+     * share counters, so another game's write only costs a needless read.
+     */
+    private static final class StoredRecord {
+        final long stamp;
+        final GameRecord record;
+
+        StoredRecord(long stamp, GameRecord record) {
+            this.stamp = stamp;
+            this.record = record;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.jeopardy.service;
+
+import com.example.jeopardy.dto.GameEvent;
+import com.example.jeopardy.dto.GameState;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Pushes game events to Server-Sent Events subscribers. Each event is
+ * serialized once and queued per subscriber; sender threads drain the
+ * queues, so publishing never waits on a client. A subscriber that falls
+ * too far behind, or whose current write has been stuck for ten seconds,
+ * is disconnected and resubscribes for a fresh state event.
+ *
+ * <p>Emitter methods lock the emitter, and a write to a client that has
+ * stopped reading holds that lock until the socket gives up. So nothing
+ * touches an emitter while holding a channel: a dropped subscriber is
+ * completed by its own drain task. Sender threads are not a fixed pool
+ * either, so clients stuck in a write only tie up their own threads.
+ *
+ * <p>Events are built while the game's channel is held, so they go out in
+ * the order they were built in. A score event built later reads scores
+ * that are at least as new, so a subscriber never sees a team's score
+ * step back to a value it already left behind.
+ */
+@Component
+public class GameEventBroadcaster {
+
+    private static final int MAX_PENDING_EVENTS = 256;
+    private static final long SUBSCRIPTION_TIMEOUT_MS = 30 * 60 * 1000L;
+    private static final long SEND_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper;
+    private final ExecutorService senders;
+
+    public GameEventBroadcaster(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.senders = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "game-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens a stream for a game. The first event is a full {@code state}
+     * snapshot; later events carry higher versions.
+     */
+    public SseEmitter subscribe(String gameId, Supplier<GameState> scoreboard) {
+        SseEmitter emitter = new SseEmitter(SUBSCRIPTION_TIMEOUT_MS);
+        Channel channel = channels.computeIfAbsent(gameId, k -> new Channel());
+        Subscriber subscriber = new Subscriber(channel, emitter);
+        emitter.onCompletion(subscriber::remove);
+        emitter.onTimeout(subscriber::remove);
+        emitter.onError(e -> subscriber.remove());
+        synchronized (channel) {
+            GameState current = scoreboard.get();
+            GameEvent state = GameEvent.state(current.getTeams(), current.getVersion());
+            state.setVersion(channel.version);
+            subscriber.offer(frame(state));
+            channel.subscribers.add(subscriber);
+        }
+        return emitter;
+    }
+
+    public void publish(String gameId, GameEvent event) {
+        publish(gameId, () -> event);
+    }
+
+    /**
+     * Builds an event and sends it to the game's subscribers, in one step
+     * with respect to the game's other events. Nothing is built while the
+     * game has no subscribers.
+     */
+    public void publish(String gameId, Supplier<GameEvent> builder) {
+        Channel channel = channels.get(gameId);
+        if (channel == null) {
+            return;
+        }
+        synchronized (channel) {
+            if (channel.subscribers.isEmpty()) {
+                return;
+            }
+            GameEvent event = builder.get();
+            event.setVersion(++channel.version);
+            Set<DataWithMediaType> frame = frame(event);
+            for (Subscriber subscriber : channel.subscribers) {
+                subscriber.offer(frame);
+            }
+        }
+    }
+
+    /**
+     * Ends every stream of a game, e.g. when the game goes away.
+     */
+    public void close(String gameId) {
+        Channel channel = channels.remove(gameId);
+        if (channel != null) {
+            for (Subscriber subscriber : channel.subscribers) {
+                subscriber.drop();
+            }
+        }
+    }
+
+    /**
+     * Whether anyone listens to the game, so a caller can skip building
+     * an event nobody gets.
+     */
+    public boolean hasSubscribers(String gameId) {
+        Channel channel = channels.get(gameId);
+        return channel != null && !channel.subscribers.isEmpty();
+    }
+
+    public int getSubscriberCount(String gameId) {
+        Channel channel = channels.get(gameId);
+        return channel != null ? channel.subscribers.size() : 0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    private Set<DataWithMediaType> frame(GameEvent event) {
+        try {
+            return SseEmitter.event()
+                    .id(Long.toString(event.getVersion()))
+                    .name(event.getType())
+                    .data(objectMapper.writeValueAsString(event), MediaType.APPLICATION_JSON)
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize game event", e);
+        }
+    }
+
+    private static final class Channel {
+        final Queue<Subscriber> subscribers = new ConcurrentLinkedQueue<>();
+        long version;
+    }
+
+    private final class Subscriber {
+        final Channel channel;
+        final SseEmitter emitter;
+        final Queue<Set<DataWithMediaType>> pending = new ConcurrentLinkedQueue<>();
+        final AtomicInteger pendingCount = new AtomicInteger();
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean dropped = new AtomicBoolean();
+        // when the write in progress started, 0 between writes
+        volatile long sendingSince;
+        // only touched by the drain task, which runs one at a time
+        boolean ended;
+
+        Subscriber(Channel channel, SseEmitter emitter) {
+            this.channel = channel;
+            this.emitter = emitter;
+        }
+
+        void offer(Set<DataWithMediaType> frame) {
+            if (dropped.get()) {
+                return;
+            }
+            long since = sendingSince;
+            if (pendingCount.incrementAndGet() > MAX_PENDING_EVENTS
+                    || since != 0 && System.nanoTime() - since > SEND_TIMEOUT_NANOS) {
+                // too slow to keep up; let it reconnect rather than buffer without bound
+                drop();
+                return;
+            }
+            pending.add(frame);
+            scheduleDrain();
+        }
+
+        /**
+         * Takes the subscriber off its channel and leaves ending the
+         * stream to the drain task, as the caller may hold the channel.
+         */
+        void drop() {
+            if (dropped.compareAndSet(false, true)) {
+                remove();
+                scheduleDrain();
+            }
+        }
+
+        void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        void drain() {
+            if (ended) {
+                draining.set(false);
+                return;
+            }
+            try {
+                Set<DataWithMediaType> frame;
+                while (!dropped.get() && (frame = pending.poll()) != null) {
+                    pendingCount.decrementAndGet();
+                    sendingSince = System.nanoTime();
+                    emitter.send(frame);
+                    sendingSince = 0;
+                }
+                if (dropped.get()) {
+                    ended = true;
+                    pending.clear();
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                ended = true;
+                dropped.set(true);
+                remove();
+                pending.clear();
+            } finally {
+                sendingSince = 0;
+                draining.set(false);
+            }
+            // a drop or a frame that came in after the loop found nothing to do
+            if (!ended && (dropped.get() || !pending.isEmpty())) {
+                scheduleDrain();
+            }
+        }
+
+        void remove() {
+            channel.subscribers.remove(this);
+        }
+    }
+}
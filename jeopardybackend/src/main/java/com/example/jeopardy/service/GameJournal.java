@@ -0,0 +1,501 @@
+package com.example.jeopardy.service;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Append-only log of everything that changes a game: starts, question
+ * draws, score changes and ends. Callers only enqueue a record; one writer
+ * thread appends whatever has queued up to the current segment and
+ * forces it to disk once per batch (group commit), so a crash loses at
+ * most the batch being written.
+ *
+ * <p>After {@code jeopardy.journal.snapshot-every} records the writer
+ * moves on to a new segment and the closed ones are folded into a
+ * snapshot in the background, which is itself a compacted record stream.
+ * On startup {@link #recover()} replays the latest snapshot and every
+ * later segment. Without {@code jeopardy.journal.dir} nothing is logged.
+ */
+@Component
+public class GameJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(GameJournal.class);
+
+    private static final GameJournal DISABLED = new GameJournal("", 0);
+
+    private static final byte START = 1;
+    private static final byte DRAW = 2;
+    private static final byte SCORE = 3;
+    private static final byte END = 4;
+
+    private static final int QUEUE_CAPACITY = 1 << 16;
+    private static final int MAX_BATCH = 4096;
+    private static final Pattern SEGMENT = Pattern.compile("segment-(\\d+)\\.log");
+    private static final Pattern SNAPSHOT = Pattern.compile("snapshot-(\\d+)\\.bin");
+
+    private final Path dir;
+    private final int snapshotEvery;
+    private final BlockingQueue<Record> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    // free queue slots, taken before a record is queued; a caller can take one before it locks anything
+    private final Semaphore room = new Semaphore(QUEUE_CAPACITY);
+    private volatile boolean running;
+    private Thread writer;
+    private ExecutorService compactor;
+    // owned by the writer thread once it runs
+    private FileChannel channel;
+    private long segment;
+    private int recordsInSegment;
+
+    public GameJournal(@Value("${jeopardy.journal.dir:}") String dir,
+                       @Value("${jeopardy.journal.snapshot-every:100000}") int snapshotEvery) {
+        this.dir = dir == null || dir.isBlank() ? null : Paths.get(dir).toAbsolutePath();
+        this.snapshotEvery = Math.max(1, snapshotEvery);
+    }
+
+    /**
+     * A journal that logs nothing and recovers nothing, for services used
+     * outside Spring.
+     */
+    public static GameJournal disabled() {
+        return DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return dir != null;
+    }
+
+    /**
+     * Rebuilds the games recorded in the journal directory and starts
+     * logging to a fresh segment. Call once, before anything is logged.
+     */
+    public synchronized Map<String, RecoveredGame> recover() throws IOException {
+        if (dir == null || running) {
+            return Map.of();
+        }
+        Files.createDirectories(dir);
+        Map<String, RecoveredGame> games = read(dir);
+        segment = Math.max(lastNumber(dir, SEGMENT), lastNumber(dir, SNAPSHOT)) + 1;
+        channel = openSegment(segment);
+        compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-journal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // whatever the last run left behind becomes one snapshot, so the next startup reads less
+        long closed = segment - 1;
+        if (closed > lastNumber(dir, SNAPSHOT)) {
+            compactor.execute(() -> compact(closed));
+        }
+        running = true;
+        writer = new Thread(this::writeLoop, "game-journal-writer");
+        writer.start();
+        return games;
+    }
+
+    @PreDestroy
+    public synchronized void close() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        writer.join();
+        compactor.shutdown();
+        compactor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    void gameStarted(String gameId, List<String> teamNames) {
+        append(new Record(START, gameId, null, 0L, false, teamNames.toArray(new String[0]), null));
+    }
+
+    /**
+     * Waits until the queue has room for one more record and holds that
+     * room for the caller. A draw takes it before the category's lock, so
+     * a journal that is behind never blocks other draws while the lock is
+     * held. Every reservation ends in exactly one {@link #questionDrawn}
+     * or {@link #cancelReservation()}.
+     */
+    void reserve() {
+        if (running) {
+            // a full queue means the disk is behind; slow draws down rather than buffer without bound
+            room.acquireUninterruptibly();
+        }
+    }
+
+    void cancelReservation() {
+        if (running) {
+            room.release();
+        }
+    }
+
+    /**
+     * Queues a draw into room taken by {@link #reserve()}; it never waits.
+     */
+    void questionDrawn(String gameId, String category, long questionId, boolean refilled) {
+        if (running) {
+            queue.add(new Record(DRAW, gameId, category, questionId, refilled, null, null));
+        }
+    }
+
+    void scoreChanged(String gameId, String teamName, int delta) {
+        append(new Record(SCORE, gameId, null, 0L, false, new String[] {teamName}, new int[] {delta}));
+    }
+
+    void scoresChanged(String gameId, String[] teamNames, int[] deltas) {
+        append(new Record(SCORE, gameId, null, 0L, false, teamNames, deltas));
+    }
+
+    /**
+     * The game is gone for good; recovery and compaction drop it.
+     */
+    void gameEnded(String gameId) {
+        append(new Record(END, gameId, null, 0L, false, null, null));
+    }
+
+    private void append(Record record) {
+        if (!running) {
+            return;
+        }
+        // a full queue means the disk is behind; slow scoring down rather than buffer without bound
+        room.acquireUninterruptibly();
+        queue.add(record);
+    }
+
+    private void writeLoop() {
+        List<Record> batch = new ArrayList<>(MAX_BATCH);
+        Encoder encoder = new Encoder();
+        try {
+            while (running || !queue.isEmpty()) {
+                Record first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                room.release(batch.size());
+                encoder.reset();
+                for (Record record : batch) {
+                    encoder.frame(record);
+                }
+                ByteBuffer bytes = encoder.buffer();
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                channel.force(false);
+                recordsInSegment += batch.size();
+                batch.clear();
+                if (recordsInSegment >= snapshotEvery) {
+                    rotate();
+                }
+            }
+        } catch (IOException e) {
+            log.error("Game journal stopped; games keep running but are no longer logged", e);
+            running = false;
+            queue.clear();
+            // nothing is queued any more; wake whoever is waiting for room
+            room.release(QUEUE_CAPACITY);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Could not close journal segment {}: {}", segment, e.getMessage());
+            }
+        }
+    }
+
+    private void rotate() throws IOException {
+        channel.close();
+        long closed = segment++;
+        channel = openSegment(segment);
+        recordsInSegment = 0;
+        compactor.execute(() -> compact(closed));
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        return FileChannel.open(dir.resolve(String.format("segment-%08d.log", number)),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Folds the latest snapshot and every segment up to {@code upTo} into
+     * a new snapshot, then deletes what it replaced.
+     */
+    private void compact(long upTo) {
+        try {
+            Map<String, RecoveredGame> games = read(dir, upTo);
+            Path snapshot = dir.resolve(String.format("snapshot-%08d.bin", upTo));
+            Path tmp = dir.resolve(snapshot.getFileName() + ".tmp");
+            Encoder encoder = new Encoder();
+            for (Map.Entry<String, RecoveredGame> entry : games.entrySet()) {
+                entry.getValue().writeTo(entry.getKey(), encoder);
+            }
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer bytes = encoder.buffer();
+                while (bytes.hasRemaining()) {
+                    out.write(bytes);
+                }
+                out.force(true);
+            }
+            Files.move(tmp, snapshot, StandardCopyOption.ATOMIC_MOVE);
+            for (Path file : list(dir)) {
+                long number = number(file, SEGMENT);
+                if (number >= 0 && number <= upTo || number(file, SNAPSHOT) >= 0 && number(file, SNAPSHOT) < upTo) {
+                    Files.delete(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Journal compaction up to segment {} failed; will retry at the next one: {}", upTo, e.getMessage());
+        }
+    }
+
+    /**
+     * Replays the latest snapshot in {@code dir} and every later segment.
+     * A record that is cut short or fails its checksum ends its segment:
+     * that is where the previous run stopped writing.
+     */
+    static Map<String, RecoveredGame> read(Path dir) throws IOException {
+        return read(dir, Long.MAX_VALUE);
+    }
+
+    private static Map<String, RecoveredGame> read(Path dir, long upTo) throws IOException {
+        Map<String, RecoveredGame> games = new LinkedHashMap<>();
+        long snapshot = -1;
+        for (Path file : list(dir)) {
+            long number = number(file, SNAPSHOT);
+            if (number > snapshot && number <= upTo) {
+                snapshot = number;
+            }
+        }
+        if (snapshot >= 0) {
+            replay(dir.resolve(String.format("snapshot-%08d.bin", snapshot)), games);
+        }
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        for (Path file : list(dir)) {
+            long number = number(file, SEGMENT);
+            if (number > snapshot && number <= upTo) {
+                segments.put(number, file);
+            }
+        }
+        for (Path file : segments.values()) {
+            replay(file, games);
+        }
+        return games;
+    }
+
+    private static void replay(Path file, Map<String, RecoveredGame> games) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+        CRC32 crc = new CRC32();
+        while (bytes.remaining() >= 8) {
+            int length = bytes.getInt();
+            int checksum = bytes.getInt();
+            if (length < 0 || length > bytes.remaining()) {
+                break;
+            }
+            crc.reset();
+            crc.update(bytes.array(), bytes.position(), length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.array(), bytes.position(), length));
+            bytes.position(bytes.position() + length);
+            apply(in, games);
+        }
+    }
+
+    private static void apply(DataInputStream in, Map<String, RecoveredGame> games) throws IOException {
+        byte type = in.readByte();
+        String gameId = in.readUTF();
+        if (type == START) {
+            int count = in.readInt();
+            List<String> teamNames = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                teamNames.add(in.readUTF());
+            }
+            games.put(gameId, new RecoveredGame(teamNames));
+            return;
+        }
+        if (type == END) {
+            games.remove(gameId);
+            return;
+        }
+        RecoveredGame game = games.get(gameId);
+        if (game == null) {
+            return;
+        }
+        if (type == DRAW) {
+            String category = in.readUTF();
+            long questionId = in.readLong();
+            List<Long> drawn = game.drawnByCategory.computeIfAbsent(category, k -> new ArrayList<>());
+            if (in.readBoolean()) {
+                drawn.clear();
+            }
+            drawn.add(questionId);
+        } else if (type == SCORE) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String teamName = in.readUTF();
+                int delta = in.readInt();
+                game.scores.computeIfPresent(teamName, (k, score) -> score + delta);
+            }
+        }
+    }
+
+    private static List<Path> list(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.toList();
+        }
+    }
+
+    private static long lastNumber(Path dir, Pattern pattern) throws IOException {
+        long last = 0;
+        for (Path file : list(dir)) {
+            last = Math.max(last, number(file, pattern));
+        }
+        return last;
+    }
+
+    private static long number(Path file, Pattern pattern) {
+        Matcher matcher = pattern.matcher(file.getFileName().toString());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    /**
+     * A game as the journal last saw it: its teams, their scores and, per
+     * category, the questions drawn since the category last refilled.
+     */
+    public static final class RecoveredGame {
+        private final List<String> teamNames;
+        private final Map<String, Integer> scores = new LinkedHashMap<>();
+        private final Map<String, List<Long>> drawnByCategory = new LinkedHashMap<>();
+
+        RecoveredGame(List<String> teamNames) {
+            this.teamNames = teamNames;
+            for (String teamName : teamNames) {
+                scores.put(teamName, 0);
+            }
+        }
+
+        public List<String> getTeamNames() {
+            return teamNames;
+        }
+
+        public int getScore(String teamName) {
+            return scores.getOrDefault(teamName, 0);
+        }
+
+        public Map<String, List<Long>> getDrawnByCategory() {
+            return drawnByCategory;
+        }
+
+        private void writeTo(String gameId, Encoder encoder) throws IOException {
+            encoder.frame(new Record(START, gameId, null, 0L, false, teamNames.toArray(new String[0]), null));
+            String[] names = scores.keySet().toArray(new String[0]);
+            int[] values = scores.values().stream().mapToInt(Integer::intValue).toArray();
+            encoder.frame(new Record(SCORE, gameId, null, 0L, false, names, values));
+            for (Map.Entry<String, List<Long>> entry : drawnByCategory.entrySet()) {
+                boolean first = true;
+                for (long questionId : entry.getValue()) {
+                    encoder.frame(new Record(DRAW, gameId, entry.getKey(), questionId, first, null, null));
+                    first = false;
+                }
+            }
+        }
+    }
+
+    private static final class Record {
+        final byte type;
+        final String gameId;
+        final String category;
+        final long questionId;
+        final boolean refilled;
+        final String[] teamNames;
+        final int[] deltas;
+
+        Record(byte type, String gameId, String category, long questionId, boolean refilled,
+               String[] teamNames, int[] deltas) {
+            this.type = type;
+            this.gameId = gameId;
+            this.category = category;
+            this.questionId = questionId;
+            this.refilled = refilled;
+            this.teamNames = teamNames;
+            this.deltas = deltas;
+        }
+    }
+
+    /**
+     * Frames records as {@code [length][crc32][payload]} into one growing
+     * buffer, reused across batches.
+     */
+    private static final class Encoder {
+        private final Buffer bytes = new Buffer();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final CRC32 crc = new CRC32();
+
+        void reset() {
+            bytes.reset();
+        }
+
+        void frame(Record record) throws IOException {
+            int header = bytes.size();
+            out.writeLong(0L);
+            out.writeByte(record.type);
+            out.writeUTF(record.gameId);
+            if (record.type == START) {
+                out.writeInt(record.teamNames.length);
+                for (String teamName : record.teamNames) {
+                    out.writeUTF(teamName);
+                }
+            } else if (record.type == DRAW) {
+                out.writeUTF(record.category);
+                out.writeLong(record.questionId);
+                out.writeBoolean(record.refilled);
+            } else if (record.type == SCORE) {
+                out.writeInt(record.teamNames.length);
+                for (int i = 0; i < record.teamNames.length; i++) {
+                    out.writeUTF(record.teamNames[i]);
+                    out.writeInt(record.deltas[i]);
+                }
+            }
+            int length = bytes.size() - header - 8;
+            crc.reset();
+            crc.update(bytes.array(), header + 8, length);
+            ByteBuffer.wrap(bytes.array(), header, 8).putInt(length).putInt((int) crc.getValue());
+        }
+
+        ByteBuffer buffer() {
+            return ByteBuffer.wrap(bytes.array(), 0, bytes.size());
+        }
+    }
+
+    private static final class Buffer extends ByteArrayOutputStream {
+        Buffer() {
+            super(1 << 16);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+}
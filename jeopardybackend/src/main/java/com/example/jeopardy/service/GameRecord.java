@@ -0,0 +1,390 @@
+package com.example.jeopardy.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Immutable copy of the part of a game that a shared
+ * {@link GameStateStore} keeps: its teams and scores, the questions each
+ * category drew since its last refill, and the question open for buzzing
+ * with the buzzes it got so far. Every change yields a new record one
+ * {@code version} up, which is what a compare-and-set in the store is
+ * keyed on; {@code scoreVersion} only moves with the scores and is the
+ * game's scoreboard version. {@code writer} names the node that wrote
+ * the record, so a node can tell its own changes from other nodes'.
+ *
+ * <p>Encoded as a format byte, then the versions, the writer, per team
+ * its UTF-8 name and score, per category its name and drawn question
+ * ids, the open question with its opening time, and per buzz the team
+ * and its time, all as varints (scores zigzag-coded), so a four-team
+ * game takes a few dozen bytes plus a few per drawn question.
+ */
+final class GameRecord {
+
+    // 1 held teams and scores only; still read, as a game with nothing drawn
+    private static final byte SCORES_ONLY = 1;
+    private static final byte FORMAT = 2;
+    private static final long[] NONE_DRAWN = new long[0];
+
+    private final String gameId;
+    private final long version;
+    private final long scoreVersion;
+    private final long writer;
+    private final String[] teamNames;
+    private final int[] scores;
+    // drawn[i]: ids drawn in categories[i] since it last refilled, in draw order
+    private final String[] categories;
+    private final long[][] drawn;
+    // draws so far in all categories, which tells a redraw of the same question apart
+    private final long draws;
+    private final long openQuestionId;
+    // epoch microseconds
+    private final long openedAt;
+    // in rank order: the team of each buzz and its microseconds from opening
+    private final int[] buzzTeams;
+    private final long[] buzzMicros;
+
+    /**
+     * A game with these scores at {@code version} that has drawn nothing
+     * yet.
+     */
+    GameRecord(String gameId, long version, String[] teamNames, int[] scores) {
+        this(gameId, version, version, 0, teamNames, scores, new String[0], new long[0][], 0, -1, 0,
+                new int[0], new long[0]);
+    }
+
+    private GameRecord(String gameId, long version, long scoreVersion, long writer, String[] teamNames,
+                       int[] scores, String[] categories, long[][] drawn, long draws, long openQuestionId,
+                       long openedAt, int[] buzzTeams, long[] buzzMicros) {
+        this.gameId = gameId;
+        this.version = version;
+        this.scoreVersion = scoreVersion;
+        this.writer = writer;
+        this.teamNames = teamNames;
+        this.scores = scores;
+        this.categories = categories;
+        this.drawn = drawn;
+        this.draws = draws;
+        this.openQuestionId = openQuestionId;
+        this.openedAt = openedAt;
+        this.buzzTeams = buzzTeams;
+        this.buzzMicros = buzzMicros;
+    }
+
+    String getGameId() {
+        return gameId;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * Score changes so far; draws and buzzes leave it alone.
+     */
+    long getScoreVersion() {
+        return scoreVersion;
+    }
+
+    long getWriter() {
+        return writer;
+    }
+
+    int getTeamCount() {
+        return teamNames.length;
+    }
+
+    String getTeamName(int team) {
+        return teamNames[team];
+    }
+
+    int getScore(int team) {
+        return scores[team];
+    }
+
+    /**
+     * The team playing as {@code teamName}, matched like
+     * {@link GameSession} matches names, or -1.
+     */
+    int indexOf(String teamName) {
+        if (teamName == null) {
+            return -1;
+        }
+        String key = GameSession.teamKey(teamName);
+        for (int i = 0; i < teamNames.length; i++) {
+            if (GameSession.teamKey(teamNames[i]).equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The ids {@code category} drew since it last refilled; empty if it
+     * never drew.
+     */
+    long[] getDrawn(String category) {
+        int index = Arrays.asList(categories).indexOf(category);
+        return index >= 0 ? drawn[index] : NONE_DRAWN;
+    }
+
+    long getDraws() {
+        return draws;
+    }
+
+    /**
+     * The question teams can buzz for, or -1 before the first draw.
+     */
+    long getOpenQuestionId() {
+        return openQuestionId;
+    }
+
+    int getBuzzCount() {
+        return buzzTeams.length;
+    }
+
+    /**
+     * The team that got rank {@code rank}, 1 for the first buzz.
+     */
+    int getBuzzTeam(int rank) {
+        return buzzTeams[rank - 1];
+    }
+
+    long getBuzzMicros(int rank) {
+        return buzzMicros[rank - 1];
+    }
+
+    /**
+     * The rank team {@code team} got for the open question, or 0 if it
+     * has not buzzed.
+     */
+    int rankOf(int team) {
+        for (int i = 0; i < buzzTeams.length; i++) {
+            if (buzzTeams[i] == team) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * This record with {@code deltas} added, one version up, or
+     * {@code null} if no name matches a team.
+     */
+    GameRecord withDeltas(Map<String, Integer> deltas) {
+        int[] next = scores.clone();
+        boolean changed = false;
+        for (Map.Entry<String, Integer> entry : deltas.entrySet()) {
+            int team = indexOf(entry.getKey());
+            if (team >= 0) {
+                next[team] += entry.getValue();
+                changed = true;
+            }
+        }
+        return changed ? withScores(next) : null;
+    }
+
+    /**
+     * This record with {@code delta} added to one team, one version up.
+     */
+    GameRecord withDelta(int team, int delta) {
+        int[] next = scores.clone();
+        next[team] += delta;
+        return withScores(next);
+    }
+
+    private GameRecord withScores(int[] next) {
+        return new GameRecord(gameId, version + 1, scoreVersion + 1, writer, teamNames, next, categories, drawn,
+                draws, openQuestionId, openedAt, buzzTeams, buzzMicros);
+    }
+
+    /**
+     * This record with {@code questionId} drawn from {@code category} and
+     * open for buzzing since {@code now}, in epoch microseconds; the
+     * category's cycle starts over if {@code refilled}.
+     */
+    GameRecord withDraw(String category, long questionId, boolean refilled, long now) {
+        int index = Arrays.asList(categories).indexOf(category);
+        String[] nextCategories = categories;
+        long[][] nextDrawn;
+        if (index < 0) {
+            index = categories.length;
+            nextCategories = Arrays.copyOf(categories, index + 1);
+            nextCategories[index] = category;
+            nextDrawn = Arrays.copyOf(drawn, index + 1);
+            nextDrawn[index] = NONE_DRAWN;
+        } else {
+            nextDrawn = drawn.clone();
+        }
+        long[] cycle = refilled ? NONE_DRAWN : nextDrawn[index];
+        cycle = Arrays.copyOf(cycle, cycle.length + 1);
+        cycle[cycle.length - 1] = questionId;
+        nextDrawn[index] = cycle;
+        return new GameRecord(gameId, version + 1, scoreVersion, writer, teamNames, scores, nextCategories,
+                nextDrawn, draws + 1, questionId, now, new int[0], new long[0]);
+    }
+
+    /**
+     * This record with team {@code team} buzzing at {@code now}, in epoch
+     * microseconds, ranked after every buzz so far. A buzz never shows an
+     * earlier time than the one ranked before it, whatever the clocks of
+     * the nodes say.
+     */
+    GameRecord withBuzz(int team, long now) {
+        int count = buzzTeams.length;
+        long micros = Math.max(0, now - openedAt);
+        if (count > 0) {
+            micros = Math.max(micros, buzzMicros[count - 1]);
+        }
+        int[] nextTeams = Arrays.copyOf(buzzTeams, count + 1);
+        long[] nextMicros = Arrays.copyOf(buzzMicros, count + 1);
+        nextTeams[count] = team;
+        nextMicros[count] = micros;
+        return new GameRecord(gameId, version + 1, scoreVersion, writer, teamNames, scores, categories, drawn,
+                draws, openQuestionId, openedAt, nextTeams, nextMicros);
+    }
+
+    /**
+     * This record as written by node {@code writer}.
+     */
+    GameRecord writtenBy(long writer) {
+        return new GameRecord(gameId, version, scoreVersion, writer, teamNames, scores, categories, drawn,
+                draws, openQuestionId, openedAt, buzzTeams, buzzMicros);
+    }
+
+    byte[] encode() {
+        byte[][] names = new byte[teamNames.length][];
+        int size = 1 + 3 * 10 + 5;
+        for (int i = 0; i < teamNames.length; i++) {
+            names[i] = teamNames[i].getBytes(StandardCharsets.UTF_8);
+            size += 5 + names[i].length + 5;
+        }
+        byte[][] categoryNames = new byte[categories.length][];
+        size += 5;
+        for (int i = 0; i < categories.length; i++) {
+            categoryNames[i] = categories[i].getBytes(StandardCharsets.UTF_8);
+            size += 5 + categoryNames[i].length + 5 + 10 * drawn[i].length;
+        }
+        size += 3 * 10 + 5 + (5 + 10) * buzzTeams.length;
+
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.put(FORMAT);
+        putVarLong(out, version);
+        putVarLong(out, scoreVersion);
+        putVarLong(out, writer);
+        putVarLong(out, names.length);
+        for (int i = 0; i < names.length; i++) {
+            putVarLong(out, names[i].length);
+            out.put(names[i]);
+            putVarLong(out, Integer.toUnsignedLong((scores[i] << 1) ^ (scores[i] >> 31)));
+        }
+        putVarLong(out, categoryNames.length);
+        for (int i = 0; i < categoryNames.length; i++) {
+            putVarLong(out, categoryNames[i].length);
+            out.put(categoryNames[i]);
+            putVarLong(out, drawn[i].length);
+            for (long questionId : drawn[i]) {
+                putVarLong(out, questionId);
+            }
+        }
+        putVarLong(out, draws);
+        // shifted by one, so "none open" takes one byte rather than ten
+        putVarLong(out, openQuestionId + 1);
+        putVarLong(out, openedAt);
+        putVarLong(out, buzzTeams.length);
+        for (int i = 0; i < buzzTeams.length; i++) {
+            putVarLong(out, buzzTeams[i]);
+            putVarLong(out, buzzMicros[i]);
+        }
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code bytes} is not an encoded record
+     */
+    static GameRecord decode(String gameId, byte[] bytes) {
+        if (bytes.length == 0 || (bytes[0] != FORMAT && bytes[0] != SCORES_ONLY)) {
+            throw new IllegalArgumentException("Unknown game record format for " + gameId);
+        }
+        boolean scoresOnly = bytes[0] == SCORES_ONLY;
+        ByteBuffer in = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+        try {
+            long version = getVarLong(in);
+            long scoreVersion = scoresOnly ? version : getVarLong(in);
+            long writer = scoresOnly ? 0 : getVarLong(in);
+            int count = count(in);
+            String[] teamNames = new String[count];
+            int[] scores = new int[count];
+            for (int i = 0; i < count; i++) {
+                teamNames[i] = getString(bytes, in);
+                int zigzag = (int) getVarLong(in);
+                scores[i] = (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+            if (scoresOnly) {
+                return new GameRecord(gameId, version, teamNames, scores);
+            }
+            int categoryCount = count(in);
+            String[] categories = new String[categoryCount];
+            long[][] drawn = new long[categoryCount][];
+            for (int i = 0; i < categoryCount; i++) {
+                categories[i] = getString(bytes, in);
+                drawn[i] = new long[count(in)];
+                for (int d = 0; d < drawn[i].length; d++) {
+                    drawn[i][d] = getVarLong(in);
+                }
+            }
+            long draws = getVarLong(in);
+            long openQuestionId = getVarLong(in) - 1;
+            long openedAt = getVarLong(in);
+            int buzzCount = count(in);
+            int[] buzzTeams = new int[buzzCount];
+            long[] buzzMicros = new long[buzzCount];
+            for (int i = 0; i < buzzCount; i++) {
+                buzzTeams[i] = (int) getVarLong(in);
+                buzzMicros[i] = getVarLong(in);
+            }
+            return new GameRecord(gameId, version, scoreVersion, writer, teamNames, scores, categories, drawn,
+                    draws, openQuestionId, openedAt, buzzTeams, buzzMicros);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Corrupt game record for " + gameId, e);
+        }
+    }
+
+    private static int count(ByteBuffer in) {
+        int count = (int) getVarLong(in);
+        // every entry takes at least a byte
+        if (count < 0 || count > in.remaining()) {
+            throw new IllegalArgumentException(count + " entries");
+        }
+        return count;
+    }
+
+    private static String getString(byte[] bytes, ByteBuffer in) {
+        int length = (int) getVarLong(in);
+        String value = new String(bytes, in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static void putVarLong(ByteBuffer out, long bits) {
+        while ((bits & ~0x7FL) != 0) {
+            out.put((byte) ((bits & 0x7F) | 0x80));
+            bits >>>= 7;
+        }
+        out.put((byte) bits);
+    }
+
+    private static long getVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+}
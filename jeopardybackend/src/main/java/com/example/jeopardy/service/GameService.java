@@ -1,180 +1,356 @@
 package com.example.jeopardy.service;
 
+import com.example.jeopardy.dto.AnswerRequest;
+import com.example.jeopardy.dto.BuzzResult;
+import com.example.jeopardy.dto.GameEvent;
+import com.example.jeopardy.dto.GameState;
+import com.example.jeopardy.dto.QuestionResponse;
+import com.example.jeopardy.dto.QuestionStatsEntry;
 import com.example.jeopardy.model.Question;
 import com.example.jeopardy.model.Team;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @Service
 public class GameService {
 
-    private final Map<Long, Question> questionsById = new HashMap<>();
-    private final Map<String, List<Question>> questionsByCategory = new HashMap<>();
-    private final Map<String, List<Question>> remainingByCategory = new HashMap<>();
-    private final List<Team> teams = new ArrayList<>();
-    private final Random random = new Random();
-    private final AiAnswerEvaluator answerEvaluator = new AiAnswerEvaluator();
+    private static final Logger log = LoggerFactory.getLogger(GameService.class);
+
+    private final GameStateStore store;
+    private final AiAnswerEvaluator answerEvaluator;
+    private final QuestionBankLoader questionBankLoader;
+    private final GameEventBroadcaster events;
+    private final VerdictCache verdictCache;
+    private final GameJournal journal;
+    private final QuestionStats questionStats;
+    private final SessionExpiry sessionExpiry;
+    private final GradingStage gradingStage;
+    // swapped as a whole on reload; every call reads it once and works on that snapshot
+    private volatile QuestionBank questionBank;
 
     private static final int POINTS_FOR_CORRECT = 5;
     private static final int POINTS_FOR_INCORRECT = -1;
+    // below this a batch is graded on the calling thread; handing off costs more
+    private static final int PARALLEL_BATCH_THRESHOLD = 8;
+
+    // bounded, CPU-sized pool for batch grading on request threads; null when the grading stage does it
+    private final ForkJoinPool gradingPool;
+
+    public GameService(GameEventBroadcaster events, VerdictCache verdictCache, GradingMetrics gradingMetrics,
+                       GradingThresholds gradingThresholds, GameJournal journal, QuestionStats questionStats,
+                       SessionExpiry sessionExpiry, GameStateStore store, GradingStage gradingStage) {
+        this.events = events;
+        this.verdictCache = verdictCache;
+        // a shared store is the durable copy; a per-node journal would bring games back twice
+        this.journal = store.isShared() ? GameJournal.disabled() : journal;
+        this.store = store;
+        this.questionStats = questionStats;
+        this.sessionExpiry = sessionExpiry;
+        this.gradingStage = gradingStage;
+        this.gradingPool = gradingStage.isEnabled()
+                ? null
+                : new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        this.answerEvaluator = new AiAnswerEvaluator(gradingMetrics, gradingThresholds);
+        this.questionBankLoader = new QuestionBankLoader(answerEvaluator);
+        this.questionBank = questionBankLoader.loadBuiltIn();
+        questionStats.bind(this::getQuestionBank);
+        sessionExpiry.bind(store.localSessions(), this::evict);
+        store.bindRemoteChanges(events::hasSubscribers, this::relay);
+    }
 
-    public GameService() {
-        loadQuestions();
-        resetRemainingQuestions();
-    }
-
-    private void loadQuestions() {
-        long id = 1L;
-
-        // Doctor questions
-        addQuestion(id++, "Doctor", "What is the name of the exam you must clear to get admission in MBBS in India?",
-                "NEET (National Eligibility cum Entrance Test)");
-        addQuestion(id++, "Doctor", "At what minimum age can you take the NEET exam?",
-                "17 years");
-        addQuestion(id++, "Doctor", "How many years does it take to complete an MBBS course in India?",
-                "5.5 years");
-        addQuestion(id++, "Doctor", "After MBBS, how many months of internship are required before you can practice?",
-                "12 months");
-        addQuestion(id++, "Doctor", "What does NEET stand for?",
-                "National Eligibility cum Entrance Test");
-        addQuestion(id++, "Doctor", "Which class do you need to pass before you can apply for MBBS?",
-                "Class 12");
-        addQuestion(id++, "Doctor", "Name one entrance exam that is taken after MBBS to become a specialist (PG course).",
-                "NEET-PG");
-        addQuestion(id++, "Doctor", "Can a student take MBBS in India without NEET? Why or why not?",
-                "No, because NEET is compulsory for MBBS admission in India");
-        addQuestion(id++, "Doctor", "What is the difference between an MBBS doctor and a BDS doctor?",
-                "MBBS doctors treat general medical problems; BDS doctors are dentists who treat teeth and mouth problems");
-        addQuestion(id++, "Doctor", "Which government body regulates medical colleges and doctors in India?",
-                "National Medical Commission");
-
-        // Lawyer questions
-        addQuestion(id++, "Lawyer", "After which class can you apply for the 5-year law course?",
-                "After Class 12");
-        addQuestion(id++, "Lawyer", "How many years does a BA LLB course take to complete?",
-                "5 years");
-        addQuestion(id++, "Lawyer", "What does LLB stand for?",
-                "Bachelor of Laws");
-        addQuestion(id++, "Lawyer", "What is the minimum age to appear for CLAT?",
-                "Around 17 to 18 years (after Class 12)");
-        addQuestion(id++, "Lawyer", "Name one famous law college in India.",
-                "National Law School of India University, Bengaluru");
-        addQuestion(id++, "Lawyer", "How many National Law Universities (NLUs) are there in India approximately?",
-                "Around 24");
-        addQuestion(id++, "Lawyer", "What are some of the main subjects studied in law?",
-                "Constitutional Law, Criminal Law, Civil Law, Contract Law");
-        addQuestion(id++, "Lawyer", "What is the exam you must clear to practice law in India after completing your degree?",
-                "All India Bar Examination");
-        addQuestion(id++, "Lawyer", "What is the professional body that regulates lawyers in India?",
-                "Bar Council of India");
-        addQuestion(id++, "Lawyer", "Name one type of lawyer who works in court.",
-                "Litigation lawyer");
-
-        // Fashion Designer questions
-        addQuestion(id++, "Fashion Designer", "What is the name of the main entrance exam to get admission in top fashion design colleges in India?",
-                "NIFT entrance exam");
-        addQuestion(id++, "Fashion Designer", "Name one natural fiber used in clothing",
-                "Cotton");
-        addQuestion(id++, "Fashion Designer", "What is a mood board in fashion design?",
-                "A collage of images, colors and ideas used to show the theme or inspiration for a design");
-        addQuestion(id++, "Fashion Designer", "Who is considered the \"father of modern haute couture\"?",
-                "Charles Frederick Worth");
-        addQuestion(id++, "Fashion Designer", "What is a boutique?",
-                "A small shop that sells fashionable clothes and accessories");
-        addQuestion(id++, "Fashion Designer", "What is the purpose of mood boards in fashion design?",
-                "To collect and show ideas, colors and styles before designing clothes");
-        addQuestion(id++, "Fashion Designer", "After which class can you apply for a fashion design course?",
-                "After Class 12");
-        addQuestion(id++, "Fashion Designer", "Name one synthetic fiber used in clothing",
-                "Polyester");
-        addQuestion(id++, "Fashion Designer", "What is a sketch in fashion design?",
-                "A drawing of a clothing design");
-        addQuestion(id++, "Fashion Designer", "What is a fashion trend?",
-                "A style or look that is popular at a particular time");
-    }
-
-    private void addQuestion(long id, String category, String text, String answer) {
-        Question q = new Question(id, category, text, answer);
-        questionsById.put(id, q);
-        questionsByCategory.computeIfAbsent(category, k -> new ArrayList<>()).add(q);
-    }
-
-    private void resetRemainingQuestions() {
-        remainingByCategory.clear();
-        for (Map.Entry<String, List<Question>> entry : questionsByCategory.entrySet()) {
-            remainingByCategory.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+    /**
+     * Brings back the games that were running when the server last
+     * stopped, as far as the journal recorded them.
+     */
+    @PostConstruct
+    public void recoverGames() throws IOException {
+        long start = System.nanoTime();
+        QuestionBank bank = questionBank;
+        journal.recover().forEach((id, game) -> {
+            GameSession session = GameSession.restore(id, game, bank, journal, sessionExpiry.heapAccount());
+            store.add(session);
+            sessionExpiry.track(session);
+        });
+        if (!store.localSessions().isEmpty()) {
+            log.info("Recovered {} games from the journal in {} ms", store.localSessions().size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
         }
     }
 
-    public List<String> getCategories() {
-        return new ArrayList<>(questionsByCategory.keySet());
+    public QuestionBankLoader getQuestionBankLoader() {
+        return questionBankLoader;
     }
 
-    public void startGame(List<String> teamNames) {
-        teams.clear();
-        if (teamNames != null) {
-            for (String name : teamNames) {
-                if (name != null && !name.trim().isEmpty()) {
-                    teams.add(new Team(name.trim()));
-                }
+    public QuestionBank getQuestionBank() {
+        return questionBank;
+    }
+
+    /**
+     * Publishes a new question bank. Running games keep drawing from the
+     * questions they already hold and refill from the new bank.
+     */
+    public void setQuestionBank(QuestionBank questionBank) {
+        this.questionBank = questionBank;
+        verdictCache.invalidateAll();
+    }
+
+    public VerdictCache getVerdictCache() {
+        return verdictCache;
+    }
+
+    public QuestionStats getQuestionStats() {
+        return questionStats;
+    }
+
+    /**
+     * The {@code limit} questions with the lowest accuracy in {@code stats},
+     * optionally within one category. Questions the current bank no
+     * longer has are left out.
+     */
+    public List<QuestionStatsEntry> getHardestQuestions(QuestionStats.Snapshot stats, String category, int limit) {
+        QuestionBank bank = questionBank;
+        Comparator<QuestionStatsEntry> easierFirst = Comparator
+                .comparingDouble(QuestionStatsEntry::getAccuracy).reversed()
+                .thenComparingLong(QuestionStatsEntry::getAttempts);
+        // keeps the hardest so far, with the easiest of them on top to be pushed out
+        PriorityQueue<QuestionStatsEntry> hardest = new PriorityQueue<>(limit + 1, easierFirst);
+        for (int i = 0; i < stats.size(); i++) {
+            Question q = bank.getQuestion(stats.getQuestionId(i));
+            if (q == null || (category != null && !category.equals(q.getCategory()))) {
+                continue;
             }
+            hardest.add(new QuestionStatsEntry(q.getId(), q.getCategory(), stats.getAttempts(i), stats.getCorrect(i)));
+            if (hardest.size() > limit) {
+                hardest.poll();
+            }
+        }
+        List<QuestionStatsEntry> entries = new ArrayList<>(hardest);
+        entries.sort(easierFirst.reversed());
+        return entries;
+    }
+
+    public List<String> getCategories() {
+        return new ArrayList<>(questionBank.getCategories());
+    }
+
+    public GameSession startGame(List<String> teamNames) {
+        // a new session starts with every question of every category available
+        GameSession session = new GameSession(UUID.randomUUID().toString(), teamNames, journal,
+                sessionExpiry.heapAccount());
+        // logged before anyone can find the game, so its draws and scores follow the start in the journal
+        journal.gameStarted(session.getId(), session.getTeamNames());
+        store.add(session);
+        sessionExpiry.track(session);
+        return session;
+    }
+
+    /**
+     * Looks up a running game and marks it active, which keeps it from
+     * expiring. With a shared store it comes with the scores other nodes
+     * recorded.
+     */
+    public GameSession getSession(String gameId) {
+        GameSession session = store.get(gameId);
+        if (session != null) {
+            session.touch();
         }
-        // fresh set of questions for each new game
-        resetRemainingQuestions();
+        return session;
     }
 
-    public List<Team> getTeams() {
-        return teams;
+    /**
+     * Forgets a game for good: it is dropped from memory and from the
+     * journal, and its event subscribers are disconnected. With a shared
+     * store other nodes keep it unless no node has changed it for the
+     * idle timeout. Returns false if it was gone already.
+     */
+    boolean evict(GameSession session) {
+        if (!store.remove(session)) {
+            return false;
+        }
+        session.release();
+        journal.gameEnded(session.getId());
+        events.close(session.getId());
+        return true;
     }
 
-    public Question getRandomQuestion(String category) {
-        if (category == null) {
+    public List<Team> getTeams(String gameId) {
+        GameSession session = getSession(gameId);
+        return session != null ? session.getTeams() : List.of();
+    }
+
+    public Question getRandomQuestion(String gameId, String category) {
+        GameSession session = getSession(gameId);
+        if (session == null || category == null) {
             return null;
         }
-        List<Question> remaining = remainingByCategory.get(category);
-        if (remaining == null || remaining.isEmpty()) {
-            List<Question> all = questionsByCategory.get(category);
-            if (all == null || all.isEmpty()) {
-                return null;
-            }
-            remaining = new ArrayList<>(all);
-            remainingByCategory.put(category, remaining);
+        // per-thread generator: draws for different games never contend on a shared seed
+        Question q = store.drawQuestion(session, category, questionBank.getQuestions(category),
+                ThreadLocalRandom.current(), questionStats.drawTable(category));
+        if (q != null && events.hasSubscribers(gameId)) {
+            events.publish(gameId, GameEvent.question(new QuestionResponse(q.getId(), q.getCategory(), q.getText())));
         }
-        int idx = random.nextInt(remaining.size());
-        Question q = remaining.remove(idx);
         return q;
     }
 
-    public boolean checkAnswer(long questionId, String teamName, String userAnswer) {
-        Question q = questionsById.get(questionId);
-        if (q == null || userAnswer == null || teamName == null) {
+    public SseEmitter subscribe(String gameId) {
+        GameSession session = getSession(gameId);
+        return session != null ? events.subscribe(gameId, () -> session.getState(-1)) : null;
+    }
+
+    /**
+     * Ranks a team's buzz for the question the game drew last and pushes
+     * the winning buzz to subscribers. Returns {@code null} for an
+     * unknown game or team.
+     *
+     * @throws IllegalStateException if {@code questionId} is not open for buzzing
+     */
+    public BuzzResult buzz(String gameId, long questionId, String teamName) {
+        GameSession session = getSession(gameId);
+        if (session == null) {
+            return null;
+        }
+        return store.buzz(session, questionId, teamName, winner -> events.publish(gameId, GameEvent.buzz(winner)));
+    }
+
+    /**
+     * Passes on to this node's subscribers what another node changed in
+     * a game; this node's copy has caught up by now.
+     */
+    private void relay(GameSession session, GameStateStore.RemoteChange change) {
+        String gameId = session.getId();
+        if (change.isScoresChanged()) {
+            events.publish(gameId, () -> {
+                GameState state = session.getState(-1);
+                return GameEvent.state(state.getTeams(), state.getVersion());
+            });
+        }
+        Question q = change.getDrawnQuestionId() >= 0 ? questionBank.getQuestion(change.getDrawnQuestionId()) : null;
+        if (q != null) {
+            events.publish(gameId, GameEvent.question(new QuestionResponse(q.getId(), q.getCategory(), q.getText())));
+        }
+        if (change.getWinner() != null) {
+            events.publish(gameId, GameEvent.buzz(change.getWinner()));
+        }
+    }
+
+    public boolean checkAnswer(String gameId, long questionId, String teamName, String userAnswer) {
+        GameSession session = getSession(gameId);
+        QuestionBank bank = questionBank;
+        Question q = bank.getQuestion(questionId);
+        if (session == null || q == null || userAnswer == null || teamName == null) {
             return false;
         }
-        boolean correct = answerEvaluator.isCorrect(q.getAnswer(), userAnswer);
+        boolean correct = grade(bank, questionId, userAnswer);
 
         int delta = correct ? POINTS_FOR_CORRECT : POINTS_FOR_INCORRECT;
-        adjustTeamScore(teamName, delta);
+        Team team = store.adjustTeamScore(session, teamName, delta);
+        if (team != null) {
+            // an answer from a team not in the game says nothing about the question
+            questionStats.record(questionId, correct);
+            events.publish(gameId, () -> scoreEvent(session, team.getName(), delta, correct));
+        }
 
         return correct;
     }
 
-    private void adjustTeamScore(String teamName, int delta) {
-        if (teamName == null) {
-            return;
+    /**
+     * Grades a batch of answers for one game and applies all resulting
+     * score changes in a single step. Returns one verdict per answer, in
+     * order; answers to unknown questions are incorrect and do not score.
+     *
+     * <p>Through the grading stage the batch is graded on the stage
+     * worker that runs it, so the stage alone decides how many threads
+     * grade and how many of them one game gets. Without the stage a large
+     * batch is graded in parallel on a CPU-sized pool.
+     */
+    public boolean[] checkAnswers(String gameId, List<AnswerRequest> answers) {
+        GameSession session = getSession(gameId);
+        if (session == null || answers == null) {
+            return new boolean[0];
         }
-        String lookupName = teamName.trim();
-        for (Team team : teams) {
-            if (team.getName().equalsIgnoreCase(lookupName)) {
-                team.setScore(team.getScore() + delta);
-                break;
+        QuestionBank bank = questionBank;
+        boolean[] verdicts = new boolean[answers.size()];
+        boolean[] graded = new boolean[answers.size()];
+        IntConsumer grade = i -> {
+            AnswerRequest answer = answers.get(i);
+            if (answer != null && answer.getAnswer() != null && answer.getTeamName() != null
+                    && bank.getQuestion(answer.getQuestionId()) != null) {
+                verdicts[i] = grade(bank, answer.getQuestionId(), answer.getAnswer());
+                graded[i] = true;
+                if (session.hasTeam(answer.getTeamName())) {
+                    questionStats.record(answer.getQuestionId(), verdicts[i]);
+                }
             }
+        };
+        if (gradingStage.isEnabled() || answers.size() < PARALLEL_BATCH_THRESHOLD) {
+            IntStream.range(0, answers.size()).forEach(grade);
+        } else {
+            gradingPool.submit(() -> IntStream.range(0, answers.size()).parallel().forEach(grade)).join();
+        }
+
+        Map<String, Integer> deltas = new HashMap<>();
+        for (int i = 0; i < verdicts.length; i++) {
+            if (graded[i]) {
+                int delta = verdicts[i] ? POINTS_FOR_CORRECT : POINTS_FOR_INCORRECT;
+                deltas.merge(answers.get(i).getTeamName(), delta, Integer::sum);
+            }
+        }
+        if (!deltas.isEmpty()) {
+            store.adjustTeamScores(session, deltas);
+            events.publish(gameId, () -> {
+                GameState state = session.getState(-1);
+                return GameEvent.state(state.getTeams(), state.getVersion());
+            });
+        }
+        return verdicts;
+    }
+
+    /**
+     * A team's score as of now, not as of the answer that changed it, so
+     * events built one after another never show a score going back.
+     */
+    private static GameEvent scoreEvent(GameSession session, String teamName, int delta, boolean correct) {
+        // read first: the score is then at least as new as the version it is stamped with
+        long version = session.getVersion();
+        return GameEvent.score(session.getTeam(teamName), delta, correct, version);
+    }
+
+    private boolean grade(QuestionBank bank, long questionId, String userAnswer) {
+        Boolean cached = verdictCache.get(questionId, userAnswer);
+        if (cached != null) {
+            return cached;
+        }
+        boolean correct = answerEvaluator.isCorrect(bank.getCompiledAnswer(questionId), userAnswer);
+        verdictCache.put(questionId, userAnswer, correct);
+        if (questionBank != bank) {
+            // the bank was swapped while grading; don't leave a verdict for the old one behind
+            verdictCache.invalidate(questionId, userAnswer);
+        }
+        return correct;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (gradingPool != null) {
+            gradingPool.shutdown();
         }
     }
 
     public String getCorrectAnswer(long questionId) {
-        Question q = questionsById.get(questionId);
+        Question q = questionBank.getQuestion(questionId);
         return q != null ? q.getAnswer() : "";
     }
 }
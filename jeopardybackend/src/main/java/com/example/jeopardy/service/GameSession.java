@@ -0,0 +1,596 @@
+package com.example.jeopardy.service;
+
+import com.example.jeopardy.dto.BuzzResult;
+import com.example.jeopardy.dto.GameState;
+import com.example.jeopardy.dto.LeaderboardEntry;
+import com.example.jeopardy.model.Question;
+import com.example.jeopardy.model.Team;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * State of a single classroom game: its teams and the questions still
+ * available in each category. Every session guards its own state, so
+ * games never contend with each other.
+ *
+ * <p>Score writes of one game take its score lock exclusively, for the
+ * few field writes they consist of; the leaderboard refresh and the
+ * journal come after. A snapshot spanning several teams needs one point
+ * every write passes through, and the lock is that point: snapshots read
+ * optimistically and fall back to the read lock, so they are always
+ * consistent.
+ */
+public class GameSession {
+
+    // optimistic snapshot reads before one takes the read lock
+    private static final int SNAPSHOT_ATTEMPTS = 8;
+    // weighted picks that land on drawn questions before a draw falls back to a uniform one
+    static final int WEIGHTED_ATTEMPTS = 8;
+    // a touch within this long of the last one is skipped, so busy games don't keep writing the field
+    private static final long TOUCH_RESOLUTION_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    // rough retained sizes on a 64-bit JVM with compressed oops, for the session memory cap
+    private static final long SESSION_BYTES = 640;
+    // score cells, leaderboard node, name map entry and buzz slot; the name is stored twice
+    private static final long TEAM_BYTES = 240;
+    private static final long CATEGORY_DRAW_BYTES = 160;
+
+    private final String id;
+    private final GameJournal journal;
+    // teams in start order; fixed once the game starts
+    private final List<TeamScore> teams = new ArrayList<>();
+    private final Map<String, TeamScore> teamsByKey = new ConcurrentHashMap<>();
+    private final StampedLock scoreLock = new StampedLock();
+    // score writes completed; only written holding scoreLock
+    private volatile long scoreVersion;
+    // created on a category's first draw, so starting a game copies nothing
+    private final Map<String, CategoryDraw> drawsByCategory = new ConcurrentHashMap<>();
+    private final Leaderboard leaderboard;
+    // the last drawn question, which teams can buzz for; -1 until the first draw
+    private long openQuestionId = -1;
+    private long openedAt;
+    // its arbitration, built on the first buzz so a draw allocates nothing; null until then
+    private volatile BuzzRound buzzRound;
+    private final Object buzzLock = new Object();
+    private volatile long lastActive = System.nanoTime();
+    // every game adds what it holds here as it grows, so the total needs no sweep over games
+    private final LongAdder heapAccount;
+    private final long fixedBytes;
+    private final AtomicLong drawBytes = new AtomicLong();
+
+    GameSession(String id, List<String> teamNames, GameJournal journal, LongAdder heapAccount) {
+        this.id = id;
+        this.journal = journal;
+        this.heapAccount = heapAccount;
+        if (teamNames != null) {
+            for (String name : teamNames) {
+                if (name != null && !name.trim().isEmpty()) {
+                    TeamScore team = new TeamScore(name.trim(), teams.size());
+                    if (teamsByKey.putIfAbsent(teamKey(team.name), team) == null) {
+                        teams.add(team);
+                    }
+                }
+            }
+        }
+        List<AtomicInteger> scores = new ArrayList<>(teams.size());
+        for (TeamScore team : teams) {
+            scores.add(team.score);
+        }
+        this.leaderboard = new Leaderboard(getTeamNames(), scores);
+        long bytes = SESSION_BYTES;
+        for (TeamScore team : teams) {
+            bytes += TEAM_BYTES + 2L * team.name.length();
+        }
+        this.fixedBytes = bytes;
+        heapAccount.add(bytes);
+    }
+
+    /**
+     * Rebuilds a game from the journal against the current question bank.
+     * Drawn questions the bank no longer has are ignored.
+     */
+    static GameSession restore(String id, GameJournal.RecoveredGame game, QuestionBank bank, GameJournal journal,
+                               LongAdder heapAccount) {
+        GameSession session = new GameSession(id, game.getTeamNames(), journal, heapAccount);
+        // versions from before the restart must not come back with different scores;
+        // a microsecond-scale clock keeps them below the range JavaScript numbers hold exactly
+        long version = System.currentTimeMillis() * 1000;
+        session.scoreVersion = version;
+        for (TeamScore team : session.teams) {
+            team.score.set(game.getScore(team.name));
+            team.changedAt.set(version);
+            session.leaderboard.refresh(team.index);
+        }
+        game.getDrawnByCategory().forEach((category, drawn) -> {
+            List<Question> all = bank.getQuestions(category);
+            if (all != null && !all.isEmpty()) {
+                CategoryDraw draw = session.new CategoryDraw(category);
+                draw.restore(all, drawn);
+                session.drawsByCategory.put(category, draw);
+            }
+        });
+        return session;
+    }
+
+    /**
+     * A game as a shared store last recorded it. It does not journal:
+     * the store holds the durable copy.
+     */
+    static GameSession fromRecord(GameRecord record, LongAdder heapAccount) {
+        List<String> teamNames = new ArrayList<>(record.getTeamCount());
+        for (int i = 0; i < record.getTeamCount(); i++) {
+            teamNames.add(record.getTeamName(i));
+        }
+        GameSession session = new GameSession(record.getGameId(), teamNames, GameJournal.disabled(), heapAccount);
+        session.apply(record);
+        return session;
+    }
+
+    /**
+     * The teams and scores as a shared store keeps them, at this game's
+     * version.
+     */
+    GameRecord toRecord() {
+        GameState state = getState(-1);
+        String[] names = new String[teams.size()];
+        int[] scores = new int[teams.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = state.getTeams().get(i).getName();
+            scores[i] = state.getTeams().get(i).getScore();
+        }
+        return new GameRecord(id, state.getVersion(), names, scores);
+    }
+
+    /**
+     * Takes over the scores of a newer {@code record} of this game, as one
+     * step for concurrent readers; the game's version becomes the
+     * record's score version. An older or equal record changes nothing.
+     */
+    void apply(GameRecord record) {
+        long version = record.getScoreVersion();
+        long stamp = scoreLock.writeLock();
+        try {
+            if (version <= scoreVersion) {
+                return;
+            }
+            for (TeamScore team : teams) {
+                int score = record.getScore(team.index);
+                if (team.score.getAndSet(score) != score) {
+                    team.changedAt.set(version);
+                }
+            }
+            scoreVersion = version;
+        } finally {
+            scoreLock.unlockWrite(stamp);
+        }
+        for (TeamScore team : teams) {
+            leaderboard.refresh(team.index);
+        }
+    }
+
+    static String teamKey(String teamName) {
+        return teamName.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    List<String> getTeamNames() {
+        List<String> names = new ArrayList<>(teams.size());
+        for (TeamScore team : teams) {
+            names.add(team.name);
+        }
+        return names;
+    }
+
+    /**
+     * Returns a copy of the teams, so callers can serialize it while
+     * other requests keep scoring. The copy reflects one point in time.
+     */
+    public List<Team> getTeams() {
+        return getState(-1).getTeams();
+    }
+
+    /**
+     * Whether a team of that name, in any case, plays in this game.
+     */
+    boolean hasTeam(String teamName) {
+        return teamName != null && teamsByKey.containsKey(teamKey(teamName));
+    }
+
+    /**
+     * A team with its current score, or {@code null} if no such team
+     * plays in this game.
+     */
+    Team getTeam(String teamName) {
+        TeamScore team = teamName != null ? teamsByKey.get(teamKey(teamName)) : null;
+        return team != null ? new Team(team.name, team.score.get()) : null;
+    }
+
+    /**
+     * The scoreboard at one version. With {@code since} at or above 0 only
+     * teams whose score changed after that version are included; a
+     * {@code since} the game never reached (e.g. from before a restart)
+     * gets the full scoreboard.
+     */
+    public GameState getState(long since) {
+        List<Team> copy = new ArrayList<>(teams.size());
+        long version = -1;
+        for (int attempt = 0; attempt < SNAPSHOT_ATTEMPTS && version < 0; attempt++) {
+            long stamp = scoreLock.tryOptimisticRead();
+            if (stamp != 0) {
+                long read = copyScores(since, copy);
+                if (scoreLock.validate(stamp)) {
+                    version = read;
+                }
+            }
+        }
+        if (version < 0) {
+            // writes keep landing mid-read; hold them off for one copy
+            long stamp = scoreLock.readLock();
+            try {
+                version = copyScores(since, copy);
+            } finally {
+                scoreLock.unlockRead(stamp);
+            }
+        }
+        GameState state = new GameState(id, copy, version);
+        if (since >= 0 && since <= version) {
+            state.setChangesSince(since);
+        }
+        return state;
+    }
+
+    /**
+     * Copies the teams a snapshot at {@code since} includes into
+     * {@code copy} and returns the version they were read at. Only
+     * consistent while writes are held off or validated afterwards.
+     */
+    private long copyScores(long since, List<Team> copy) {
+        copy.clear();
+        long version = scoreVersion;
+        boolean delta = since >= 0 && since <= version;
+        for (TeamScore team : teams) {
+            if (!delta || team.changedAt.get() > since) {
+                copy.add(new Team(team.name, team.score.get()));
+            }
+        }
+        return version;
+    }
+
+    /**
+     * Number of score changes completed so far. It only grows, also across
+     * a restart, so it identifies a state of the scoreboard.
+     */
+    public long getVersion() {
+        return scoreVersion;
+    }
+
+    /**
+     * The {@code count} best-placed teams, highest score first.
+     */
+    public List<LeaderboardEntry> getLeaderboard(int count) {
+        return leaderboard.top(count);
+    }
+
+    /**
+     * A team's place on the leaderboard, or {@code null} if no such team
+     * plays in this game.
+     */
+    public LeaderboardEntry getRanking(String teamName) {
+        TeamScore team = teamName != null ? teamsByKey.get(teamKey(teamName)) : null;
+        return team != null ? leaderboard.rankOf(team.index) : null;
+    }
+
+    public int getTeamCount() {
+        return teams.size();
+    }
+
+    /**
+     * Marks the game as just used, for idle expiry.
+     */
+    void touch() {
+        long now = System.nanoTime();
+        if (now - lastActive > TOUCH_RESOLUTION_NANOS) {
+            lastActive = now;
+        }
+    }
+
+    /**
+     * {@link System#nanoTime()} of the last {@link #touch()}, to within
+     * 100 ms.
+     */
+    long getLastActive() {
+        return lastActive;
+    }
+
+    /**
+     * Approximate heap this game holds: teams, leaderboard and the draw
+     * order of every category it has drawn from.
+     */
+    long estimatedBytes() {
+        return fixedBytes + drawBytes.get();
+    }
+
+    /**
+     * Takes this game's bytes back out of the shared total once it is
+     * dropped.
+     */
+    void release() {
+        heapAccount.add(-estimatedBytes());
+    }
+
+    /**
+     * Draws a question of {@code category} that this game has not seen
+     * since the category was last exhausted, and opens it for buzzing.
+     * {@code all} is the current bank's list for the category; it is only
+     * picked up on refill. With a {@code table} built for that list the
+     * draw favours the questions it weighs higher.
+     */
+    Question drawQuestion(String category, List<Question> all, Random random, AliasTable table) {
+        CategoryDraw draw = drawsByCategory.get(category);
+        if (draw == null) {
+            if (all == null || all.isEmpty()) {
+                return null;
+            }
+            draw = drawsByCategory.computeIfAbsent(category, CategoryDraw::new);
+        }
+        // room for the draw's journal record is taken before the draw's lock, so the lock never waits on the disk
+        journal.reserve();
+        Question question = null;
+        try {
+            question = draw.next(all, random, table);
+        } finally {
+            if (question == null) {
+                journal.cancelReservation();
+            }
+        }
+        if (question != null) {
+            openBuzzRound(question.getId());
+        }
+        return question;
+    }
+
+    void openBuzzRound(long questionId) {
+        long now = System.nanoTime();
+        synchronized (buzzLock) {
+            openQuestionId = questionId;
+            openedAt = now;
+            buzzRound = null;
+        }
+    }
+
+    /**
+     * The arbitration for {@code questionId} if it is the question open
+     * for buzzing, built on the first buzz; {@code null} otherwise.
+     */
+    private BuzzRound buzzRound(long questionId) {
+        BuzzRound round = buzzRound;
+        if (round != null) {
+            // a newer draw clears the round first, so a round still here is the open one
+            return round.getQuestionId() == questionId ? round : null;
+        }
+        synchronized (buzzLock) {
+            if (buzzRound == null && openQuestionId == questionId) {
+                buzzRound = new BuzzRound(questionId, teams.size(), openedAt);
+            }
+            round = buzzRound;
+        }
+        return round != null && round.getQuestionId() == questionId ? round : null;
+    }
+
+    /**
+     * Ranks a team's buzz for the open question and hands the winning buzz
+     * to {@code onWin}, once per question. Returns {@code null} if no such
+     * team plays in this game.
+     *
+     * @throws IllegalStateException if {@code questionId} is not the
+     *                               question currently open for buzzing
+     */
+    BuzzResult buzz(long questionId, String teamName, Consumer<BuzzResult> onWin) {
+        TeamScore team = teamName != null ? teamsByKey.get(teamKey(teamName)) : null;
+        if (team == null) {
+            return null;
+        }
+        BuzzRound round = buzzRound(questionId);
+        if (round == null) {
+            throw new IllegalStateException("Question " + questionId + " is not open for buzzing");
+        }
+        int rank = round.buzz(team.index);
+        boolean repeated = rank == 0;
+        if (repeated) {
+            rank = round.rankOf(team.index);
+        }
+        BuzzResult result = new BuzzResult(id, questionId, team.name, rank, round.microsToBuzz(team.index));
+        if (rank == 1 && !repeated) {
+            onWin.accept(result);
+        }
+        return result;
+    }
+
+    /**
+     * Adds {@code delta} to a team's score and returns the team with its
+     * new score, or {@code null} if no such team plays in this game.
+     */
+    Team adjustTeamScore(String teamName, int delta) {
+        if (teamName == null) {
+            return null;
+        }
+        TeamScore team = teamsByKey.get(teamKey(teamName));
+        if (team == null) {
+            return null;
+        }
+        int score;
+        long stamp = scoreLock.writeLock();
+        try {
+            long write = scoreVersion + 1;
+            score = team.score.addAndGet(delta);
+            team.changedAt.set(write);
+            scoreVersion = write;
+        } finally {
+            scoreLock.unlockWrite(stamp);
+        }
+        leaderboard.refresh(team.index);
+        journal.scoreChanged(id, team.name, delta);
+        return new Team(team.name, score);
+    }
+
+    /**
+     * Applies several score changes as one step: a concurrent
+     * {@link #getTeams()} sees either none or all of them. Names that
+     * match no team are ignored.
+     */
+    void adjustTeamScores(Map<String, Integer> deltas) {
+        TeamScore[] changed = new TeamScore[deltas.size()];
+        int[] applied = new int[deltas.size()];
+        int count = 0;
+        for (Map.Entry<String, Integer> entry : deltas.entrySet()) {
+            TeamScore team = entry.getKey() != null ? teamsByKey.get(teamKey(entry.getKey())) : null;
+            if (team != null) {
+                changed[count] = team;
+                applied[count++] = entry.getValue();
+            }
+        }
+        long stamp = scoreLock.writeLock();
+        try {
+            long write = scoreVersion + 1;
+            for (int i = 0; i < count; i++) {
+                changed[i].score.addAndGet(applied[i]);
+                changed[i].changedAt.set(write);
+            }
+            scoreVersion = write;
+        } finally {
+            scoreLock.unlockWrite(stamp);
+        }
+        if (count > 0) {
+            String[] names = new String[count];
+            for (int i = 0; i < count; i++) {
+                leaderboard.refresh(changed[i].index);
+                names[i] = changed[i].name;
+            }
+            journal.scoresChanged(id, names, Arrays.copyOf(applied, count));
+        }
+    }
+
+    /**
+     * Lazy Fisher-Yates shuffle over indices into the category's question
+     * list: the first {@code remaining} slots of {@code order} are the
+     * questions not drawn yet. A draw swaps a random slot to the end, and
+     * a refill just resets the count, so neither allocates. {@code position}
+     * is the inverse of {@code order}, so a question picked by a weighted
+     * table can be checked and removed in O(1) too.
+     */
+    private final class CategoryDraw {
+        private final String category;
+        private List<Question> questions = List.of();
+        private int[] order = new int[0];
+        private int[] position = new int[0];
+        private int remaining;
+
+        CategoryDraw(String category) {
+            this.category = category;
+            grow(CATEGORY_DRAW_BYTES + 2L * category.length());
+        }
+
+        synchronized Question next(List<Question> all, Random random, AliasTable table) {
+            boolean refilled = remaining == 0;
+            if (refilled) {
+                if (all != null && all != questions) {
+                    // the bank was reloaded since this category last refilled
+                    questions = all;
+                    if (order.length != all.size()) {
+                        reset(all.size());
+                    }
+                }
+                remaining = questions.size();
+                if (remaining == 0) {
+                    return null;
+                }
+            }
+            int slot = -1;
+            if (table != null && table.covers(questions)) {
+                // a weighted pick this cycle already drew is rejected, which keeps draws without repeats
+                for (int attempt = 0; attempt < WEIGHTED_ATTEMPTS && slot < 0; attempt++) {
+                    int candidate = position[table.sample(random)];
+                    if (candidate < remaining) {
+                        slot = candidate;
+                    }
+                }
+            }
+            if (slot < 0) {
+                slot = random.nextInt(remaining);
+            }
+            int picked = take(slot);
+            Question question = questions.get(picked);
+            // queued under the lock, so the journal sees draws and refills in the order they happened
+            journal.questionDrawn(id, category, question.getId(), refilled);
+            return question;
+        }
+
+        synchronized void restore(List<Question> all, List<Long> drawn) {
+            questions = all;
+            reset(all.size());
+            remaining = order.length;
+            for (long questionId : drawn) {
+                for (int slot = 0; slot < remaining; slot++) {
+                    if (questions.get(order[slot]).getId() == questionId) {
+                        take(slot);
+                        break;
+                    }
+                }
+            }
+        }
+
+        private void reset(int size) {
+            grow(8L * (size - order.length));
+            order = new int[size];
+            position = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+                position[i] = i;
+            }
+        }
+
+        /**
+         * Moves the question in {@code slot} past the undrawn ones and
+         * returns its index.
+         */
+        private int take(int slot) {
+            int picked = order[slot];
+            remaining--;
+            int last = order[remaining];
+            order[slot] = last;
+            position[last] = slot;
+            order[remaining] = picked;
+            position[picked] = remaining;
+            return picked;
+        }
+    }
+
+    private void grow(long bytes) {
+        drawBytes.addAndGet(bytes);
+        heapAccount.add(bytes);
+    }
+
+    private static final class TeamScore {
+        final String name;
+        // position in start order, which is also the team's slot on the leaderboard
+        final int index;
+        final AtomicInteger score = new AtomicInteger();
+        // the score version that last changed this team; only written holding scoreLock
+        final AtomicLong changedAt = new AtomicLong();
+
+        TeamScore(String name, int index) {
+            this.name = name;
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.jeopardy.service;
+
+import com.example.jeopardy.dto.BuzzResult;
+import com.example.jeopardy.model.Question;
+import com.example.jeopardy.model.Team;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Where running games live, selected with {@code jeopardy.store.type}.
+ * {@link InMemoryGameStateStore} keeps them in this node only, backed by
+ * the {@link GameJournal}. {@link FileGameStateStore} shares them between
+ * nodes, so any node behind the load balancer can serve any game.
+ *
+ * <p>Score changes, draws and buzzes go through the store, not the
+ * session, so a shared store can apply them to the shared copy first;
+ * the {@link GameSession} handed out is this node's view of the game.
+ */
+public interface GameStateStore {
+
+    /**
+     * True when other nodes serve the same games. The shared copy is then
+     * the durable one and the local journal is not used.
+     */
+    boolean isShared();
+
+    /**
+     * Makes a newly started game findable.
+     */
+    void add(GameSession session);
+
+    /**
+     * The game with its latest scores, or {@code null} if there is none.
+     */
+    GameSession get(String gameId);
+
+    /**
+     * Adds {@code delta} to a team's score and returns the team with its
+     * new score, or {@code null} if no such team plays in the game.
+     */
+    Team adjustTeamScore(GameSession session, String teamName, int delta);
+
+    /**
+     * Applies several score changes as one step. Names that match no team
+     * are ignored.
+     */
+    void adjustTeamScores(GameSession session, Map<String, Integer> deltas);
+
+    /**
+     * Draws a question of {@code category} the game has not seen since
+     * the category last ran out, and opens it for buzzing, as
+     * {@link GameSession#drawQuestion} does. Returns {@code null} if the
+     * category has no questions.
+     */
+    Question drawQuestion(GameSession session, String category, List<Question> all, Random random,
+                          AliasTable table);
+
+    /**
+     * Ranks a team's buzz for the open question, as
+     * {@link GameSession#buzz} does, and hands the winning buzz to
+     * {@code onWin} once per question, on whichever node took it.
+     *
+     * @throws IllegalStateException if {@code questionId} is not open for buzzing
+     */
+    BuzzResult buzz(GameSession session, long questionId, String teamName, Consumer<BuzzResult> onWin);
+
+    /**
+     * Has {@code listener} told what another node changed in a game this
+     * node holds, once this node's copy has caught up, so it can pass the
+     * change on to the game's subscribers here. Games {@code watched}
+     * accepts are checked for changes in the background; the others only
+     * when a request reads them. A store that is not shared never calls
+     * it.
+     */
+    void bindRemoteChanges(Predicate<String> watched, BiConsumer<GameSession, RemoteChange> listener);
+
+    /**
+     * Drops the game from this node. Returns false if it was gone already.
+     */
+    boolean remove(GameSession session);
+
+    /**
+     * The games this node holds in memory, by id; live, not a copy.
+     */
+    Map<String, GameSession> localSessions();
+
+    /**
+     * What other nodes changed in a game since this node last looked,
+     * as far as event subscribers hear of it.
+     */
+    final class RemoteChange {
+        private final boolean scoresChanged;
+        private final long drawnQuestionId;
+        private final BuzzResult winner;
+
+        RemoteChange(boolean scoresChanged, long drawnQuestionId, BuzzResult winner) {
+            this.scoresChanged = scoresChanged;
+            this.drawnQuestionId = drawnQuestionId;
+            this.winner = winner;
+        }
+
+        public boolean isScoresChanged() {
+            return scoresChanged;
+        }
+
+        /**
+         * The question drawn last, or -1 if nothing was drawn.
+         */
+        public long getDrawnQuestionId() {
+            return drawnQuestionId;
+        }
+
+        /**
+         * The winning buzz for the open question if it came in, or
+         * {@code null}.
+         */
+        public BuzzResult getWinner() {
+            return winner;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.jeopardy.service;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Micrometer meters for the grading cascade: latency of each stage, the
+ * stage that decided each verdict and the similarity scores seen. When
+ * {@code jeopardy.metrics.grading.enabled} is false the evaluator skips
+ * the clock reads and meter updates entirely.
+ */
+@Component
+public class GradingMetrics {
+
+    private static final GradingMetrics DISABLED = new GradingMetrics(new SimpleMeterRegistry(), false);
+
+    private final boolean enabled;
+    private final Map<AiAnswerEvaluator.Stage, Timer> stageTimers = new EnumMap<>(AiAnswerEvaluator.Stage.class);
+    private final Map<AiAnswerEvaluator.Stage, Counter> verdicts = new EnumMap<>(AiAnswerEvaluator.Stage.class);
+    private final DistributionSummary jaroWinklerScores;
+    private final DistributionSummary cosineScores;
+    private final DistributionSummary coverageScores;
+    private final DistributionSummary ngramScores;
+
+    public GradingMetrics(MeterRegistry registry,
+                          @Value("${jeopardy.metrics.grading.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+        for (AiAnswerEvaluator.Stage stage : AiAnswerEvaluator.Stage.values()) {
+            String tag = stage.name().toLowerCase(Locale.ROOT);
+            if (stage != AiAnswerEvaluator.Stage.REJECTED) {
+                stageTimers.put(stage, Timer.builder("jeopardy.grading.stage")
+                        .description("Time spent in one stage of the answer grading cascade")
+                        .tag("stage", tag)
+                        .publishPercentileHistogram()
+                        .register(registry));
+            }
+            verdicts.put(stage, Counter.builder("jeopardy.grading.verdicts")
+                    .description("Verdicts by the stage that decided them")
+                    .tag("stage", tag)
+                    .register(registry));
+        }
+        this.jaroWinklerScores = score(registry, "jaro_winkler");
+        this.cosineScores = score(registry, "cosine");
+        this.coverageScores = score(registry, "token_coverage");
+        this.ngramScores = score(registry, "ngram");
+    }
+
+    /**
+     * Metrics that record nothing, for evaluators used outside Spring.
+     */
+    public static GradingMetrics disabled() {
+        return DISABLED;
+    }
+
+    private static DistributionSummary score(MeterRegistry registry, String similarity) {
+        return DistributionSummary.builder("jeopardy.grading.score")
+                .description("Similarity scores computed while grading")
+                .tag("similarity", similarity)
+                .serviceLevelObjectives(0.5, 0.6, 0.7, 0.8, 0.9, 0.95)
+                .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records the time since {@code startNanos} against {@code stage} and
+     * returns the current time, to be passed as the next stage's start.
+     */
+    long stageDone(AiAnswerEvaluator.Stage stage, long startNanos) {
+        long now = System.nanoTime();
+        stageTimers.get(stage).record(now - startNanos, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    void verdict(AiAnswerEvaluator.Stage stage) {
+        verdicts.get(stage).increment();
+    }
+
+    void jaroWinklerScore(double score) {
+        jaroWinklerScores.record(score);
+    }
+
+    void cosineScore(double score) {
+        if (Double.isFinite(score)) {
+            cosineScores.record(score);
+        }
+    }
+
+    void coverageScore(double score) {
+        coverageScores.record(score);
+    }
+
+    void ngramScore(double score) {
+        ngramScores.record(score);
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.jeopardy.service;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded stage that answer grading goes through, so a burst of
+ * submissions cannot take over the request threads that serve
+ * {@code /state} and {@code /random-question}. The request thread only
+ * enqueues; a CPU-sized set of workers grades.
+ *
+ * <p>Each game has its own queue. Up to {@code per-game-workers} workers
+ * grade a game's tasks at once, and a worker puts the game at the back
+ * after every task, so a busy classroom grades in parallel but never
+ * holds every worker while other games wait. Admission counts answers,
+ * not requests, and never waits: a game with {@code per-game-capacity}
+ * answers queued is turned away (429), and once the whole stage holds
+ * {@code queue-capacity} everyone is (503). A task bigger than a whole
+ * capacity is only admitted into an empty queue.
+ *
+ * <p>With {@code jeopardy.grading.admission.enabled=false} tasks run
+ * inline on the calling thread, as before the stage existed.
+ */
+@Component
+public class GradingStage implements MeterBinder {
+
+    private static final GradingStage DISABLED = new GradingStage(false, 0, 0, 0, 0);
+
+    private final boolean enabled;
+    private final int queueCapacity;
+    private final int perGameCapacity;
+    private final int perGameWorkers;
+    private final Map<String, GameQueue> queues = new ConcurrentHashMap<>();
+    // one entry per worker a game may use right now, each good for one task; it goes to the back after it
+    private final BlockingQueue<GameQueue> ready = new LinkedBlockingQueue<>();
+    // answers admitted and not graded yet
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong rejectedForGame = new AtomicLong();
+    private final AtomicLong rejectedOverloaded = new AtomicLong();
+    private final Thread[] workers;
+    private volatile boolean running;
+
+    public GradingStage(@Value("${jeopardy.grading.admission.enabled:true}") boolean enabled,
+                        @Value("${jeopardy.grading.workers:0}") int workers,
+                        @Value("${jeopardy.grading.queue-capacity:2048}") int queueCapacity,
+                        @Value("${jeopardy.grading.per-game-capacity:256}") int perGameCapacity,
+                        @Value("${jeopardy.grading.per-game-workers:0}") int perGameWorkers) {
+        this.enabled = enabled;
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.perGameCapacity = Math.max(1, perGameCapacity);
+        int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        // by default one worker is always left for the other games
+        this.perGameWorkers = perGameWorkers > 0 ? Math.min(perGameWorkers, threads) : Math.max(1, threads - 1);
+        this.workers = new Thread[enabled ? threads : 0];
+        this.running = enabled;
+        for (int i = 0; i < this.workers.length; i++) {
+            this.workers[i] = new Thread(this::work, "grading-" + i);
+            this.workers[i].setDaemon(true);
+            this.workers[i].start();
+        }
+    }
+
+    /**
+     * A stage that runs every task inline, for services used outside
+     * Spring.
+     */
+    public static GradingStage disabled() {
+        return DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues {@code task}, which grades {@code answers} answers, behind
+     * the game's earlier ones and completes the returned future with its
+     * result. When the stage is disabled the task has run by the time
+     * this returns.
+     *
+     * @throws Rejected if the game or the whole stage has no room; nothing was queued
+     */
+    public <T> CompletableFuture<T> submit(String gameId, int answers, Supplier<T> task) {
+        if (!enabled) {
+            try {
+                return CompletableFuture.completedFuture(task.get());
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        int weight = Math.max(1, answers);
+        int admitted = pending.addAndGet(weight);
+        if (admitted > queueCapacity && admitted > weight) {
+            pending.addAndGet(-weight);
+            rejectedOverloaded.incrementAndGet();
+            throw new Rejected(true);
+        }
+        Task<T> queued = new Task<>(task, weight);
+        while (true) {
+            GameQueue queue = queues.computeIfAbsent(gameId, GameQueue::new);
+            synchronized (queue) {
+                if (queue.retired) {
+                    // drained and dropped from the map just now; get its successor
+                    continue;
+                }
+                if (!running) {
+                    pending.addAndGet(-weight);
+                    throw new Rejected(true);
+                }
+                if (queue.queuedWeight > 0 && queue.queuedWeight + weight > perGameCapacity) {
+                    pending.addAndGet(-weight);
+                    rejectedForGame.incrementAndGet();
+                    throw new Rejected(false);
+                }
+                queue.tasks.add(queued);
+                queue.queuedWeight += weight;
+                queue.scheduleMore(ready, perGameWorkers);
+            }
+            return queued.result;
+        }
+    }
+
+    private void work() {
+        while (running) {
+            GameQueue queue;
+            try {
+                queue = ready.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            Task<?> task;
+            synchronized (queue) {
+                queue.scheduled--;
+                // a game has no more entries in ready than tasks queued, unless close() failed them all
+                task = queue.tasks.poll();
+                if (task == null) {
+                    return;
+                }
+                queue.queuedWeight -= task.weight;
+                queue.active++;
+            }
+            try {
+                task.run();
+            } finally {
+                pending.addAndGet(-task.weight);
+                synchronized (queue) {
+                    queue.active--;
+                    queue.scheduleMore(ready, perGameWorkers);
+                    if (queue.tasks.isEmpty() && queue.active == 0) {
+                        queue.retired = true;
+                        queues.remove(queue.gameId, queue);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Answers admitted and not graded yet.
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    /**
+     * Stops the workers and fails every task still queued, so no caller
+     * waits on a future that will never complete. Tasks already running
+     * finish normally.
+     */
+    @PreDestroy
+    public void close() {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        for (GameQueue queue : queues.values()) {
+            synchronized (queue) {
+                Task<?> task;
+                while ((task = queue.tasks.poll()) != null) {
+                    queue.queuedWeight -= task.weight;
+                    pending.addAndGet(-task.weight);
+                    task.result.completeExceptionally(new Rejected(true));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("jeopardy.grading.pending", this, GradingStage::getPending)
+                .description("Answers admitted for grading and not graded yet")
+                .register(registry);
+        FunctionCounter.builder("jeopardy.grading.rejected", rejectedForGame, AtomicLong::get)
+                .description("Grading tasks turned away at admission, by reason")
+                .tag("reason", "game")
+                .register(registry);
+        FunctionCounter.builder("jeopardy.grading.rejected", rejectedOverloaded, AtomicLong::get)
+                .description("Grading tasks turned away at admission, by reason")
+                .tag("reason", "overloaded")
+                .register(registry);
+    }
+
+    private static final class GameQueue {
+        final String gameId;
+        final ArrayDeque<Task<?>> tasks = new ArrayDeque<>();
+        int queuedWeight;
+        // entries in ready, never more than tasks queued; with active, never more than per-game-workers
+        int scheduled;
+        // workers on one of its tasks right now
+        int active;
+        // set once drained and dropped from the map; a submit that still holds it must look again
+        boolean retired;
+
+        GameQueue(String gameId) {
+            this.gameId = gameId;
+        }
+
+        /**
+         * Puts the game in {@code ready} once more if it has a task no
+         * entry is there for yet and a worker to spare. Called holding
+         * the queue.
+         */
+        void scheduleMore(BlockingQueue<GameQueue> ready, int perGameWorkers) {
+            if (scheduled < tasks.size() && scheduled + active < perGameWorkers) {
+                scheduled++;
+                ready.add(this);
+            }
+        }
+    }
+
+    private static final class Task<T> {
+        final Supplier<T> task;
+        final int weight;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        Task(Supplier<T> task, int weight) {
+            this.task = task;
+            this.weight = weight;
+        }
+
+        void run() {
+            try {
+                result.complete(task.get());
+            } catch (Throwable e) {
+                // an Error too, or the caller waits out its timeout and the worker is gone
+                result.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Thrown at admission when a task cannot be queued, and the failure of
+     * a queued task that the stage dropped on shutdown.
+     */
+    public static final class Rejected extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final boolean overloaded;
+
+        Rejected(boolean overloaded) {
+            super(overloaded ? "Grading is overloaded" : "Too many answers pending for this game", null, false, false);
+            this.overloaded = overloaded;
+        }
+
+        /**
+         * True when the whole stage is full, false when only the game's
+         * share is.
+         */
+        public boolean isOverloaded() {
+            return overloaded;
+        }
+    }
+}
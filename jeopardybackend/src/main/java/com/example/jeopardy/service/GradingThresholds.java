@@ -0,0 +1,69 @@
+package com.example.jeopardy.service;
+
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The similarity scores at which the fuzzy stages of the grading cascade
+ * accept an answer, from {@code jeopardy.grading.*-threshold}.
+ * {@link AnswerReplay} measures how a grid of them would grade a file of
+ * labeled submissions.
+ */
+@Component
+public final class GradingThresholds {
+
+    private static final GradingThresholds DEFAULTS = new GradingThresholds(0.90, 0.80, 0.6, 0.75);
+
+    private final double jaroWinkler;
+    private final double cosine;
+    private final double coverage;
+    private final double ngram;
+
+    public GradingThresholds(@Value("${jeopardy.grading.jaro-winkler-threshold:0.90}") double jaroWinkler,
+                             @Value("${jeopardy.grading.cosine-threshold:0.80}") double cosine,
+                             @Value("${jeopardy.grading.coverage-threshold:0.6}") double coverage,
+                             @Value("${jeopardy.grading.ngram-threshold:0.75}") double ngram) {
+        this.jaroWinkler = check("jaro-winkler", jaroWinkler);
+        this.cosine = check("cosine", cosine);
+        this.coverage = check("coverage", coverage);
+        this.ngram = check("ngram", ngram);
+    }
+
+    /**
+     * The thresholds the cascade was tuned with.
+     */
+    public static GradingThresholds defaults() {
+        return DEFAULTS;
+    }
+
+    private static double check(String stage, double threshold) {
+        if (!(threshold >= 0d && threshold <= 1d)) {
+            throw new IllegalArgumentException("jeopardy.grading." + stage + "-threshold must be between 0 and 1");
+        }
+        return threshold;
+    }
+
+    public double getJaroWinkler() {
+        return jaroWinkler;
+    }
+
+    public double getCosine() {
+        return cosine;
+    }
+
+    public double getCoverage() {
+        return coverage;
+    }
+
+    public double getNgram() {
+        return ngram;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "jaro-winkler %.3f, cosine %.3f, coverage %.3f, ngram %.3f",
+                jaroWinkler, cosine, coverage, ngram);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.jeopardy.service;
+
+import com.example.jeopardy.dto.BuzzResult;
+import com.example.jeopardy.model.Question;
+import com.example.jeopardy.model.Team;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Games held by this node alone, the default. Scores, draws and buzzes
+ * change in place on the session; restarts are covered by the journal.
+ */
+@Component
+@ConditionalOnProperty(name = "jeopardy.store.type", havingValue = "memory", matchIfMissing = true)
+public class InMemoryGameStateStore implements GameStateStore {
+
+    // one entry per running classroom game; lookups never take a global lock
+    private final Map<String, GameSession> sessions = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean isShared() {
+        return false;
+    }
+
+    @Override
+    public void add(GameSession session) {
+        sessions.put(session.getId(), session);
+    }
+
+    @Override
+    public GameSession get(String gameId) {
+        return gameId != null ? sessions.get(gameId) : null;
+    }
+
+    @Override
+    public Team adjustTeamScore(GameSession session, String teamName, int delta) {
+        return session.adjustTeamScore(teamName, delta);
+    }
+
+    @Override
+    public void adjustTeamScores(GameSession session, Map<String, Integer> deltas) {
+        session.adjustTeamScores(deltas);
+    }
+
+    @Override
+    public Question drawQuestion(GameSession session, String category, List<Question> all, Random random,
+                                 AliasTable table) {
+        return session.drawQuestion(category, all, random, table);
+    }
+
+    @Override
+    public BuzzResult buzz(GameSession session, long questionId, String teamName, Consumer<BuzzResult> onWin) {
+        return session.buzz(questionId, teamName, onWin);
+    }
+
+    @Override
+    public void bindRemoteChanges(Predicate<String> watched, BiConsumer<GameSession, RemoteChange> listener) {
+        // no other node changes these games
+    }
+
+    @Override
+    public boolean remove(GameSession session) {
+        return sessions.remove(session.getId(), session);
+    }
+
+    @Override
+    public Map<String, GameSession> localSessions() {
+        return sessions;
+    }
+}
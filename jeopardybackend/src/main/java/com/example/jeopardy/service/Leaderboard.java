@@ -0,0 +1,190 @@
+package com.example.jeopardy.service;
+
+import com.example.jeopardy.dto.LeaderboardEntry;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Teams of one game ranked by score, kept in an order-statistic treap so
+ * a score change, a team's rank and the start of the top-N list each
+ * cost O(log n). Ties rank by start order and share a competition rank
+ * (1, 2, 2, 4). Each team has one node for the life of the game, so
+ * updates allocate nothing.
+ */
+final class Leaderboard {
+
+    private final Node[] nodes;
+    private Node root;
+    // split results, only touched while holding the lock
+    private Node splitLeft;
+    private Node splitRight;
+
+    /**
+     * {@code scores.get(i)} is the live score of team {@code i}; the board
+     * re-reads it on {@link #refresh(int)}.
+     */
+    Leaderboard(List<String> names, List<AtomicInteger> scores) {
+        nodes = new Node[names.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new Node(names.get(i), i, scores.get(i));
+            nodes[i].score = nodes[i].source.get();
+            root = insert(root, nodes[i]);
+        }
+    }
+
+    /**
+     * Moves team {@code index} to wherever its current score ranks it.
+     * The score is read under the lock, so of two racing updates the
+     * later refresh always sees the later score.
+     */
+    synchronized void refresh(int index) {
+        Node node = nodes[index];
+        int score = node.source.get();
+        if (score == node.score) {
+            return;
+        }
+        root = remove(root, node);
+        node.score = score;
+        node.left = null;
+        node.right = null;
+        node.size = 1;
+        root = insert(root, node);
+    }
+
+    synchronized List<LeaderboardEntry> top(int count) {
+        List<LeaderboardEntry> entries = new ArrayList<>(Math.min(count, nodes.length));
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        int rank = 0;
+        int previous = 0;
+        while (entries.size() < count && (node != null || !path.isEmpty())) {
+            while (node != null) {
+                path.push(node);
+                node = node.left;
+            }
+            node = path.pop();
+            if (entries.isEmpty() || node.score != previous) {
+                rank = entries.size() + 1;
+                previous = node.score;
+            }
+            entries.add(new LeaderboardEntry(rank, node.name, node.score));
+            node = node.right;
+        }
+        return entries;
+    }
+
+    synchronized LeaderboardEntry rankOf(int index) {
+        Node team = nodes[index];
+        int above = 0;
+        for (Node node = root; node != null; ) {
+            if (node.score > team.score) {
+                above += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return new LeaderboardEntry(above + 1, team.name, team.score);
+    }
+
+    private static boolean before(Node a, Node b) {
+        return a.score != b.score ? a.score > b.score : a.order < b.order;
+    }
+
+    private Node insert(Node tree, Node node) {
+        if (tree == null) {
+            return node;
+        }
+        if (node.priority > tree.priority) {
+            split(tree, node);
+            node.left = splitLeft;
+            node.right = splitRight;
+            return update(node);
+        }
+        if (before(node, tree)) {
+            tree.left = insert(tree.left, node);
+        } else {
+            tree.right = insert(tree.right, node);
+        }
+        return update(tree);
+    }
+
+    private Node remove(Node tree, Node node) {
+        if (tree == node) {
+            return merge(tree.left, tree.right);
+        }
+        if (before(node, tree)) {
+            tree.left = remove(tree.left, node);
+        } else {
+            tree.right = remove(tree.right, node);
+        }
+        return update(tree);
+    }
+
+    /**
+     * Splits {@code tree} into the nodes ranked before {@code key}
+     * ({@link #splitLeft}) and the rest ({@link #splitRight}).
+     */
+    private void split(Node tree, Node key) {
+        if (tree == null) {
+            splitLeft = null;
+            splitRight = null;
+        } else if (before(tree, key)) {
+            split(tree.right, key);
+            tree.right = splitLeft;
+            splitLeft = update(tree);
+        } else {
+            split(tree.left, key);
+            tree.left = splitRight;
+            splitRight = update(tree);
+        }
+    }
+
+    private Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return update(left);
+        }
+        right.left = merge(left, right.left);
+        return update(right);
+    }
+
+    private static Node update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+        return node;
+    }
+
+    private static int size(Node node) {
+        return node != null ? node.size : 0;
+    }
+
+    private static final class Node {
+        final String name;
+        final int order;
+        final AtomicInteger source;
+        final int priority;
+        int score;
+        int size = 1;
+        Node left;
+        Node right;
+
+        Node(String name, int order, AtomicInteger source) {
+            this.name = name;
+            this.order = order;
+            this.source = source;
+            // fixed pseudo-random heap priority; the mix keeps start order from degenerating the treap
+            long mixed = (order + 1) * 0x9E3779B97F4A7C15L;
+            this.priority = (int) (mixed ^ (mixed >>> 29));
+        }
+    }
+}
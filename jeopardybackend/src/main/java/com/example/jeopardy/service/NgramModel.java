@@ -0,0 +1,147 @@
+package com.example.jeopardy.service;
+
+import java.util.Arrays;
+
+/**
+ * Character trigram weights of a bank's expected answers, for the n-gram
+ * stage of the grading cascade. Each distinct token of the strict form is
+ * padded with a boundary mark and cut into trigrams, so a misspelt word
+ * still shares most of its trigrams with the right one.
+ *
+ * <p>The strict form only holds {@code a-z} and {@code 0-9}, so a trigram
+ * over those 36 chars plus the boundary is coded exactly as an index below
+ * {@link #DIMENSIONS}; no two trigrams collide. Trigrams are weighted by
+ * smoothed inverse document frequency over the bank's answers, so the
+ * ones every answer shares ("law", "the") count for little.
+ */
+final class NgramModel {
+
+    private static final int ALPHABET = 37;
+    static final int DIMENSIONS = ALPHABET * ALPHABET * ALPHABET;
+
+    /**
+     * Weighs every trigram the same, for answers compiled outside a bank.
+     */
+    static final NgramModel UNIFORM = new NgramModel(new int[DIMENSIONS], 0);
+
+    private final int documents;
+    private final int[] documentFrequency;
+    private final float[] idf;
+
+    /**
+     * {@code documentFrequency[g]} is how many of {@code documents}
+     * answers contain trigram {@code g}.
+     */
+    NgramModel(int[] documentFrequency, int documents) {
+        if (documentFrequency.length != DIMENSIONS) {
+            throw new IllegalArgumentException("Expected " + DIMENSIONS + " document frequencies");
+        }
+        this.documents = documents;
+        this.documentFrequency = documentFrequency;
+        this.idf = new float[DIMENSIONS];
+        for (int gram = 0; gram < DIMENSIONS; gram++) {
+            idf[gram] = documents == 0 ? 1f
+                    : (float) (Math.log((1d + documents) / (1d + documentFrequency[gram])) + 1d);
+        }
+    }
+
+    /**
+     * Counts the trigrams of every answer the bank compiled.
+     */
+    static NgramModel fit(Iterable<CompiledAnswer> answers) {
+        int[] documentFrequency = new int[DIMENSIONS];
+        int documents = 0;
+        for (CompiledAnswer answer : answers) {
+            if (answer == null) {
+                continue;
+            }
+            for (int gram : answer.getNgrams()) {
+                documentFrequency[gram]++;
+            }
+            documents++;
+        }
+        return new NgramModel(documentFrequency, documents);
+    }
+
+    int getDocuments() {
+        return documents;
+    }
+
+    int getDocumentFrequency(int gram) {
+        return documentFrequency[gram];
+    }
+
+    /**
+     * Writes the trigram codes of token {@code buffer[start, end)} to
+     * {@code out} from {@code at} on and returns the new end; a token of
+     * length n has n trigrams.
+     */
+    static int trigrams(char[] buffer, int start, int end, int[] out, int at) {
+        int previous = 0;
+        int current = code(buffer[start]);
+        for (int i = start + 1; i <= end; i++) {
+            int next = i < end ? code(buffer[i]) : 0;
+            out[at++] = (previous * ALPHABET + current) * ALPHABET + next;
+            previous = current;
+            current = next;
+        }
+        return at;
+    }
+
+    private static int code(char c) {
+        return c >= 'a' ? c - 'a' + 1 : c - '0' + 27;
+    }
+
+    /**
+     * Turns sorted trigram codes, repeats included, into the distinct codes
+     * written back to the front of {@code grams} and their L2-normalized
+     * tf-idf weights.
+     */
+    float[] weigh(int[] grams, int count) {
+        float[] weights = new float[count];
+        int distinct = 0;
+        double norm = 0d;
+        for (int i = 0; i < count; ) {
+            int gram = grams[i];
+            int tf = 1;
+            while (++i < count && grams[i] == gram) {
+                tf++;
+            }
+            float weight = tf * idf[gram];
+            grams[distinct] = gram;
+            weights[distinct++] = weight;
+            norm += (double) weight * weight;
+        }
+        float scale = norm == 0d ? 0f : (float) (1d / Math.sqrt(norm));
+        for (int i = 0; i < distinct; i++) {
+            weights[i] *= scale;
+        }
+        return Arrays.copyOf(weights, distinct);
+    }
+
+    /**
+     * Cosine similarity between a weighed expected answer and the sorted
+     * trigram codes of a submission, in one merge pass over both.
+     */
+    double cosine(int[] expected, float[] expectedWeights, int[] provided, int providedCount) {
+        double dot = 0d;
+        double norm = 0d;
+        int e = 0;
+        for (int p = 0; p < providedCount; ) {
+            int gram = provided[p];
+            int tf = 1;
+            while (++p < providedCount && provided[p] == gram) {
+                tf++;
+            }
+            double weight = tf * idf[gram];
+            norm += weight * weight;
+            while (e < expected.length && expected[e] < gram) {
+                e++;
+            }
+            if (e < expected.length && expected[e] == gram) {
+                dot += weight * expectedWeights[e];
+            }
+        }
+        return norm == 0d ? 0d : dot / Math.sqrt(norm);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.jeopardy.service;
+
+import com.example.jeopardy.model.Question;
+
+import java.util.*;
+import java.util.function.LongFunction;
+
+/**
+ * Immutable snapshot of the question bank together with the compiled
+ * expected answers. A reload builds a whole new snapshot and swaps it
+ * in, so readers never see a half-loaded bank.
+ */
+public final class QuestionBank {
+
+    private final LongFunction<Question> questionsById;
+    private final Map<String, List<Question>> questionsByCategory;
+    private final LongFunction<CompiledAnswer> answersById;
+    private final int size;
+    private final NgramModel ngramModel;
+
+    private QuestionBank(Builder builder) {
+        this(builder.questionsById.size(), builder.questionsByCategory,
+                builder.questionsById::get, builder.answersById::get, builder.ngramModel);
+    }
+
+    /**
+     * A bank whose questions and compiled answers are looked up, and
+     * possibly built, on demand; see {@link QuestionBankSnapshot}.
+     */
+    QuestionBank(int size, Map<String, List<Question>> questionsByCategory,
+                 LongFunction<Question> questionsById, LongFunction<CompiledAnswer> answersById,
+                 NgramModel ngramModel) {
+        Map<String, List<Question>> byCategory = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Question>> entry : questionsByCategory.entrySet()) {
+            byCategory.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+        }
+        this.questionsByCategory = Collections.unmodifiableMap(byCategory);
+        this.questionsById = questionsById;
+        this.answersById = answersById;
+        this.size = size;
+        this.ngramModel = ngramModel;
+    }
+
+    public Question getQuestion(long id) {
+        return questionsById.apply(id);
+    }
+
+    public CompiledAnswer getCompiledAnswer(long id) {
+        return answersById.apply(id);
+    }
+
+    public List<Question> getQuestions(String category) {
+        return questionsByCategory.get(category);
+    }
+
+    public Map<String, List<Question>> getQuestionsByCategory() {
+        return questionsByCategory;
+    }
+
+    public Set<String> getCategories() {
+        return questionsByCategory.keySet();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Trigram weights the bank's compiled answers were weighed with.
+     */
+    NgramModel getNgramModel() {
+        return ngramModel;
+    }
+
+    /**
+     * Collects questions for one snapshot. A builder is single-use and
+     * not thread-safe; {@link #build()} hands its collections over.
+     */
+    public static class Builder {
+        private final AiAnswerEvaluator answerEvaluator;
+        private final Map<Long, Question> questionsById = new HashMap<>();
+        private final Map<String, List<Question>> questionsByCategory = new LinkedHashMap<>();
+        private final Map<Long, CompiledAnswer> answersById = new HashMap<>();
+        private long nextId = 1L;
+        private boolean built;
+        private NgramModel ngramModel;
+
+        public Builder(AiAnswerEvaluator answerEvaluator) {
+            this.answerEvaluator = answerEvaluator;
+        }
+
+        public Builder add(String category, String text, String answer) {
+            return add(nextId, category, text, answer);
+        }
+
+        public Builder add(String category, String text, String answer, List<String> aliases) {
+            return add(nextId, category, text, answer, aliases);
+        }
+
+        public Builder add(long id, String category, String text, String answer) {
+            return add(id, category, text, answer, List.of());
+        }
+
+        /**
+         * Adds a question whose answer is also given by any of
+         * {@code aliases}, such as an acronym and its expansion.
+         */
+        public Builder add(long id, String category, String text, String answer, List<String> aliases) {
+            if (built) {
+                throw new IllegalStateException("Question bank already built");
+            }
+            if (category == null || category.isBlank() || text == null || answer == null) {
+                throw new IllegalArgumentException("Question " + id + " needs a category, text and answer");
+            }
+            Question q = new Question(id, category, text, answer);
+            if (questionsById.putIfAbsent(id, q) != null) {
+                throw new IllegalArgumentException("Duplicate question id " + id);
+            }
+            questionsByCategory.computeIfAbsent(category, k -> new ArrayList<>()).add(q);
+            answersById.put(id, answerEvaluator.compile(answer, aliases));
+            nextId = Math.max(nextId, id + 1);
+            return this;
+        }
+
+        public QuestionBank build() {
+            built = true;
+            // trigram weights depend on the whole bank, so they are only known now
+            NgramModel ngramModel = NgramModel.fit(answersById.values());
+            answersById.replaceAll((id, answer) -> answer == null ? null : answer.withNgramModel(ngramModel));
+            this.ngramModel = ngramModel;
+            return new QuestionBank(this);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.jeopardy.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Reads question banks from JSON or CSV without holding the raw file in
+ * memory. A directory is read file by file in name order.
+ *
+ * <p>JSON files hold an array of {@code {"id", "category", "text", "answer"}}
+ * objects, optionally with an {@code "aliases"} array of other accepted
+ * answers. CSV files have the columns {@code category,text,answer},
+ * {@code id,category,text,answer} or {@code id,category,text,answer,aliases}
+ * (aliases separated by {@code |}) with an optional header row. Ids are
+ * optional in JSON and in three-column CSV; missing ones continue from
+ * the highest id seen.
+ *
+ * <p>A single {@code .qbank} file is a precompiled snapshot and is mapped
+ * rather than parsed; see {@link QuestionBankSnapshot}.
+ */
+public class QuestionBankLoader {
+
+    public static final String BUILT_IN_RESOURCE = "/questions.json";
+
+    private final AiAnswerEvaluator answerEvaluator;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public QuestionBankLoader(AiAnswerEvaluator answerEvaluator) {
+        this.answerEvaluator = answerEvaluator;
+    }
+
+    public QuestionBank loadBuiltIn() {
+        try (InputStream in = QuestionBankLoader.class.getResourceAsStream(BUILT_IN_RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing built-in question bank " + BUILT_IN_RESOURCE);
+            }
+            QuestionBank.Builder builder = new QuestionBank.Builder(answerEvaluator);
+            readJson(in, builder);
+            return builder.build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public QuestionBank load(Path path) throws IOException {
+        if (!Files.isDirectory(path) && QuestionBankSnapshot.isSnapshot(path)) {
+            return QuestionBankSnapshot.map(path);
+        }
+        QuestionBank.Builder builder = new QuestionBank.Builder(answerEvaluator);
+        for (Path file : bankFiles(path)) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+                if (isJson(file)) {
+                    readJson(in, builder);
+                } else {
+                    readCsv(new InputStreamReader(in, StandardCharsets.UTF_8), builder);
+                }
+            } catch (IllegalArgumentException | IOException e) {
+                throw new IOException(file + ": " + e.getMessage(), e);
+            }
+        }
+        return builder.build();
+    }
+
+    static boolean isBankFile(Path file) {
+        return isJson(file) || isCsv(file);
+    }
+
+    private static boolean isJson(Path file) {
+        return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json");
+    }
+
+    private static boolean isCsv(Path file) {
+        return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv");
+    }
+
+    private List<Path> bankFiles(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return List.of(path);
+        }
+        try (Stream<Path> files = Files.list(path)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(QuestionBankLoader::isBankFile)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private void readJson(InputStream in, QuestionBank.Builder builder) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of questions");
+            }
+            // bind one question object at a time instead of the whole array
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                JsonNode entry = objectMapper.readTree(parser);
+                String category = entry.path("category").asText(null);
+                String text = entry.path("text").asText(null);
+                String answer = entry.path("answer").asText(null);
+                List<String> aliases = new ArrayList<>();
+                for (JsonNode alias : entry.path("aliases")) {
+                    aliases.add(alias.asText());
+                }
+                if (entry.hasNonNull("id")) {
+                    builder.add(entry.get("id").asLong(), category, text, answer, aliases);
+                } else {
+                    builder.add(category, text, answer, aliases);
+                }
+            }
+        }
+    }
+
+    private void readCsv(Reader reader, QuestionBank.Builder builder) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> row;
+        boolean first = true;
+        while ((row = csv.next()) != null) {
+            if (row.size() == 1 && row.get(0).isBlank()) {
+                continue;
+            }
+            if (first) {
+                first = false;
+                if ("category".equalsIgnoreCase(row.get(0).trim()) || "id".equalsIgnoreCase(row.get(0).trim())) {
+                    continue;
+                }
+            }
+            if (row.size() == 3) {
+                builder.add(row.get(0), row.get(1), row.get(2));
+            } else if (row.size() == 4) {
+                builder.add(Long.parseLong(row.get(0).trim()), row.get(1), row.get(2), row.get(3));
+            } else if (row.size() == 5) {
+                List<String> aliases = row.get(4).isBlank() ? List.of() : List.of(row.get(4).split("\\|"));
+                builder.add(Long.parseLong(row.get(0).trim()), row.get(1), row.get(2), row.get(3), aliases);
+            } else {
+                throw new IllegalArgumentException("Expected 3 to 5 columns but got " + row.size() + ": " + row);
+            }
+        }
+    }
+
+    /**
+     * Minimal RFC 4180 reader: quoted fields may contain commas, doubled
+     * quotes and line breaks.
+     */
+    private static final class CsvReader {
+        private final Reader reader;
+        private final StringBuilder field = new StringBuilder();
+
+        CsvReader(Reader reader) {
+            this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+        }
+
+        List<String> next() throws IOException {
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+            List<String> row = new ArrayList<>(4);
+            boolean quoted = false;
+            field.setLength(0);
+            while (c != -1) {
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        int peek = reader.read();
+                        if (peek == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            reader.reset();
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    row.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = reader.read();
+            }
+            row.add(field.toString());
+            return row;
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package com.example.jeopardy.service;
+
+import com.example.jeopardy.model.Question;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Compact binary form of a question bank ({@code .qbank}), compiled once
+ * offline and memory-mapped at startup instead of parsing JSON/CSV and
+ * compiling every answer on each boot.
+ *
+ * <p>The file holds a table of questions sorted by id, an index array per
+ * category, a table of distinct strings (texts and answers that repeat
+ * are stored once), each answer already normalized and tokenized with
+ * the strict forms of its aliases, and the bank's trigram document
+ * frequencies for the n-gram stage.
+ * Mapping it reads nothing but the category names; a question or
+ * compiled answer is decoded the first time it is asked for and then
+ * kept. Replace a snapshot by renaming a new file over it, never by
+ * rewriting it in place, since running banks map the file.
+ *
+ * <p>Compile one with {@code QuestionBankSnapshot <bank file or directory> <output.qbank>}.
+ */
+public final class QuestionBankSnapshot {
+
+    public static final String EXTENSION = ".qbank";
+
+    private static final int MAGIC = 0x4A514231; // "JQB1"
+    // bump whenever TextNormalizer's output changes, so stale snapshots are rejected
+    private static final int FORMAT_VERSION = 3;
+    private static final int HEADER_BYTES = 10 * 4;
+    private static final int QUESTION_BYTES = 8 + 4 * 4;
+    private static final int CATEGORY_BYTES = 3 * 4;
+
+    private QuestionBankSnapshot() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: QuestionBankSnapshot <bank file or directory> <output" + EXTENSION + ">");
+            System.exit(2);
+        }
+        AiAnswerEvaluator evaluator = new AiAnswerEvaluator();
+        QuestionBank bank = new QuestionBankLoader(evaluator).load(Paths.get(args[0]));
+        Path output = Paths.get(args[1]);
+        write(bank, output);
+        System.out.printf("Wrote %d questions in %d categories to %s (%d bytes)%n",
+                bank.size(), bank.getCategories().size(), output, Files.size(output));
+    }
+
+    static boolean isSnapshot(Path file) {
+        return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(EXTENSION);
+    }
+
+    /**
+     * Writes {@code bank} to {@code file}, through a temporary file that is
+     * then moved into place.
+     */
+    public static void write(QuestionBank bank, Path file) throws IOException {
+        List<Question> questions = new ArrayList<>(bank.size());
+        for (List<Question> category : bank.getQuestionsByCategory().values()) {
+            questions.addAll(category);
+        }
+        questions.sort(Comparator.comparingLong(Question::getId));
+        Map<Long, Integer> indexById = new HashMap<>();
+        for (int i = 0; i < questions.size(); i++) {
+            indexById.put(questions.get(i).getId(), i);
+        }
+        Map<String, Integer> categoryIndexes = new HashMap<>();
+        for (String category : bank.getCategories()) {
+            categoryIndexes.put(category, categoryIndexes.size());
+        }
+
+        Map<String, Integer> stringIds = new LinkedHashMap<>();
+        ByteArrayOutputStream answerBytes = new ByteArrayOutputStream();
+        DataOutputStream answers = new DataOutputStream(answerBytes);
+        ByteArrayOutputStream questionBytes = new ByteArrayOutputStream();
+        DataOutputStream table = new DataOutputStream(questionBytes);
+        for (Question question : questions) {
+            table.writeLong(question.getId());
+            table.writeInt(categoryIndexes.get(question.getCategory()));
+            table.writeInt(intern(stringIds, question.getText()));
+            table.writeInt(intern(stringIds, question.getAnswer()));
+            CompiledAnswer compiled = bank.getCompiledAnswer(question.getId());
+            table.writeInt(compiled == null ? -1 : answers.size());
+            if (compiled != null) {
+                if (compiled.getStrict().length > 0xFFFF) {
+                    throw new IOException("Answer of question " + question.getId() + " is too long for a snapshot");
+                }
+                answers.writeInt(intern(stringIds, compiled.getCleaned()));
+                answers.writeInt(intern(stringIds, new String(compiled.getLowerCased())));
+                // the strict form is ASCII letters and digits only, so one byte per char
+                String strict = new String(compiled.getStrict());
+                answers.writeShort(strict.length());
+                answers.write(strict.getBytes(StandardCharsets.US_ASCII));
+                List<Long> hashes = new ArrayList<>(compiled.getTokenCount());
+                List<char[]> tokens = new ArrayList<>(compiled.getTokenCount());
+                compiled.forEachToken((hash, token) -> {
+                    hashes.add(hash);
+                    tokens.add(token);
+                });
+                // every token is a run of the strict form; store where, not the chars again
+                answers.writeShort(tokens.size());
+                for (int t = 0; t < tokens.size(); t++) {
+                    answers.writeLong(hashes.get(t));
+                    answers.writeShort(strict.indexOf(new String(tokens.get(t))));
+                    answers.writeShort(tokens.get(t).length);
+                }
+                // the automaton is cheap to rebuild, so only the alias strict forms are stored
+                char[][] aliases = compiled.getAliases().getAliases();
+                answers.writeShort(aliases.length);
+                for (char[] alias : aliases) {
+                    if (alias.length > 0xFFFF) {
+                        throw new IOException("Alias of question " + question.getId() + " is too long for a snapshot");
+                    }
+                    answers.writeShort(alias.length);
+                    answers.write(new String(alias).getBytes(StandardCharsets.US_ASCII));
+                }
+            }
+        }
+
+        ByteArrayOutputStream categoryBytes = new ByteArrayOutputStream();
+        DataOutputStream categories = new DataOutputStream(categoryBytes);
+        ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+        DataOutputStream indexes = new DataOutputStream(indexBytes);
+        for (Map.Entry<String, List<Question>> entry : bank.getQuestionsByCategory().entrySet()) {
+            categories.writeInt(intern(stringIds, entry.getKey()));
+            categories.writeInt(entry.getValue().size());
+            categories.writeInt(indexes.size());
+            for (Question question : entry.getValue()) {
+                indexes.writeInt(indexById.get(question.getId()));
+            }
+        }
+
+        ByteArrayOutputStream stringBytes = new ByteArrayOutputStream();
+        DataOutputStream strings = new DataOutputStream(stringBytes);
+        ByteArrayOutputStream utf8 = new ByteArrayOutputStream();
+        for (String value : stringIds.keySet()) {
+            strings.writeInt(utf8.size());
+            utf8.write(value.getBytes(StandardCharsets.UTF_8));
+        }
+        strings.writeInt(utf8.size());
+        utf8.writeTo(strings);
+
+        // only the trigrams that occur, as (code, document frequency) pairs
+        NgramModel ngramModel = bank.getNgramModel();
+        ByteArrayOutputStream ngramBytes = new ByteArrayOutputStream();
+        DataOutputStream ngrams = new DataOutputStream(ngramBytes);
+        ngrams.writeInt(ngramModel.getDocuments());
+        for (int gram = 0; gram < NgramModel.DIMENSIONS; gram++) {
+            if (ngramModel.getDocumentFrequency(gram) > 0) {
+                ngrams.writeInt(gram);
+                ngrams.writeInt(ngramModel.getDocumentFrequency(gram));
+            }
+        }
+
+        int questionsAt = HEADER_BYTES;
+        int categoriesAt = questionsAt + questionBytes.size();
+        int indexesAt = categoriesAt + categoryBytes.size();
+        int stringsAt = indexesAt + indexBytes.size();
+        int answersAt = stringsAt + stringBytes.size();
+        int ngramsAt = answersAt + answerBytes.size();
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(questions.size());
+            out.writeInt(bank.getQuestionsByCategory().size());
+            out.writeInt(stringIds.size());
+            out.writeInt(categoriesAt);
+            out.writeInt(indexesAt);
+            out.writeInt(stringsAt);
+            out.writeInt(answersAt);
+            out.writeInt(ngramsAt);
+            questionBytes.writeTo(out);
+            categoryBytes.writeTo(out);
+            indexBytes.writeTo(out);
+            stringBytes.writeTo(out);
+            answerBytes.writeTo(out);
+            ngramBytes.writeTo(out);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int intern(Map<String, Integer> stringIds, String value) {
+        return stringIds.computeIfAbsent(value, k -> stringIds.size());
+    }
+
+    /**
+     * Maps a snapshot written by {@link #write} as a bank.
+     */
+    static QuestionBank map(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not a question bank snapshot");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException(file + " was compiled by an incompatible version; compile it again");
+        }
+        return new Mapped(buffer).bank();
+    }
+
+    /**
+     * Lazily decoded view of a mapped snapshot. The buffer is only read
+     * with absolute gets, so threads can share it.
+     */
+    private static final class Mapped {
+        private final ByteBuffer buffer;
+        private final int questionCount;
+        private final int categoriesAt;
+        private final int indexesAt;
+        private final int stringsAt;
+        private final int answersAt;
+        private final int stringCount;
+        private final AtomicReferenceArray<Question> questions;
+        private final AtomicReferenceArray<CompiledAnswer> answers;
+        // decoded strings, so repeated texts and answers share one instance on the heap too
+        private final AtomicReferenceArray<String> strings;
+        private final String[] categoryNames;
+        private final NgramModel ngramModel;
+
+        Mapped(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.questionCount = buffer.getInt(8);
+            int categoryCount = buffer.getInt(12);
+            this.stringCount = buffer.getInt(16);
+            this.categoriesAt = buffer.getInt(20);
+            this.indexesAt = buffer.getInt(24);
+            this.stringsAt = buffer.getInt(28);
+            this.answersAt = buffer.getInt(32);
+            this.questions = new AtomicReferenceArray<>(questionCount);
+            this.answers = new AtomicReferenceArray<>(questionCount);
+            this.strings = new AtomicReferenceArray<>(stringCount);
+            this.categoryNames = new String[categoryCount];
+            int ngramsAt = buffer.getInt(36);
+            int[] documentFrequency = new int[NgramModel.DIMENSIONS];
+            for (int at = ngramsAt + 4; at < buffer.capacity(); at += 8) {
+                documentFrequency[buffer.getInt(at)] = buffer.getInt(at + 4);
+            }
+            this.ngramModel = new NgramModel(documentFrequency, buffer.getInt(ngramsAt));
+        }
+
+        QuestionBank bank() {
+            Map<String, List<Question>> byCategory = new LinkedHashMap<>();
+            for (int c = 0; c < categoryNames.length; c++) {
+                int at = categoriesAt + c * CATEGORY_BYTES;
+                categoryNames[c] = string(buffer.getInt(at));
+                byCategory.put(categoryNames[c], new CategoryList(buffer.getInt(at + 4),
+                        indexesAt + buffer.getInt(at + 8)));
+            }
+            return new QuestionBank(questionCount, byCategory,
+                    id -> {
+                        int index = indexOf(id);
+                        return index >= 0 ? question(index) : null;
+                    },
+                    id -> {
+                        int index = indexOf(id);
+                        return index >= 0 ? answer(index) : null;
+                    },
+                    ngramModel);
+        }
+
+        private int indexOf(long id) {
+            int low = 0;
+            int high = questionCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                long midId = buffer.getLong(HEADER_BYTES + mid * QUESTION_BYTES);
+                if (midId < id) {
+                    low = mid + 1;
+                } else if (midId > id) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        Question question(int index) {
+            Question question = questions.get(index);
+            if (question == null) {
+                int at = HEADER_BYTES + index * QUESTION_BYTES;
+                question = new Question(buffer.getLong(at), categoryNames[buffer.getInt(at + 8)],
+                        string(buffer.getInt(at + 12)), string(buffer.getInt(at + 16)));
+                // a racing thread may have decoded it too; keep whichever landed first
+                if (!questions.compareAndSet(index, null, question)) {
+                    question = questions.get(index);
+                }
+            }
+            return question;
+        }
+
+        private CompiledAnswer answer(int index) {
+            CompiledAnswer answer = answers.get(index);
+            if (answer == null) {
+                int offset = buffer.getInt(HEADER_BYTES + index * QUESTION_BYTES + 20);
+                if (offset < 0) {
+                    return null;
+                }
+                int at = answersAt + offset;
+                String cleaned = string(buffer.getInt(at));
+                char[] lowerCased = string(buffer.getInt(at + 4)).toCharArray();
+                at += 8;
+                char[] strict = new char[buffer.getShort(at) & 0xFFFF];
+                at += 2;
+                for (int i = 0; i < strict.length; i++) {
+                    strict[i] = (char) buffer.get(at + i);
+                }
+                at += strict.length;
+                int tokenCount = buffer.getShort(at) & 0xFFFF;
+                at += 2;
+                long[] hashes = new long[tokenCount];
+                char[][] tokens = new char[tokenCount][];
+                for (int t = 0; t < tokenCount; t++) {
+                    hashes[t] = buffer.getLong(at);
+                    int start = buffer.getShort(at + 8) & 0xFFFF;
+                    tokens[t] = Arrays.copyOfRange(strict, start, start + (buffer.getShort(at + 10) & 0xFFFF));
+                    at += 12;
+                }
+                int aliasCount = buffer.getShort(at) & 0xFFFF;
+                at += 2;
+                List<char[]> aliases = new ArrayList<>(aliasCount);
+                for (int a = 0; a < aliasCount; a++) {
+                    char[] alias = new char[buffer.getShort(at) & 0xFFFF];
+                    at += 2;
+                    for (int i = 0; i < alias.length; i++) {
+                        alias[i] = (char) buffer.get(at + i);
+                    }
+                    at += alias.length;
+                    aliases.add(alias);
+                }
+                answer = new CompiledAnswer(cleaned, lowerCased, strict, hashes, tokens,
+                        AliasMatcher.of(aliases), ngramModel);
+                if (!answers.compareAndSet(index, null, answer)) {
+                    answer = answers.get(index);
+                }
+            }
+            return answer;
+        }
+
+        private String string(int id) {
+            if (id < 0 || id >= stringCount) {
+                throw new IllegalStateException("Corrupt question bank snapshot: string " + id);
+            }
+            String value = strings.get(id);
+            if (value == null) {
+                int bytesAt = stringsAt + 4 * (stringCount + 1);
+                int start = buffer.getInt(stringsAt + 4 * id);
+                int end = buffer.getInt(stringsAt + 4 * (id + 1));
+                byte[] utf8 = new byte[end - start];
+                buffer.get(bytesAt + start, utf8);
+                value = new String(utf8, StandardCharsets.UTF_8);
+                if (!strings.compareAndSet(id, null, value)) {
+                    value = strings.get(id);
+                }
+            }
+            return value;
+        }
+
+        /**
+         * One category's questions, read through its index array.
+         */
+        private final class CategoryList extends AbstractList<Question> implements RandomAccess {
+            private final int size;
+            private final int indexAt;
+
+            CategoryList(int size, int indexAt) {
+                this.size = size;
+                this.indexAt = indexAt;
+            }
+
+            @Override
+            public Question get(int i) {
+                Objects.checkIndex(i, size);
+                return question(buffer.getInt(indexAt + 4 * i));
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.jeopardy.service;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads the external question bank named by {@code jeopardy.questions.path}
+ * (a JSON/CSV file or a directory of them) and reloads it whenever it
+ * changes on disk. A bank that fails to load is logged and the previous
+ * snapshot stays live. Without the property the built-in bank is used.
+ */
+@Component
+public class QuestionBankWatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(QuestionBankWatcher.class);
+
+    // editors often write a file in several steps; wait for them to settle
+    private static final long SETTLE_MILLIS = 250;
+
+    private final GameService gameService;
+    private final String configuredPath;
+    private final boolean watch;
+    private WatchService watchService;
+    private Thread watcherThread;
+
+    public QuestionBankWatcher(GameService gameService,
+                               @Value("${jeopardy.questions.path:}") String configuredPath,
+                               @Value("${jeopardy.questions.watch:true}") boolean watch) {
+        this.gameService = gameService;
+        this.configuredPath = configuredPath;
+        this.watch = watch;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (configuredPath == null || configuredPath.isBlank()) {
+            return;
+        }
+        Path path = Paths.get(configuredPath).toAbsolutePath();
+        // fail startup on a broken bank rather than silently serving the built-in one
+        gameService.setQuestionBank(gameService.getQuestionBankLoader().load(path));
+        log.info("Loaded {} questions from {}", gameService.getQuestionBank().size(), path);
+        if (!watch) {
+            return;
+        }
+        Path dir = Files.isDirectory(path) ? path : path.getParent();
+        watchService = dir.getFileSystem().newWatchService();
+        dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        watcherThread = new Thread(() -> watchLoop(path), "question-bank-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private void watchLoop(Path path) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean relevant = pollRelevant(key, path);
+                // swallow the burst of events a single save produces
+                WatchKey more;
+                while ((more = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    relevant |= pollRelevant(more, path);
+                }
+                if (relevant) {
+                    reload(path);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // shutting down
+        }
+    }
+
+    private boolean pollRelevant(WatchKey key, Path path) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                relevant = true;
+                continue;
+            }
+            Path changed = ((Path) key.watchable()).resolve((Path) event.context());
+            relevant |= Files.isDirectory(path) ? QuestionBankLoader.isBankFile(changed) : changed.equals(path);
+        }
+        key.reset();
+        return relevant;
+    }
+
+    private void reload(Path path) {
+        try {
+            QuestionBank bank = gameService.getQuestionBankLoader().load(path);
+            gameService.setQuestionBank(bank);
+            log.info("Reloaded {} questions from {}", bank.size(), path);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Keeping the current question bank; reload of {} failed: {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.example.jeopardy.service;
+
+import com.example.jeopardy.model.Question;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * How often each question is answered correctly. Graders bump striped
+ * counters, so concurrent answers to the same question do not contend;
+ * a background thread folds them into an immutable {@link Snapshot}
+ * every {@code jeopardy.stats.aggregate-interval}, which is what the
+ * stats endpoint reads.
+ *
+ * <p>With {@code jeopardy.draw.mode=adaptive} each aggregation also
+ * rebuilds one {@link AliasTable} per category that favours questions
+ * whose accuracy is near {@code jeopardy.draw.target-accuracy}, so a
+ * weighted draw stays O(1).
+ */
+@Component
+public class QuestionStats {
+
+    private static final Logger log = LoggerFactory.getLogger(QuestionStats.class);
+
+    // how far from the target accuracy a question's weight halves, roughly
+    private static final double SPREAD = 0.15;
+    // keeps questions far from the target drawable, just rarely
+    private static final double MIN_WEIGHT = 0.05;
+
+    private static final QuestionStats DISABLED = new QuestionStats(Duration.ZERO, "uniform", 0.6);
+
+    private final Duration aggregateInterval;
+    private final boolean adaptive;
+    private final double targetAccuracy;
+    private final Map<Long, Counters> counters = new ConcurrentHashMap<>();
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    // rebuilt as a whole on aggregation; empty until then and in uniform mode
+    private volatile Map<String, AliasTable> drawTables = Map.of();
+    private volatile Supplier<QuestionBank> bank;
+    // what the current draw tables were built from, touched by the aggregating thread only
+    private QuestionBank tablesBank;
+    private long tablesAttempts = -1;
+    private ScheduledExecutorService aggregator;
+
+    public QuestionStats(@Value("${jeopardy.stats.aggregate-interval:PT5S}") Duration aggregateInterval,
+                         @Value("${jeopardy.draw.mode:uniform}") String drawMode,
+                         @Value("${jeopardy.draw.target-accuracy:0.6}") double targetAccuracy) {
+        String mode = drawMode == null ? "uniform" : drawMode.trim().toLowerCase(Locale.ROOT);
+        if (!mode.equals("uniform") && !mode.equals("adaptive")) {
+            throw new IllegalArgumentException("jeopardy.draw.mode must be uniform or adaptive, not " + drawMode);
+        }
+        if (!(targetAccuracy >= 0d && targetAccuracy <= 1d)) {
+            throw new IllegalArgumentException("jeopardy.draw.target-accuracy must be between 0 and 1");
+        }
+        this.aggregateInterval = aggregateInterval;
+        this.adaptive = mode.equals("adaptive");
+        this.targetAccuracy = targetAccuracy;
+    }
+
+    /**
+     * Stats that are never aggregated, with uniform draws, for services
+     * used outside Spring.
+     */
+    public static QuestionStats disabled() {
+        return DISABLED;
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (aggregator != null || aggregateInterval.isZero() || aggregateInterval.isNegative()) {
+            return;
+        }
+        aggregator = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "question-stats");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long every = aggregateInterval.toMillis();
+        aggregator.scheduleWithFixedDelay(() -> {
+            try {
+                aggregate();
+            } catch (RuntimeException e) {
+                // a failed round must not cancel the schedule
+                log.warn("Aggregating question stats failed", e);
+            }
+        }, every, every, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (aggregator != null) {
+            aggregator.shutdownNow();
+            aggregator = null;
+        }
+    }
+
+    /**
+     * Where adaptive draw tables take their questions from; the bank is
+     * re-read on every aggregation, so reloads are picked up.
+     */
+    void bind(Supplier<QuestionBank> bank) {
+        this.bank = bank;
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    public double getTargetAccuracy() {
+        return targetAccuracy;
+    }
+
+    void record(long questionId, boolean correct) {
+        if (this == DISABLED) {
+            return;
+        }
+        Counters c = counters.get(questionId);
+        if (c == null) {
+            c = counters.computeIfAbsent(questionId, id -> new Counters());
+        }
+        c.attempts.increment();
+        if (correct) {
+            c.correct.increment();
+        }
+    }
+
+    /**
+     * The counts as of the last aggregation.
+     */
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * The weighted draw table for {@code category}, or {@code null} when
+     * draws should be uniform.
+     */
+    AliasTable drawTable(String category) {
+        return adaptive ? drawTables.get(category) : null;
+    }
+
+    /**
+     * Folds the counters into a new snapshot and, in adaptive mode,
+     * rebuilds the draw tables if anything changed. Runs on the
+     * aggregation thread; callable directly when no thread was started.
+     */
+    synchronized void aggregate() {
+        int size = counters.size();
+        long[] ids = new long[size];
+        long[] attempts = new long[size];
+        long[] correct = new long[size];
+        int count = 0;
+        long total = 0;
+        for (Map.Entry<Long, Counters> entry : counters.entrySet()) {
+            if (count == ids.length) {
+                // questions answered for the first time while we iterate
+                ids = Arrays.copyOf(ids, count * 2 + 1);
+                attempts = Arrays.copyOf(attempts, ids.length);
+                correct = Arrays.copyOf(correct, ids.length);
+            }
+            ids[count] = entry.getKey();
+            // correct first: a concurrent answer then never shows more correct than attempts
+            correct[count] = entry.getValue().correct.sum();
+            attempts[count] = entry.getValue().attempts.sum();
+            total += attempts[count];
+            count++;
+        }
+        Snapshot next = new Snapshot(ids, attempts, correct, count, total, System.currentTimeMillis());
+        snapshot = next;
+
+        Supplier<QuestionBank> source = bank;
+        QuestionBank current = source != null ? source.get() : null;
+        if (adaptive && current != null && (current != tablesBank || total != tablesAttempts)) {
+            drawTables = buildDrawTables(current, next);
+            tablesBank = current;
+            tablesAttempts = total;
+        }
+    }
+
+    private Map<String, AliasTable> buildDrawTables(QuestionBank bank, Snapshot stats) {
+        Map<String, AliasTable> tables = new HashMap<>();
+        for (String category : bank.getCategories()) {
+            List<Question> questions = bank.getQuestions(category);
+            if (questions == null || questions.isEmpty()) {
+                continue;
+            }
+            double[] weights = new double[questions.size()];
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = weight(stats.indexOf(questions.get(i).getId()), stats);
+            }
+            tables.put(category, new AliasTable(questions, weights));
+        }
+        return tables;
+    }
+
+    private double weight(int index, Snapshot stats) {
+        long attempts = index >= 0 ? stats.attempts[index] : 0;
+        long correct = index >= 0 ? stats.correct[index] : 0;
+        // Laplace-smoothed, so an unseen question counts as a coin flip rather than 0 or 1
+        double accuracy = (correct + 1d) / (attempts + 2d);
+        double distance = (accuracy - targetAccuracy) / SPREAD;
+        return MIN_WEIGHT + Math.exp(-0.5 * distance * distance);
+    }
+
+    private static final class Counters {
+        final LongAdder attempts = new LongAdder();
+        final LongAdder correct = new LongAdder();
+    }
+
+    /**
+     * Attempts and correct answers per question at one aggregation,
+     * sorted by question id.
+     */
+    public static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(new long[0], new long[0], new long[0], 0, 0, 0);
+
+        private final long[] ids;
+        private final long[] attempts;
+        private final long[] correct;
+        private final long totalAttempts;
+        private final long aggregatedAt;
+
+        private Snapshot(long[] ids, long[] attempts, long[] correct, int count, long totalAttempts,
+                         long aggregatedAt) {
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(ids[a], ids[b]));
+            this.ids = new long[count];
+            this.attempts = new long[count];
+            this.correct = new long[count];
+            for (int i = 0; i < count; i++) {
+                this.ids[i] = ids[order[i]];
+                this.attempts[i] = attempts[order[i]];
+                this.correct[i] = correct[order[i]];
+            }
+            this.totalAttempts = totalAttempts;
+            this.aggregatedAt = aggregatedAt;
+        }
+
+        /**
+         * Epoch millis of the aggregation, 0 before the first one.
+         */
+        public long getAggregatedAt() {
+            return aggregatedAt;
+        }
+
+        public long getTotalAttempts() {
+            return totalAttempts;
+        }
+
+        /**
+         * Number of questions answered at least once.
+         */
+        public int size() {
+            return ids.length;
+        }
+
+        public long getQuestionId(int index) {
+            return ids[index];
+        }
+
+        public long getAttempts(int index) {
+            return attempts[index];
+        }
+
+        public long getCorrect(int index) {
+            return correct[index];
+        }
+
+        /**
+         * Position of {@code questionId}, or a negative number if it was
+         * never answered.
+         */
+        public int indexOf(long questionId) {
+            return Arrays.binarySearch(ids, questionId);
+        }
+    }
+}
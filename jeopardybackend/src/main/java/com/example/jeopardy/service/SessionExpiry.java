@@ -0,0 +1,230 @@
+package com.example.jeopardy.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Drops abandoned games. Each game's id sits in a {@link TimingWheel} at
+ * the tick its idle timeout would run out; a request only stamps the game's
+ * last-active time, so touching it is O(1) and never reaches the wheel.
+ * When a game's tick fires it is evicted if it stayed idle, or put back
+ * at its new deadline otherwise.
+ *
+ * <p>Games add their estimated memory to one shared total as they grow.
+ * Every tick checks it against {@code jeopardy.sessions.max-memory};
+ * above it the least recently active games are evicted until the total
+ * is back under 90% of the cap.
+ */
+@Component
+public class SessionExpiry implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionExpiry.class);
+
+    private static final long TICK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final SessionExpiry DISABLED = new SessionExpiry(Duration.ZERO, DataSize.ofBytes(0));
+
+    private final long idleTimeoutNanos;
+    private final long maxBytes;
+    private final long origin = System.nanoTime();
+    // game ids, so an evicted game is not kept reachable until its tick comes up;
+    // guarded by itself: games are added from request threads, the ticking thread advances it
+    private final TimingWheel<String> wheel = new TimingWheel<>(0);
+    private final AtomicLong idleEvictions = new AtomicLong();
+    private final AtomicLong memoryEvictions = new AtomicLong();
+    private final LongAdder heapBytes = new LongAdder();
+    private volatile Map<String, GameSession> sessions = Map.of();
+    private volatile Predicate<GameSession> evict = session -> false;
+    private ScheduledExecutorService ticker;
+
+    public SessionExpiry(@Value("${jeopardy.sessions.idle-timeout:PT2H}") Duration idleTimeout,
+                         @Value("${jeopardy.sessions.max-memory:256MB}") DataSize maxMemory) {
+        this.idleTimeoutNanos = idleTimeout.isNegative() ? 0 : idleTimeout.toNanos();
+        this.maxBytes = Math.max(0, maxMemory.toBytes());
+    }
+
+    /**
+     * Expiry that never evicts, for services used outside Spring.
+     */
+    public static SessionExpiry disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * The live games by id and how to evict one; {@code evict} returns
+     * false if the game was gone already.
+     */
+    void bind(Map<String, GameSession> sessions, Predicate<GameSession> evict) {
+        this.sessions = sessions;
+        this.evict = evict;
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (ticker != null || this == DISABLED || (idleTimeoutNanos == 0 && maxBytes == 0)) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(() -> {
+            try {
+                tick(System.nanoTime());
+            } catch (RuntimeException e) {
+                // a failed tick must not cancel the schedule
+                log.warn("Expiring idle games failed", e);
+            }
+        }, TICK_NANOS, TICK_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+
+    /**
+     * Starts the idle clock of a new or recovered game.
+     */
+    void track(GameSession session) {
+        if (idleTimeoutNanos == 0) {
+            return;
+        }
+        long deadline = tickOf(session.getLastActive() + idleTimeoutNanos);
+        synchronized (wheel) {
+            wheel.schedule(session.getId(), deadline);
+        }
+    }
+
+    /**
+     * Evicts the games whose idle timeout ran out by {@code now} and, over
+     * the memory cap, the least recently active ones.
+     */
+    void tick(long now) {
+        if (idleTimeoutNanos > 0) {
+            List<String> due = new ArrayList<>();
+            synchronized (wheel) {
+                wheel.advance(tickOf(now), due::add);
+            }
+            // evicted outside the lock, so starting a game never waits for journal or SSE cleanup
+            for (String gameId : due) {
+                expire(gameId, now);
+            }
+        }
+        if (maxBytes > 0 && heapBytes.sum() > maxBytes) {
+            evictLeastRecentlyActive(new ArrayList<>(sessions.values()));
+        }
+    }
+
+    private void expire(String gameId, long now) {
+        GameSession session = sessions.get(gameId);
+        if (session == null) {
+            // evicted for memory meanwhile
+            return;
+        }
+        if (session.getLastActive() + idleTimeoutNanos - now > 0) {
+            // touched since it was scheduled; the wheel never saw those touches
+            track(session);
+        } else if (evict.test(session)) {
+            idleEvictions.incrementAndGet();
+        }
+    }
+
+    private void evictLeastRecentlyActive(List<GameSession> live) {
+        long target = maxBytes / 10 * 9;
+        long total = heapBytes.sum();
+        // read once, so sorting sees stable keys while requests keep touching
+        long[] lastActive = new long[live.size()];
+        Integer[] order = new Integer[live.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+            lastActive[i] = live.get(i).getLastActive();
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> lastActive[i] - origin));
+        int evicted = 0;
+        for (int i = 0; i < order.length && total > target; i++) {
+            GameSession session = live.get(order[i]);
+            if (evict.test(session)) {
+                total -= session.estimatedBytes();
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            // every tick over the cap gets here; one that found nothing to evict stays quiet
+            memoryEvictions.addAndGet(evicted);
+            log.info("Evicted {} least recently active games to stay under {} bytes", evicted, maxBytes);
+        }
+    }
+
+    private long tickOf(long nanos) {
+        return (nanos - origin) / TICK_NANOS;
+    }
+
+    /**
+     * The total every game adds its estimated heap to.
+     */
+    LongAdder heapAccount() {
+        return heapBytes;
+    }
+
+    /**
+     * Estimated heap held by the live games.
+     */
+    public long getEstimatedBytes() {
+        return heapBytes.sum();
+    }
+
+    public long getIdleEvictions() {
+        return idleEvictions.get();
+    }
+
+    public long getMemoryEvictions() {
+        return memoryEvictions.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("jeopardy.sessions.live", this, expiry -> expiry.sessions.size())
+                .description("Games currently held in memory")
+                .register(registry);
+        Gauge.builder("jeopardy.sessions.estimated.memory", this, SessionExpiry::getEstimatedBytes)
+                .description("Estimated heap held by live games")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        FunctionCounter.builder("jeopardy.sessions.evictions", idleEvictions, AtomicLong::get)
+                .description("Games evicted, by reason")
+                .tag("reason", "idle")
+                .register(registry);
+        FunctionCounter.builder("jeopardy.sessions.evictions", memoryEvictions, AtomicLong::get)
+                .description("Games evicted, by reason")
+                .tag("reason", "memory")
+                .register(registry);
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.jeopardy.service;
+
+import java.util.Arrays;
+
+/**
+ * Similarity functions used by {@link AiAnswerEvaluator}. They compute
+ * the same scores as commons-text's {@code JaroWinklerSimilarity} and
+ * {@code CosineSimilarity} (bit for bit, same floating point operations)
+ * but work on reusable per-thread buffers instead of allocating, and
+ * the threshold variants stop as soon as the threshold is out of reach.
+ */
+final class SimilarityKernels {
+
+    private static final double WINKLER_SCALING = 0.1;
+    private static final double WINKLER_BOOST_THRESHOLD = 0.7;
+    // absorbs rounding so an upper bound never falls below a score that reaches the threshold
+    private static final double BOUND_SLACK = 1e-9;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private SimilarityKernels() {
+    }
+
+    static double jaroWinkler(String left, String right) {
+        return jaroWinkler(left.toCharArray(), left.length(), right.toCharArray(), right.length());
+    }
+
+    static double jaroWinkler(char[] left, int leftLength, char[] right, int rightLength) {
+        return jaroWinkler(left, leftLength, right, rightLength, Double.NEGATIVE_INFINITY);
+    }
+
+    static boolean jaroWinklerAtLeast(String left, String right, double threshold) {
+        return jaroWinklerAtLeast(left.toCharArray(), left.length(), right.toCharArray(), right.length(), threshold);
+    }
+
+    static boolean jaroWinklerAtLeast(char[] left, int leftLength, char[] right, int rightLength, double threshold) {
+        return jaroWinkler(left, leftLength, right, rightLength, threshold) >= threshold;
+    }
+
+    /**
+     * Cosine similarity of two binary term vectors given their sizes and
+     * the number of terms they share.
+     */
+    static double cosine(int overlap, int leftSize, int rightSize) {
+        if (leftSize <= 0 || rightSize <= 0) {
+            return 0.0;
+        }
+        return overlap / (Math.sqrt(leftSize) * Math.sqrt(rightSize));
+    }
+
+    /**
+     * Returns the exact Jaro-Winkler score, or 0 as soon as the score is
+     * known to stay below {@code threshold}.
+     */
+    private static double jaroWinkler(char[] left, int leftLength, char[] right, int rightLength, double threshold) {
+        if (Arrays.equals(left, 0, leftLength, right, 0, rightLength)) {
+            return 1d;
+        }
+        char[] max = leftLength > rightLength ? left : right;
+        char[] min = leftLength > rightLength ? right : left;
+        int minLength = Math.min(leftLength, rightLength);
+        int maxLength = Math.max(leftLength, rightLength);
+        if (minLength == 0) {
+            return 0d;
+        }
+
+        int prefix = 0;
+        for (int i = 0, n = Math.min(4, minLength); i < n && left[i] == right[i]; i++) {
+            prefix++;
+        }
+        // best case: every char of the shorter string matches without transpositions
+        if (upperBound(minLength, leftLength, rightLength, prefix) < threshold) {
+            return 0d;
+        }
+
+        Scratch scratch = SCRATCH.get();
+        boolean[] maxMatched = scratch.maxMatched(maxLength);
+        boolean[] minMatched = scratch.minMatched(minLength);
+        int range = Math.max(maxLength / 2 - 1, 0);
+        int matches = 0;
+        for (int mi = 0; mi < minLength; mi++) {
+            char c = min[mi];
+            for (int xi = Math.max(mi - range, 0), xn = Math.min(mi + range + 1, maxLength); xi < xn; xi++) {
+                if (!maxMatched[xi] && c == max[xi]) {
+                    maxMatched[xi] = true;
+                    minMatched[mi] = true;
+                    matches++;
+                    break;
+                }
+            }
+            if (!minMatched[mi]
+                    && upperBound(matches + minLength - mi - 1, leftLength, rightLength, prefix) < threshold) {
+                return 0d;
+            }
+        }
+        if (matches == 0) {
+            return 0d;
+        }
+
+        int halfTranspositions = 0;
+        for (int mi = 0, xi = 0; mi < minLength; mi++) {
+            if (minMatched[mi]) {
+                while (!maxMatched[xi]) {
+                    xi++;
+                }
+                if (min[mi] != max[xi]) {
+                    halfTranspositions++;
+                }
+                xi++;
+            }
+        }
+
+        double m = matches;
+        double j = (m / leftLength + m / rightLength + (m - (double) halfTranspositions / 2) / m) / 3;
+        return j < WINKLER_BOOST_THRESHOLD ? j : j + WINKLER_SCALING * prefix * (1d - j);
+    }
+
+    private static double upperBound(int matches, int leftLength, int rightLength, int prefix) {
+        if (matches <= 0) {
+            return 0d;
+        }
+        double m = matches;
+        double j = (m / leftLength + m / rightLength + 1d) / 3;
+        double score = j < WINKLER_BOOST_THRESHOLD ? j : j + WINKLER_SCALING * prefix * (1d - j);
+        return score + BOUND_SLACK;
+    }
+
+    private static final class Scratch {
+        private boolean[] maxMatched = new boolean[64];
+        private boolean[] minMatched = new boolean[64];
+
+        boolean[] maxMatched(int length) {
+            if (maxMatched.length < length) {
+                maxMatched = new boolean[Math.max(length, maxMatched.length * 2)];
+            } else {
+                Arrays.fill(maxMatched, 0, length, false);
+            }
+            return maxMatched;
+        }
+
+        boolean[] minMatched(int length) {
+            if (minMatched.length < length) {
+                minMatched = new boolean[Math.max(length, minMatched.length * 2)];
+            } else {
+                Arrays.fill(minMatched, 0, length, false);
+            }
+            return minMatched;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.jeopardy.service;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Single-pass normalization of answer text into reusable buffers.
+ *
+ * <p>One pass over the input produces everything the grading cascade
+ * needs: the trimmed, lower-cased text for Jaro-Winkler, the strict form
+ * (ASCII letters and digits of the NFKD decomposition, lower-cased) and
+ * the tokens, which are exactly the maximal alphanumeric runs of the
+ * strict form. Only non-ASCII input pays for an NFKD decomposition.
+ *
+ * <p>Instances are not thread-safe; use {@link #forCurrentThread()} on
+ * the hot path, whose contents stay valid until the thread's next call.
+ */
+final class TextNormalizer {
+
+    private static final ThreadLocal<TextNormalizer> PER_THREAD = ThreadLocal.withInitial(TextNormalizer::new);
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    char[] lower = new char[64];
+    int lowerLength;
+    char[] strict = new char[64];
+    int strictLength;
+    // distinct tokens as [start, end) ranges of the strict buffer
+    int[] tokenStart = new int[16];
+    int[] tokenEnd = new int[16];
+    long[] tokenHash = new long[16];
+    int tokenCount;
+    // bit p is set when strict position p starts a token or ends the last one
+    private long[] tokenBoundaries = new long[2];
+    // sorted trigram codes of the distinct tokens, see collectTrigrams()
+    int[] trigrams = new int[64];
+    int trigramCount;
+    private int[] dedupSlots = new int[32];
+
+    static TextNormalizer forCurrentThread() {
+        return PER_THREAD.get();
+    }
+
+    TextNormalizer normalize(String input) {
+        int begin = 0;
+        int end = input.length();
+        while (begin < end && input.charAt(begin) <= ' ') {
+            begin++;
+        }
+        while (end > begin && input.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        boolean ascii = true;
+        lower = ensure(lower, end - begin);
+        for (int i = begin; i < end; i++) {
+            char c = input.charAt(i);
+            if (c >= 0x80) {
+                ascii = false;
+                break;
+            }
+            lower[i - begin] = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        if (ascii) {
+            lowerLength = end - begin;
+            // NFKD leaves ASCII untouched, so the input itself is the decomposition
+            scan(input, begin, end);
+        } else {
+            String lowerCased = input.substring(begin, end).toLowerCase(Locale.ROOT);
+            lower = ensure(lower, lowerCased.length());
+            lowerCased.getChars(0, lowerCased.length(), lower, 0);
+            lowerLength = lowerCased.length();
+            String decomposed = Normalizer.normalize(input.substring(begin, end), Normalizer.Form.NFKD);
+            scan(decomposed, 0, decomposed.length());
+        }
+        return this;
+    }
+
+    boolean isBlank() {
+        return lowerLength == 0;
+    }
+
+    /**
+     * Fills {@link #trigrams} with the sorted {@link NgramModel} trigram
+     * codes of the distinct tokens. Only the last grading stage needs them,
+     * so {@link #normalize} leaves this to the caller.
+     */
+    TextNormalizer collectTrigrams() {
+        if (trigrams.length < strictLength) {
+            trigrams = new int[Math.max(strictLength, trigrams.length * 2)];
+        }
+        int count = 0;
+        for (int t = 0; t < tokenCount; t++) {
+            count = NgramModel.trigrams(strict, tokenStart[t], tokenEnd[t], trigrams, count);
+        }
+        Arrays.sort(trigrams, 0, count);
+        trigramCount = count;
+        return this;
+    }
+
+    private void scan(String text, int begin, int end) {
+        strict = ensure(strict, end - begin);
+        strictLength = 0;
+        tokenCount = 0;
+        int slotCount = Integer.highestOneBit(Math.max(16, end - begin)) << 1;
+        if (dedupSlots.length < slotCount) {
+            dedupSlots = new int[slotCount];
+        }
+        Arrays.fill(dedupSlots, 0, slotCount, -1);
+        int boundaryWords = ((end - begin) >> 6) + 1;
+        if (tokenBoundaries.length < boundaryWords) {
+            tokenBoundaries = new long[boundaryWords];
+        }
+        Arrays.fill(tokenBoundaries, 0, boundaryWords, 0L);
+
+        int start = -1;
+        long hash = FNV_OFFSET;
+        for (int i = begin; i < end; i++) {
+            char c = text.charAt(i);
+            char folded;
+            if (c >= 'a' && c <= 'z' || c >= '0' && c <= '9') {
+                folded = c;
+            } else if (c >= 'A' && c <= 'Z') {
+                folded = (char) (c + ('a' - 'A'));
+            } else {
+                if (start >= 0) {
+                    addToken(start, strictLength, hash, slotCount);
+                    start = -1;
+                }
+                continue;
+            }
+            if (start < 0) {
+                start = strictLength;
+                hash = FNV_OFFSET;
+                tokenBoundaries[start >> 6] |= 1L << start;
+            }
+            strict[strictLength++] = folded;
+            hash = (hash ^ folded) * FNV_PRIME;
+        }
+        if (start >= 0) {
+            addToken(start, strictLength, hash, slotCount);
+        }
+        tokenBoundaries[strictLength >> 6] |= 1L << strictLength;
+    }
+
+    /**
+     * Whether strict position {@code position} lies between two tokens,
+     * or at either end of the strict form.
+     */
+    boolean isTokenBoundary(int position) {
+        return (tokenBoundaries[position >> 6] & (1L << position)) != 0;
+    }
+
+    private void addToken(int start, int end, long hash, int slotCount) {
+        int mask = slotCount - 1;
+        for (int slot = slotOf(hash, mask); ; slot = (slot + 1) & mask) {
+            int existing = dedupSlots[slot];
+            if (existing < 0) {
+                break;
+            }
+            if (tokenHash[existing] == hash
+                    && Arrays.equals(strict, tokenStart[existing], tokenEnd[existing], strict, start, end)) {
+                return;
+            }
+        }
+        if (tokenCount == tokenStart.length) {
+            tokenStart = Arrays.copyOf(tokenStart, tokenCount * 2);
+            tokenEnd = Arrays.copyOf(tokenEnd, tokenCount * 2);
+            tokenHash = Arrays.copyOf(tokenHash, tokenCount * 2);
+        }
+        tokenStart[tokenCount] = start;
+        tokenEnd[tokenCount] = end;
+        tokenHash[tokenCount] = hash;
+        for (int slot = slotOf(hash, mask); ; slot = (slot + 1) & mask) {
+            if (dedupSlots[slot] < 0) {
+                dedupSlots[slot] = tokenCount;
+                break;
+            }
+        }
+        tokenCount++;
+    }
+
+    static int slotOf(long hash, int mask) {
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static char[] ensure(char[] buffer, int length) {
+        return buffer.length >= length ? buffer : new char[Math.max(length, buffer.length * 2)];
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.jeopardy.service;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel over integer ticks: four levels of 64 slots,
+ * each slot of a level spanning a whole revolution of the level below.
+ * Scheduling is O(1); an entry moves down at most once per level before
+ * its tick fires. Deadlines beyond the top level fire early, at the top
+ * level's horizon, and the owner schedules them again.
+ *
+ * <p>Not thread-safe; the owner serializes access.
+ */
+final class TimingWheel<T> {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int LEVELS = 4;
+    // ticks one full revolution of the top level covers
+    private static final long HORIZON = 1L << (BITS * LEVELS);
+
+    private final Bucket<T>[][] levels;
+    private long now;
+    private int size;
+
+    TimingWheel(long startTick) {
+        this.now = startTick;
+        this.levels = newLevels();
+        for (Bucket<T>[] level : levels) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                level[slot] = new Bucket<>();
+            }
+        }
+    }
+
+    /**
+     * The level arrays; they only ever hold {@code Bucket<T>}s.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Bucket<T>[][] newLevels() {
+        return (Bucket<T>[][]) new Bucket<?>[LEVELS][SLOTS];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Fires {@code item} at {@code deadline}, or at the next tick if that
+     * has passed already.
+     */
+    void schedule(T item, long deadline) {
+        place(item, Math.max(deadline, now + 1));
+        size++;
+    }
+
+    /**
+     * Moves the wheel forward to {@code tick}, handing each item whose
+     * deadline passed to {@code expired}, which may schedule it again.
+     */
+    void advance(long tick, Consumer<T> expired) {
+        while (now < tick) {
+            now++;
+            // a level turns over when every level below it wraps around; its slot moves down a level
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((now & ((1L << (BITS * level)) - 1)) == 0) {
+                    Bucket<T> bucket = levels[level][slot(now, level)];
+                    for (int i = 0; i < bucket.size(); i++) {
+                        place(bucket.item(i), bucket.deadline(i));
+                    }
+                    bucket.clear();
+                }
+            }
+            Bucket<T> due = levels[0][slot(now, 0)];
+            if (due.size() > 0) {
+                // swapped out, so whatever expired schedules again lands in a fresh bucket
+                Bucket<T> firing = due;
+                levels[0][slot(now, 0)] = new Bucket<>();
+                size -= firing.size();
+                for (int i = 0; i < firing.size(); i++) {
+                    expired.accept(firing.item(i));
+                }
+            }
+        }
+    }
+
+    private void place(T item, long deadline) {
+        long delta = deadline - now;
+        if (delta >= HORIZON) {
+            deadline = now + HORIZON - 1;
+            delta = HORIZON - 1;
+        }
+        int level = 0;
+        while (delta >= 1L << (BITS * (level + 1))) {
+            level++;
+        }
+        levels[level][slot(deadline, level)].add(item, deadline);
+    }
+
+    private static int slot(long tick, int level) {
+        return (int) (tick >>> (BITS * level)) & (SLOTS - 1);
+    }
+
+    /**
+     * Items with their deadlines, in two parallel growable arrays.
+     */
+    private static final class Bucket<T> {
+        private Object[] items = new Object[0];
+        private long[] deadlines = new long[0];
+        private int count;
+
+        void add(T item, long deadline) {
+            if (count == deadlines.length) {
+                int capacity = Math.max(4, count * 2);
+                items = Arrays.copyOf(items, capacity);
+                deadlines = Arrays.copyOf(deadlines, capacity);
+            }
+            items[count] = item;
+            deadlines[count] = deadline;
+            count++;
+        }
+
+        int size() {
+            return count;
+        }
+
+        @SuppressWarnings("unchecked")
+        T item(int index) {
+            return (T) items[index];
+        }
+
+        long deadline(int index) {
+            return deadlines[index];
+        }
+
+        void clear() {
+            Arrays.fill(items, 0, count, null);
+            count = 0;
+        }
+    }
+}
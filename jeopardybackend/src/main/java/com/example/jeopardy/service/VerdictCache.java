@@ -0,0 +1,88 @@
+package com.example.jeopardy.service;
+
+import java.time.Duration;
+import java.util.Locale;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers verdicts for (question, submitted answer) pairs, since whole
+ * classrooms tend to type the same thing. Answers are keyed by their
+ * trimmed, lower-cased text, which is all the evaluator looks at.
+ * Entries are dropped when the question bank changes. A maximum size of
+ * 0 turns the cache off.
+ */
+@Component
+public class VerdictCache implements MeterBinder {
+
+    private final Cache<Key, Boolean> verdicts;
+
+    public VerdictCache(@Value("${jeopardy.verdict-cache.max-size:10000}") long maxSize,
+                        @Value("${jeopardy.verdict-cache.expire-after-access:PT10M}") Duration expireAfterAccess) {
+        this.verdicts = maxSize <= 0 ? null : Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached verdict, or {@code null} on a miss.
+     */
+    public Boolean get(long questionId, String providedAnswer) {
+        if (verdicts == null) {
+            return null;
+        }
+        return verdicts.getIfPresent(key(questionId, providedAnswer));
+    }
+
+    public void put(long questionId, String providedAnswer, boolean correct) {
+        if (verdicts == null) {
+            return;
+        }
+        verdicts.put(key(questionId, providedAnswer), correct);
+    }
+
+    public void invalidate(long questionId, String providedAnswer) {
+        if (verdicts == null) {
+            return;
+        }
+        verdicts.invalidate(key(questionId, providedAnswer));
+    }
+
+    public void invalidateAll() {
+        if (verdicts == null) {
+            return;
+        }
+        verdicts.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return verdicts != null ? verdicts.stats() : CacheStats.empty();
+    }
+
+    public long size() {
+        return verdicts != null ? verdicts.estimatedSize() : 0;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (verdicts != null) {
+            CaffeineCacheMetrics.monitor(registry, verdicts, "verdicts");
+        }
+    }
+
+    private static Key key(long questionId, String providedAnswer) {
+        return new Key(questionId, providedAnswer.trim().toLowerCase(Locale.ROOT));
+    }
+
+    private record Key(long questionId, String answer) {
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.jeopardy.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks {@link AliasMatcher} against a brute-force search: an alias
+ * matches a submission exactly when some run of whole tokens of it,
+ * joined, spells the alias. The random cases use a small alphabet so
+ * aliases keep turning up inside tokens and across token boundaries.
+ *
+ * <p>Runs {@value #DEFAULT_CASES} random cases; run more with
+ * {@code mvn test -Dtest=AliasMatcherTest -Djeopardy.alias.cases=1000000}.
+ */
+class AliasMatcherTest {
+
+    private static final int DEFAULT_CASES = 300_000;
+    private static final int CASES = Integer.getInteger("jeopardy.alias.cases", DEFAULT_CASES);
+    private static final long SEED = Long.getLong("jeopardy.alias.seed", 42L);
+    private static final String ALPHABET = "ab1";
+    private static final String SEPARATORS = " .-,(";
+    // assertion description, only formatted when a case fails
+    private static final String CASE = "case %d: %s in \"%s\"";
+
+    @Test
+    void aliasesOnlyMatchWholeTokens() {
+        AliasMatcher llb = matcher("llb");
+        assertThat(llb.matches(normalize("the LLB degree"))).isTrue();
+        assertThat(llb.matches(normalize("LL.B."))).isTrue();
+        assertThat(llb.matches(normalize("llb"))).isTrue();
+        assertThat(llb.matches(normalize("allbright"))).isFalse();
+        assertThat(llb.matches(normalize("llbs"))).isFalse();
+        assertThat(llb.matches(normalize("a llb-ish thing"))).isTrue();
+        assertThat(llb.matches(normalize("all b"))).isFalse();
+
+        AliasMatcher laws = matcher("bacheloroflaws", "llb");
+        assertThat(laws.matches(normalize("Bachelor of Laws (hons)"))).isTrue();
+        assertThat(laws.matches(normalize("bachelor of lawsuits"))).isFalse();
+        assertThat(laws.matches(normalize("a bachelor of laws"))).isTrue();
+        assertThat(laws.matches(normalize("abachelor of laws"))).isFalse();
+    }
+
+    @Test
+    void aliasEndingInsideAnotherStillMatchesOnItsOwnBoundaries() {
+        // "ab" and "b" end at the same char; only the one starting on a token boundary counts
+        AliasMatcher matcher = matcher("b", "ab", "xaby");
+        assertThat(matcher.matches(normalize("c ab"))).isTrue();
+        assertThat(matcher.matches(normalize("ca b"))).isTrue();
+        assertThat(matcher.matches(normalize("cab"))).isFalse();
+        assertThat(matcher.matches(normalize("xab"))).isFalse();
+        assertThat(AliasMatcher.NONE.matches(normalize("anything"))).isFalse();
+    }
+
+    @Test
+    void matchesBruteForceSearch() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < CASES; i++) {
+            List<String> aliases = new ArrayList<>();
+            int count = 1 + random.nextInt(4);
+            for (int a = 0; a < count; a++) {
+                aliases.add(word(random, 1 + random.nextInt(5)));
+            }
+            StringBuilder input = new StringBuilder();
+            int tokens = random.nextInt(6);
+            for (int t = 0; t < tokens; t++) {
+                if (t > 0 || random.nextInt(4) == 0) {
+                    input.append(SEPARATORS.charAt(random.nextInt(SEPARATORS.length())));
+                }
+                String token = word(random, 1 + random.nextInt(4));
+                input.append(random.nextBoolean() ? token : token.toUpperCase(Locale.ROOT));
+            }
+            String submission = input.toString();
+            assertThat(matcher(aliases.toArray(new String[0])).matches(normalize(submission)))
+                    .as(CASE, i, aliases, submission)
+                    .isEqualTo(bruteForce(aliases, submission));
+        }
+    }
+
+    private static AliasMatcher matcher(String... aliases) {
+        List<char[]> forms = new ArrayList<>();
+        for (String alias : aliases) {
+            forms.add(alias.toCharArray());
+        }
+        return AliasMatcher.of(forms);
+    }
+
+    private static TextNormalizer normalize(String submission) {
+        return TextNormalizer.forCurrentThread().normalize(submission);
+    }
+
+    private static String word(SplittableRandom random, int length) {
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return word.toString();
+    }
+
+    /**
+     * Whether some run of consecutive tokens, joined without separators,
+     * equals one of the aliases.
+     */
+    private static boolean bruteForce(List<String> aliases, String submission) {
+        String[] tokens = submission.toLowerCase(Locale.ROOT).split("[^a-z0-9]+");
+        for (int from = 0; from < tokens.length; from++) {
+            StringBuilder run = new StringBuilder();
+            for (int to = from; to < tokens.length; to++) {
+                run.append(tokens[to]);
+                if (!tokens[from].isEmpty() && aliases.contains(run.toString())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.jeopardy.service;
+
+import com.example.jeopardy.model.Question;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Replays labeled submissions against the built-in bank and checks every
+ * cell of the threshold grid: its confusion matrix must equal the one got
+ * by grading each submission under that cell's thresholds. For a few
+ * cells the submissions are also graded by an evaluator built with those
+ * thresholds, so the replay's reading of the scores matches the cascade.
+ */
+class AnswerReplayTest {
+
+    private static final int RECORDS = 20_000;
+    private static final long SEED = 42L;
+    private static final double[][] GRID = {
+            {0.80, 0.88, 0.92, 0.96}, {0.50, 0.70, 0.90}, {0.30, 0.60, 0.90}, {0.50, 0.75, 0.90}};
+    private static final String NOISE = "abcdefghijklmnopqrstuvwxyz  0123456789.,-";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void everyGridCellMatchesDirectGrading() throws Exception {
+        AiAnswerEvaluator evaluator = new AiAnswerEvaluator();
+        QuestionBank bank = new QuestionBankLoader(evaluator).loadBuiltIn();
+        List<Question> questions = new ArrayList<>();
+        bank.getQuestionsByCategory().values().forEach(questions::addAll);
+
+        SplittableRandom random = new SplittableRandom(SEED);
+        List<String> lines = new ArrayList<>();
+        List<Question> graded = new ArrayList<>();
+        List<String> submissions = new ArrayList<>();
+        List<Boolean> labels = new ArrayList<>();
+        for (int i = 0; i < RECORDS; i++) {
+            Question question = questions.get(random.nextInt(questions.size()));
+            String submission = submission(random, question, questions);
+            // mostly what a grader would say, with some disagreement the thresholds cannot fix
+            String answer = question.getAnswer().toLowerCase(Locale.ROOT);
+            String start = answer.substring(0, Math.min(3, answer.length()));
+            boolean label = submission.toLowerCase(Locale.ROOT).contains(start) ^ random.nextInt(10) == 0;
+            // both spellings of a label
+            String verdict = random.nextBoolean() ? Boolean.toString(label) : label ? "1" : "0";
+            lines.add(question.getId() + "\t" + submission + "\t" + verdict);
+            graded.add(question);
+            submissions.add(submission);
+            labels.add(label);
+        }
+        lines.add("# a comment");
+        lines.add("");
+        lines.add("not-an-id\tanswer\ttrue");
+        lines.add(questions.get(0).getId() + "\tanswer\tmaybe");
+        Path records = dir.resolve("records.tsv");
+        Files.write(records, lines, StandardCharsets.UTF_8);
+
+        AnswerReplay.Result result = AnswerReplay.replay(records, bank, evaluator, GRID, 2);
+        assertThat(result.records).isEqualTo(RECORDS);
+        assertThat(result.skipped).isEqualTo(2);
+        // both labels must be well represented, or agreement proves little
+        assertThat(result.positives).isGreaterThan(RECORDS / 10);
+        assertThat(result.negatives).isGreaterThan(RECORDS / 10);
+
+        AiAnswerEvaluator.Scores[] scores = new AiAnswerEvaluator.Scores[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            scores[i] = evaluator.score(bank.getCompiledAnswer(graded.get(i).getId()), submissions.get(i),
+                    new AiAnswerEvaluator.Scores());
+        }
+        int[] at = new int[GRID.length];
+        int cell = 0;
+        do {
+            GradingThresholds thresholds = new GradingThresholds(GRID[0][at[0]], GRID[1][at[1]], GRID[2][at[2]],
+                    GRID[3][at[3]]);
+            // every seventh cell is graded through the cascade too
+            AiAnswerEvaluator direct = cell++ % 7 == 0 ? new AiAnswerEvaluator(GradingMetrics.disabled(), thresholds)
+                    : null;
+            long[] confusion = new long[4];
+            for (int i = 0; i < RECORDS; i++) {
+                boolean accepted = scores[i].accepted(thresholds);
+                if (direct != null) {
+                    assertThat(direct.isCorrect(bank.getCompiledAnswer(graded.get(i).getId()), submissions.get(i)))
+                            .as("%s for \"%s\"", thresholds, submissions.get(i)).isEqualTo(accepted);
+                }
+                confusion[(accepted ? 0 : 2) + (labels.get(i) ? 0 : 1)]++;
+            }
+            AnswerReplay.Outcome outcome = result.outcome(at);
+            assertThat(new long[] {outcome.truePositives, outcome.falsePositives, outcome.falseNegatives,
+                    outcome.trueNegatives}).as("cell %s", thresholds).containsExactly(confusion);
+        } while (next(at));
+    }
+
+    private static String submission(SplittableRandom random, Question question, List<Question> questions) {
+        String answer = question.getAnswer();
+        switch (random.nextInt(7)) {
+            case 0:
+                return answer;
+            case 1:
+                return answer.toUpperCase(Locale.ROOT);
+            case 2:
+                return questions.get(random.nextInt(questions.size())).getAnswer();
+            case 3:
+                // the first word dropped, or a one-word answer said twice
+                String[] words = answer.split(" ");
+                return words.length > 1 ? String.join(" ", List.of(words).subList(1, words.length))
+                        : words[0] + " " + words[0];
+            default:
+                StringBuilder text = new StringBuilder(answer);
+                int edits = 1 + random.nextInt(Math.max(1, answer.length() / 4));
+                for (int e = 0; e < edits && text.length() > 1; e++) {
+                    int pos = random.nextInt(text.length());
+                    if (random.nextBoolean()) {
+                        text.setCharAt(pos, NOISE.charAt(random.nextInt(NOISE.length())));
+                    } else {
+                        text.deleteCharAt(pos);
+                    }
+                }
+                return text.toString();
+        }
+    }
+
+    private static boolean next(int[] at) {
+        for (int d = at.length - 1; d >= 0; d--) {
+            if (++at[d] < GRID[d].length) {
+                return true;
+            }
+            at[d] = 0;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.jeopardy.service;
+
+import com.example.jeopardy.dto.BuzzResult;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Every team buzzes at the same instant from two devices. Each
+ * team must get exactly one rank, every rank from 1 to the team count is
+ * handed out once, and a better rank never shows a later buzz time.
+ */
+class BuzzRoundTest {
+
+    private static final int TEAMS = 64;
+    private static final int DEVICES = 2;
+
+    @RepeatedTest(20)
+    void ranksAndTimesAgree() throws Exception {
+        BuzzRound round = new BuzzRound(1L, TEAMS, System.nanoTime());
+        CyclicBarrier start = new CyclicBarrier(TEAMS * DEVICES);
+        ExecutorService pool = Executors.newFixedThreadPool(TEAMS * DEVICES);
+        List<Future<Integer>> buzzes = new ArrayList<>();
+        for (int i = 0; i < TEAMS * DEVICES; i++) {
+            int team = i % TEAMS;
+            buzzes.add(pool.submit(() -> {
+                start.await();
+                int rank = round.buzz(team);
+                return rank != 0 ? rank : -round.rankOf(team);
+            }));
+        }
+        int[] rankOfTeam = new int[TEAMS];
+        int repeats = 0;
+        for (int i = 0; i < buzzes.size(); i++) {
+            int rank = buzzes.get(i).get(1, TimeUnit.MINUTES);
+            if (rank < 0) {
+                repeats++;
+            } else {
+                assertThat(rankOfTeam[i % TEAMS]).as("team %d ranked twice", i % TEAMS).isZero();
+                rankOfTeam[i % TEAMS] = rank;
+            }
+        }
+        pool.shutdown();
+
+        assertThat(repeats).isEqualTo(TEAMS * (DEVICES - 1));
+        long[] timeOfRank = new long[TEAMS + 1];
+        for (int team = 0; team < TEAMS; team++) {
+            assertThat(round.rankOf(team)).isEqualTo(rankOfTeam[team]);
+            timeOfRank[rankOfTeam[team]] = round.microsToBuzz(team);
+        }
+        assertThat(rankOfTeam).containsExactlyInAnyOrder(IntStream.rangeClosed(1, TEAMS).toArray());
+        for (int rank = 2; rank <= TEAMS; rank++) {
+            assertThat(timeOfRank[rank]).as("time of rank %d", rank).isGreaterThanOrEqualTo(timeOfRank[rank - 1]);
+        }
+    }
+
+    @Test
+    void eachDrawOpensAFreshRound() {
+        GameSession session = new GameSession("game", List.of("Red", "Blue"), GameJournal.disabled(), new LongAdder());
+        List<BuzzResult> wins = new ArrayList<>();
+        assertThatThrownBy(() -> session.buzz(7L, "Red", wins::add)).isInstanceOf(IllegalStateException.class);
+
+        session.openBuzzRound(7L);
+        assertThat(session.buzz(7L, "Blue", wins::add).getRank()).isEqualTo(1);
+        assertThat(session.buzz(7L, "red", wins::add).getRank()).isEqualTo(2);
+        assertThat(session.buzz(7L, "Blue", wins::add).getRank()).isEqualTo(1);
+        assertThat(session.buzz(7L, "Purple", wins::add)).isNull();
+
+        session.openBuzzRound(8L);
+        assertThatThrownBy(() -> session.buzz(7L, "Red", wins::add)).isInstanceOf(IllegalStateException.class);
+        // the same question drawn again after a refill is a new round
+        session.openBuzzRound(7L);
+        assertThat(session.buzz(7L, "Red", wins::add).getRank()).isEqualTo(1);
+        assertThat(wins).extracting(BuzzResult::getTeamName).containsExactly("Blue", "Red");
+    }
+}
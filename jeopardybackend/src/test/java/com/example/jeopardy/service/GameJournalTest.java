@@ -0,0 +1,72 @@
+package com.example.jeopardy.service;
+
+import com.example.jeopardy.model.Question;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Threads draw from one category of a journaled game at once, through
+ * many refills. Replaying the journal must give exactly the questions of
+ * the running cycle: the ones the live game will not hand out again
+ * before its next refill.
+ */
+class GameJournalTest {
+
+    private static final String CATEGORY = "Law";
+    private static final int QUESTIONS = 7;
+    private static final int THREADS = 8;
+    private static final int DRAWS_PER_THREAD = 2_001;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void concurrentDrawsReplayInTheOrderTheyHappened() throws Exception {
+        List<Question> all = new ArrayList<>();
+        for (int i = 0; i < QUESTIONS; i++) {
+            all.add(new Question(i + 1, CATEGORY, "Question " + i, "Answer " + i));
+        }
+        GameJournal journal = new GameJournal(dir.toString(), 1_000);
+        journal.recover();
+        GameSession session = new GameSession("game", List.of("Red", "Blue"), journal, new LongAdder());
+        journal.gameStarted(session.getId(), session.getTeamNames());
+
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < DRAWS_PER_THREAD; i++) {
+                    assertThat(session.drawQuestion(CATEGORY, all, ThreadLocalRandom.current(), null)).isNotNull();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get(1, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+        journal.close();
+
+        int inCycle = THREADS * DRAWS_PER_THREAD % QUESTIONS;
+        GameJournal restarted = new GameJournal(dir.toString(), 1_000);
+        List<Long> replayed = restarted.recover().get("game").getDrawnByCategory().get(CATEGORY);
+        restarted.close();
+        assertThat(replayed).hasSize(inCycle).doesNotHaveDuplicates();
+
+        // the live game hands out the rest of the cycle, which must be exactly what the replay has not drawn
+        Set<Long> rest = new HashSet<>();
+        for (int i = inCycle; i < QUESTIONS; i++) {
+            rest.add(session.drawQuestion(CATEGORY, all, ThreadLocalRandom.current(), null).getId());
+        }
+        assertThat(rest).hasSize(QUESTIONS - inCycle).doesNotContainAnyElementsOf(replayed);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.jeopardy.service;
+
+import com.example.jeopardy.model.Question;
+import com.example.jeopardy.model.Team;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many threads start games and draw and answer questions in them at once,
+ * several threads per game. Every score change is counted on the side;
+ * afterwards each game must show exactly its own teams with exactly the
+ * counted scores, and no game may have drawn a question twice within a
+ * category cycle.
+ */
+class GameServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int GAMES = 24;
+    private static final int TEAMS = 4;
+    private static final int ROUNDS = 400;
+
+    private GameService gameService;
+
+    @BeforeEach
+    void setUp() {
+        gameService = new GameService(new GameEventBroadcaster(new ObjectMapper()),
+                new VerdictCache(10_000, Duration.ofMinutes(10)), GradingMetrics.disabled(),
+                GradingThresholds.defaults(), GameJournal.disabled(), QuestionStats.disabled(),
+                SessionExpiry.disabled(), new InMemoryGameStateStore(), GradingStage.disabled());
+    }
+
+    @AfterEach
+    void tearDown() {
+        gameService.shutdown();
+    }
+
+    @Test
+    void parallelGamesKeepTheirOwnStateAndLoseNoScore() throws Exception {
+        List<String> categories = gameService.getCategories();
+        String[] gameIds = new String[GAMES];
+        AtomicIntegerArray expected = new AtomicIntegerArray(GAMES * TEAMS);
+        // per game and category, the questions drawn since the category last refilled; written by the game's owner
+        Map<String, Set<Long>> drawn = new ConcurrentHashMap<>();
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            workers.add(pool.submit(() -> {
+                start.await();
+                // every game is started by some thread while the others already play
+                for (int g = thread; g < GAMES; g += THREADS) {
+                    List<String> names = new ArrayList<>();
+                    for (int team = 0; team < TEAMS; team++) {
+                        names.add("Game " + g + " team " + team);
+                    }
+                    synchronized (gameIds) {
+                        gameIds[g] = gameService.startGame(names).getId();
+                        gameIds.notifyAll();
+                    }
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int round = 0; round < ROUNDS; round++) {
+                    // draws stay with the thread that started the game, so each game's draw order is known
+                    int own = thread + THREADS * random.nextInt((GAMES - 1 - thread) / THREADS + 1);
+                    String category = categories.get(random.nextInt(categories.size()));
+                    Question question = gameService.getRandomQuestion(gameIds[own], category);
+                    assertThat(question).isNotNull();
+                    assertThat(question.getCategory()).isEqualTo(category);
+                    recordDraw(drawn, gameIds[own], category, question.getId());
+
+                    // answers go to any game, so several threads score in each one at once
+                    int g = random.nextInt(GAMES);
+                    int team = random.nextInt(TEAMS);
+                    String answer = random.nextBoolean() ? question.getAnswer() : "not even close " + round;
+                    boolean correct = gameService.checkAnswer(gameId(gameIds, g), question.getId(),
+                            "game " + g + " TEAM " + team, answer);
+                    expected.addAndGet(g * TEAMS + team, correct ? 5 : -1);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        assertThat(new HashSet<>(Arrays.asList(gameIds))).hasSize(GAMES);
+        for (int g = 0; g < GAMES; g++) {
+            List<Team> teams = gameService.getTeams(gameIds[g]);
+            assertThat(teams).hasSize(TEAMS);
+            for (int team = 0; team < TEAMS; team++) {
+                assertThat(teams.get(team).getName()).isEqualTo("Game " + g + " team " + team);
+                assertThat(teams.get(team).getScore()).isEqualTo(expected.get(g * TEAMS + team));
+            }
+        }
+    }
+
+    private static String gameId(String[] gameIds, int game) throws InterruptedException {
+        synchronized (gameIds) {
+            while (gameIds[game] == null) {
+                gameIds.wait();
+            }
+            return gameIds[game];
+        }
+    }
+
+    private void recordDraw(Map<String, Set<Long>> drawn, String gameId, String category, long questionId) {
+        int size = gameService.getQuestionBank().getQuestions(category).size();
+        Set<Long> cycle = drawn.computeIfAbsent(gameId + "/" + category, k -> new HashSet<>());
+        if (cycle.size() == size) {
+            // the category ran out; the game refills it and starts a new cycle
+            cycle.clear();
+        }
+        assertThat(cycle.add(questionId)).as("question %d drawn twice in one cycle", questionId).isTrue();
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.jeopardy.service;
+
+import com.example.jeopardy.dto.GameState;
+import com.example.jeopardy.model.Team;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Threads hammer the same teams of one game with single and batched score
+ * changes; the final scores must be exactly the sum of what was applied,
+ * and a snapshot taken meanwhile must never show half a batch.
+ */
+class GameSessionScoreTest {
+
+    private static final int THREADS = 8;
+    private static final int DELTAS_PER_THREAD = 20_000;
+    private static final List<String> TEAMS = List.of("Red", "Green", "Blue");
+
+    @Test
+    void concurrentScoreChangesAreNeverLost() throws Exception {
+        GameSession session = new GameSession("game", TEAMS, GameJournal.disabled(), new LongAdder());
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            workers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < DELTAS_PER_THREAD; i++) {
+                    if (i % 4 == 3) {
+                        // a batch: one step for every team
+                        session.adjustTeamScores(Map.of("red", 1, "GREEN", 2, "Blue", -1));
+                    } else {
+                        String team = TEAMS.get((thread + i) % TEAMS.size());
+                        assertThat(session.adjustTeamScore(team.toUpperCase(), i % 2 == 0 ? 5 : -1)).isNotNull();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get(1, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        int[] expected = new int[TEAMS.size()];
+        long writes = 0;
+        for (int t = 0; t < THREADS; t++) {
+            for (int i = 0; i < DELTAS_PER_THREAD; i++) {
+                if (i % 4 == 3) {
+                    expected[0] += 1;
+                    expected[1] += 2;
+                    expected[2] -= 1;
+                } else {
+                    expected[(t + i) % TEAMS.size()] += i % 2 == 0 ? 5 : -1;
+                }
+                writes++;
+            }
+        }
+        List<Team> teams = session.getTeams();
+        for (int i = 0; i < TEAMS.size(); i++) {
+            assertThat(teams.get(i).getName()).isEqualTo(TEAMS.get(i));
+            assertThat(teams.get(i).getScore()).isEqualTo(expected[i]);
+        }
+        assertThat(session.getVersion()).isEqualTo(writes);
+        assertThat(session.getLeaderboard(TEAMS.size())).extracting("score")
+                .containsExactlyInAnyOrder(expected[0], expected[1], expected[2]);
+    }
+
+    @Test
+    void snapshotsNeverShowHalfABatch() throws Exception {
+        GameSession session = new GameSession("game", TEAMS, GameJournal.disabled(), new LongAdder());
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < THREADS - 1; t++) {
+            writers.add(pool.submit(() -> {
+                for (int i = 0; i < DELTAS_PER_THREAD; i++) {
+                    session.adjustTeamScores(Map.of("Red", 1, "Green", 1, "Blue", 1));
+                }
+                return null;
+            }));
+        }
+        Future<Integer> reader = pool.submit(() -> {
+            int snapshots = 0;
+            while (writing.get()) {
+                // every write is one batch of +1 for each team, so each score equals the version
+                GameState state = session.getState(-1);
+                assertThat(state.getTeams()).extracting(Team::getScore).containsOnly((int) state.getVersion());
+                snapshots++;
+            }
+            return snapshots;
+        });
+        for (Future<?> writer : writers) {
+            writer.get(1, TimeUnit.MINUTES);
+        }
+        writing.set(false);
+        assertThat(reader.get(1, TimeUnit.MINUTES)).isPositive();
+        pool.shutdown();
+        assertThat(session.getVersion()).isEqualTo((long) (THREADS - 1) * DELTAS_PER_THREAD);
+    }
+
+    @Test
+    void unknownTeamsDoNotScore() {
+        GameSession session = new GameSession("game", TEAMS, GameJournal.disabled(), new LongAdder());
+        assertThat(session.adjustTeamScore("Purple", 5)).isNull();
+        session.adjustTeamScores(Map.of("Purple", 5));
+        assertThat(session.getTeams()).extracting(Team::getScore).containsOnly(0);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.jeopardy.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * One busy game and one quiet one share a four-worker stage whose tasks
+ * block until released. The busy game must be graded on up to its
+ * per-game share of workers at once while the quiet game still gets one,
+ * admission must count answers rather than requests, a task that throws
+ * an Error must fail alone, and shutting down must fail whatever is still
+ * queued.
+ */
+class GradingStageTest {
+
+    private static final int WORKERS = 4;
+    private static final int PER_GAME_WORKERS = 3;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger running = new AtomicInteger();
+    private GradingStage stage;
+
+    @AfterEach
+    void close() {
+        release.countDown();
+        if (stage != null) {
+            stage.close();
+        }
+    }
+
+    @Test
+    void aGameIsGradedOnSeveralWorkersButNeverAll() throws Exception {
+        stage = new GradingStage(true, WORKERS, 1_000, 1_000, PER_GAME_WORKERS);
+        List<CompletableFuture<Integer>> busy = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            busy.add(stage.submit("busy", 1, this::blocked));
+        }
+        awaitRunning(PER_GAME_WORKERS);
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertThat(running.get()).as("workers on the busy game").isEqualTo(PER_GAME_WORKERS);
+
+        // the spare worker grades the quiet game while the busy one is still stuck
+        assertThat(stage.submit("quiet", 1, () -> 7).get(10, TimeUnit.SECONDS)).isEqualTo(7);
+
+        release.countDown();
+        for (CompletableFuture<Integer> result : busy) {
+            assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo(1);
+        }
+        assertThat(stage.getPending()).isZero();
+    }
+
+    @Test
+    void admissionCountsAnswers() throws Exception {
+        stage = new GradingStage(true, 1, 100, 50, 1);
+        stage.submit("game", 1, this::blocked);
+        awaitRunning(1);
+
+        // a batch bigger than the game's share still gets into an empty queue
+        CompletableFuture<Integer> large = stage.submit("game", 60, () -> 60);
+        assertThatThrownBy(() -> stage.submit("game", 1, () -> 1))
+                .isInstanceOfSatisfying(GradingStage.Rejected.class, e -> assertThat(e.isOverloaded()).isFalse());
+        CompletableFuture<Integer> other = stage.submit("other", 39, () -> 39);
+        assertThat(stage.getPending()).isEqualTo(100);
+        assertThatThrownBy(() -> stage.submit("third", 1, () -> 1))
+                .isInstanceOfSatisfying(GradingStage.Rejected.class, e -> assertThat(e.isOverloaded()).isTrue());
+        assertThat(stage.getPending()).isEqualTo(100);
+
+        release.countDown();
+        assertThat(large.get(10, TimeUnit.SECONDS)).isEqualTo(60);
+        assertThat(other.get(10, TimeUnit.SECONDS)).isEqualTo(39);
+    }
+
+    @Test
+    void anErrorFailsItsTaskButKeepsTheWorker() throws Exception {
+        stage = new GradingStage(true, 1, 100, 100, 1);
+        CompletableFuture<Integer> failed = stage.submit("game", 1, () -> {
+            throw new StackOverflowError();
+        });
+        assertThatThrownBy(() -> failed.get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(StackOverflowError.class);
+
+        // the only worker is still there for the next task
+        assertThat(stage.submit("game", 1, () -> 2).get(10, TimeUnit.SECONDS)).isEqualTo(2);
+        assertThat(stage.getPending()).isZero();
+    }
+
+    @Test
+    void closeFailsQueuedTasks() throws Exception {
+        stage = new GradingStage(true, 1, 100, 100, 1);
+        CompletableFuture<Integer> first = stage.submit("game", 1, this::blocked);
+        awaitRunning(1);
+        CompletableFuture<Integer> queued = stage.submit("game", 5, () -> 5);
+
+        stage.close();
+        assertThatThrownBy(() -> queued.get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(GradingStage.Rejected.class);
+        assertThatThrownBy(() -> stage.submit("game", 1, () -> 1)).isInstanceOf(GradingStage.Rejected.class);
+
+        // the task already running is not failed
+        release.countDown();
+        assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(stage.getPending()).isZero();
+    }
+
+    private int blocked() {
+        running.incrementAndGet();
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running.decrementAndGet();
+        }
+        return 1;
+    }
+
+    private void awaitRunning(int tasks) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (running.get() < tasks && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        assertThat(running.get()).isEqualTo(tasks);
+    }
+}
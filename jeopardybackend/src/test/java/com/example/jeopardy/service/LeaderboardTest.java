@@ -0,0 +1,160 @@
+package com.example.jeopardy.service;
+
+import com.example.jeopardy.dto.LeaderboardEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the treap with a full sort of the scores: highest score first,
+ * ties in start order sharing a competition rank (1, 2, 2, 4). Scores
+ * change at random, one team at a time and from several threads at once;
+ * after every change {@code top(N)} and {@code rankOf} must agree with the
+ * sort.
+ */
+class LeaderboardTest {
+
+    private static final int TEAMS = 40;
+    private static final int CHANGES = 20_000;
+    private static final int THREADS = 8;
+
+    @Test
+    void tiesShareACompetitionRank() {
+        List<AtomicInteger> scores = scores(10, 7, 3, 7);
+        Leaderboard board = new Leaderboard(List.of("A", "B", "C", "D"), scores);
+
+        assertThat(board.top(4)).extracting(LeaderboardEntry::getName).containsExactly("A", "B", "D", "C");
+        assertThat(board.top(4)).extracting(LeaderboardEntry::getRank).containsExactly(1, 2, 2, 4);
+        assertThat(board.rankOf(3).getRank()).isEqualTo(2);
+        assertThat(board.rankOf(2).getRank()).isEqualTo(4);
+        assertThat(board.top(2)).extracting(LeaderboardEntry::getName).containsExactly("A", "B");
+
+        // C catches up with A: both share first place, in start order
+        scores.get(2).set(10);
+        board.refresh(2);
+        assertThat(board.top(4)).extracting(LeaderboardEntry::getName).containsExactly("A", "C", "B", "D");
+        assertThat(board.top(4)).extracting(LeaderboardEntry::getRank).containsExactly(1, 1, 3, 3);
+        assertThat(board.rankOf(2).getRank()).isEqualTo(1);
+        assertThat(board.top(10)).hasSize(4);
+        assertThat(board.top(0)).isEmpty();
+    }
+
+    @Test
+    void matchesAFullSortAfterEveryChange() {
+        SplittableRandom random = new SplittableRandom(42);
+        List<AtomicInteger> scores = scores(new int[TEAMS]);
+        Leaderboard board = new Leaderboard(names(), scores);
+        for (int i = 0; i < CHANGES; i++) {
+            int team = random.nextInt(TEAMS);
+            // a narrow range, so ties keep forming and breaking
+            scores.get(team).set(random.nextInt(-5, 15));
+            board.refresh(team);
+
+            List<LeaderboardEntry> expected = sorted(scores);
+            int count = random.nextInt(TEAMS + 2);
+            assertThat(describe(board.top(count))).as("change %d, top %d", i, count)
+                    .isEqualTo(describe(expected.subList(0, Math.min(count, TEAMS))));
+            int probe = random.nextInt(TEAMS);
+            assertThat(board.rankOf(probe).getRank()).as("change %d, rank of team %d", i, probe)
+                    .isEqualTo(rankIn(expected, "Team " + probe));
+        }
+    }
+
+    @Test
+    void concurrentRefreshesLeaveAConsistentBoard() throws Exception {
+        List<AtomicInteger> scores = scores(new int[TEAMS]);
+        Leaderboard board = new Leaderboard(names(), scores);
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            workers.add(pool.submit(() -> {
+                SplittableRandom random = new SplittableRandom(thread);
+                start.await();
+                for (int i = 0; i < CHANGES; i++) {
+                    int team = random.nextInt(TEAMS);
+                    scores.get(team).addAndGet(random.nextBoolean() ? 5 : -1);
+                    board.refresh(team);
+                    if (i % 64 == 0) {
+                        // readers in between must always get a full, ordered list
+                        assertThat(board.top(TEAMS)).hasSize(TEAMS).isSortedAccordingTo(
+                                Comparator.comparingInt(LeaderboardEntry::getRank));
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get(1, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        List<LeaderboardEntry> expected = sorted(scores);
+        assertThat(describe(board.top(TEAMS))).isEqualTo(describe(expected));
+        for (int team = 0; team < TEAMS; team++) {
+            assertThat(board.rankOf(team).getRank()).isEqualTo(rankIn(expected, "Team " + team));
+        }
+    }
+
+    private static List<String> names() {
+        List<String> names = new ArrayList<>(TEAMS);
+        for (int i = 0; i < TEAMS; i++) {
+            names.add("Team " + i);
+        }
+        return names;
+    }
+
+    private static List<AtomicInteger> scores(int... values) {
+        List<AtomicInteger> scores = new ArrayList<>(values.length);
+        for (int value : values) {
+            scores.add(new AtomicInteger(value));
+        }
+        return scores;
+    }
+
+    /**
+     * The whole board by a plain sort: score descending, then start
+     * order, with competition ranks.
+     */
+    private static List<LeaderboardEntry> sorted(List<AtomicInteger> scores) {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < scores.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparingInt((Integer i) -> -scores.get(i).get()).thenComparingInt(i -> i));
+        List<LeaderboardEntry> entries = new ArrayList<>(order.size());
+        for (int place = 0; place < order.size(); place++) {
+            int score = scores.get(order.get(place)).get();
+            int rank = place > 0 && entries.get(place - 1).getScore() == score
+                    ? entries.get(place - 1).getRank()
+                    : place + 1;
+            entries.add(new LeaderboardEntry(rank, "Team " + order.get(place), score));
+        }
+        return entries;
+    }
+
+    private static List<String> describe(List<LeaderboardEntry> entries) {
+        List<String> described = new ArrayList<>(entries.size());
+        for (LeaderboardEntry entry : entries) {
+            described.add(entry.getRank() + " " + entry.getName() + " " + entry.getScore());
+        }
+        return described;
+    }
+
+    private static int rankIn(List<LeaderboardEntry> entries, String name) {
+        for (LeaderboardEntry entry : entries) {
+            if (entry.getName().equals(name)) {
+                return entry.getRank();
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.jeopardy.service;
+
+import com.example.jeopardy.dto.AnswerRequest;
+import com.example.jeopardy.model.Question;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Answers from teams that play in the game count toward a question's
+ * accuracy; answers from unknown or misspelt teams score nothing and
+ * must not move the statistics either, one at a time or in a batch.
+ */
+class QuestionStatsRecordingTest {
+
+    private static final List<String> TEAMS = List.of("Red", "Blue");
+
+    private QuestionStats stats;
+    private GameService gameService;
+
+    @BeforeEach
+    void setUp() {
+        stats = new QuestionStats(Duration.ZERO, "uniform", 0.6);
+        gameService = new GameService(new GameEventBroadcaster(new ObjectMapper()),
+                new VerdictCache(10_000, Duration.ofMinutes(10)), GradingMetrics.disabled(),
+                GradingThresholds.defaults(), GameJournal.disabled(), stats,
+                SessionExpiry.disabled(), new InMemoryGameStateStore(), GradingStage.disabled());
+    }
+
+    @AfterEach
+    void tearDown() {
+        gameService.shutdown();
+    }
+
+    @Test
+    void singleAnswersFromUnknownTeamsAreNotRecorded() {
+        String gameId = gameService.startGame(TEAMS).getId();
+        Question question = anyQuestion();
+
+        assertThat(gameService.checkAnswer(gameId, question.getId(), "red", question.getAnswer())).isTrue();
+        gameService.checkAnswer(gameId, question.getId(), "Blue", "certainly not this");
+        assertThat(gameService.checkAnswer(gameId, question.getId(), "Rde", question.getAnswer())).isTrue();
+        gameService.checkAnswer(gameId, question.getId(), "Green", "certainly not this");
+
+        assertRecorded(question, 2, 1);
+    }
+
+    @Test
+    void batchAnswersFromUnknownTeamsAreNotRecorded() {
+        String gameId = gameService.startGame(TEAMS).getId();
+        Question question = anyQuestion();
+
+        List<AnswerRequest> answers = new ArrayList<>();
+        answers.add(answer(question.getId(), "RED", question.getAnswer()));
+        answers.add(answer(question.getId(), "Blu", question.getAnswer()));
+        answers.add(answer(question.getId(), "Blue", "certainly not this"));
+        answers.add(answer(question.getId(), "Green", "certainly not this"));
+        boolean[] verdicts = gameService.checkAnswers(gameId, answers);
+
+        assertThat(verdicts).containsExactly(true, true, false, false);
+        assertRecorded(question, 2, 1);
+    }
+
+    private Question anyQuestion() {
+        String category = gameService.getCategories().get(0);
+        return gameService.getQuestionBank().getQuestions(category).get(0);
+    }
+
+    private void assertRecorded(Question question, long attempts, long correct) {
+        stats.aggregate();
+        QuestionStats.Snapshot snapshot = stats.getSnapshot();
+        int index = snapshot.indexOf(question.getId());
+        assertThat(index).isNotNegative();
+        assertThat(snapshot.getAttempts(index)).isEqualTo(attempts);
+        assertThat(snapshot.getCorrect(index)).isEqualTo(correct);
+        assertThat(snapshot.getTotalAttempts()).isEqualTo(attempts);
+    }
+
+    private static AnswerRequest answer(long questionId, String teamName, String text) {
+        AnswerRequest answer = new AnswerRequest();
+        answer.setQuestionId(questionId);
+        answer.setTeamName(teamName);
+        answer.setAnswer(text);
+        return answer;
+    }
+}
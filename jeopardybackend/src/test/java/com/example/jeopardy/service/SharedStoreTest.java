@@ -0,0 +1,302 @@
+package com.example.jeopardy.service;
+
+import com.example.jeopardy.JeopardyApplication;
+import com.example.jeopardy.model.Question;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two application contexts in this JVM share one file store directory,
+ * like two nodes behind a load balancer without sticky sessions. Clients
+ * answer, draw and buzz on either node at random. Both nodes must end on
+ * the scores the verdicts add up to, never draw a question twice in a
+ * cycle or hand out a buzz rank twice, and pass every change on to the
+ * other node's subscribers.
+ */
+class SharedStoreTest {
+
+    private static final List<String> TEAMS = List.of("Red", "Green", "Blue", "Gold");
+    private static final int CLIENTS = 8;
+    private static final int REQUESTS_PER_CLIENT = 40;
+    private static final int BATCH_SIZE = 4;
+
+    @TempDir
+    static Path storeDir;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final HttpClient client = HttpClient.newHttpClient();
+    private static final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+    private static final List<String> baseUrls = new ArrayList<>();
+
+    @BeforeAll
+    static void startNodes() {
+        for (int i = 0; i < 2; i++) {
+            ConfigurableApplicationContext node = SpringApplication.run(JeopardyApplication.class,
+                    "--server.port=0",
+                    "--jeopardy.store.type=file",
+                    "--jeopardy.store.dir=" + storeDir,
+                    "--jeopardy.journal.dir=",
+                    "--jeopardy.questions.watch=false",
+                    "--logging.level.root=WARN",
+                    // the event stream still open at shutdown times out there; that is expected
+                    "--logging.level.org.springframework.web.servlet.mvc.support=ERROR");
+            nodes.add(node);
+            baseUrls.add("http://localhost:" + node.getEnvironment().getProperty("local.server.port") + "/api/game");
+        }
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void scoresAddUpOnBothNodes() throws Exception {
+        String gameId = startGame();
+        List<Question> questions = new ArrayList<>();
+        GameService gameService = nodes.get(0).getBean(GameService.class);
+        gameService.getCategories().forEach(category ->
+                questions.addAll(gameService.getQuestionBank().getQuestions(category)));
+
+        AtomicLongArray expected = new AtomicLongArray(TEAMS.size());
+        ExecutorService pool = Executors.newFixedThreadPool(CLIENTS);
+        List<Future<?>> clients = new ArrayList<>();
+        for (int c = 0; c < CLIENTS; c++) {
+            clients.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int r = 0; r < REQUESTS_PER_CLIENT; r++) {
+                    int node = random.nextInt(nodes.size());
+                    int[] teams = new int[r % 2 == 0 ? 1 : BATCH_SIZE];
+                    List<Map<String, Object>> answers = new ArrayList<>();
+                    for (int i = 0; i < teams.length; i++) {
+                        teams[i] = random.nextInt(TEAMS.size());
+                        Question question = questions.get(random.nextInt(questions.size()));
+                        answers.add(Map.of("gameId", gameId, "questionId", question.getId(),
+                                "teamName", TEAMS.get(teams[i]),
+                                "answer", random.nextBoolean() ? question.getAnswer() : "no idea"));
+                    }
+                    if (teams.length == 1) {
+                        JsonNode result = post(node, "/answer", answers.get(0));
+                        expected.addAndGet(teams[0], result.path("correct").asBoolean() ? 5 : -1);
+                    } else {
+                        JsonNode result = post(node, "/answers", Map.of("gameId", gameId, "answers", answers));
+                        for (int i = 0; i < teams.length; i++) {
+                            expected.addAndGet(teams[i], result.path("verdicts").get(i).path("correct").asBoolean()
+                                    ? 5 : -1);
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> c : clients) {
+            c.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        for (int node = 0; node < nodes.size(); node++) {
+            JsonNode state = get(node, "/state?gameId=" + gameId);
+            assertThat(state.path("version").asLong()).as("version on node %d", node + 1)
+                    .isEqualTo((long) CLIENTS * REQUESTS_PER_CLIENT);
+            for (JsonNode team : state.path("teams")) {
+                int index = TEAMS.indexOf(team.path("name").asText());
+                assertThat(team.path("score").asLong()).as("%s on node %d", TEAMS.get(index), node + 1)
+                        .isEqualTo(expected.get(index));
+            }
+        }
+    }
+
+    @Test
+    void drawsAndBuzzesAreSharedBetweenNodes() throws Exception {
+        String gameId = startGame();
+        String category = "Lawyer";
+        int questions = nodes.get(0).getBean(GameService.class).getQuestionBank().getQuestions(category).size();
+
+        Set<Long> cycle = new HashSet<>();
+        long open = -1;
+        for (int i = 0; i < questions + 1; i++) {
+            open = get(i % 2, "/random-question?gameId=" + gameId + "&category=" + category).path("id").asLong();
+            if (i < questions) {
+                assertThat(cycle.add(open)).as("draw %d repeats question %d", i + 1, open).isTrue();
+            }
+        }
+        assertThat(cycle).hasSize(questions);
+
+        // every team buzzes at once from two devices, each on another node
+        long questionId = open;
+        CyclicBarrier start = new CyclicBarrier(TEAMS.size() * 2);
+        ExecutorService pool = Executors.newFixedThreadPool(TEAMS.size() * 2);
+        List<Future<JsonNode>> buzzes = new ArrayList<>();
+        for (int i = 0; i < TEAMS.size() * 2; i++) {
+            int node = i % 2;
+            String team = TEAMS.get(i / 2);
+            buzzes.add(pool.submit(() -> {
+                start.await();
+                return post(node, "/buzz", Map.of("gameId", gameId, "questionId", questionId, "teamName", team));
+            }));
+        }
+        Map<String, Integer> rankOfTeam = new HashMap<>();
+        long[] microsOfRank = new long[TEAMS.size() + 1];
+        for (Future<JsonNode> buzz : buzzes) {
+            JsonNode result = buzz.get(1, TimeUnit.MINUTES);
+            int rank = result.path("rank").asInt();
+            Integer other = rankOfTeam.putIfAbsent(result.path("teamName").asText(), rank);
+            assertThat(other == null || other == rank).as("both devices of a team get its rank").isTrue();
+            microsOfRank[rank] = result.path("microsToBuzz").asLong();
+        }
+        pool.shutdown();
+        assertThat(rankOfTeam.values()).containsExactlyInAnyOrder(1, 2, 3, 4);
+        for (int rank = 2; rank <= TEAMS.size(); rank++) {
+            assertThat(microsOfRank[rank]).isGreaterThanOrEqualTo(microsOfRank[rank - 1]);
+        }
+
+        long drawnBefore = cycle.stream().filter(id -> id != questionId).findFirst().orElseThrow();
+        HttpResponse<byte[]> stale = send(1, "/buzz", Map.of("gameId", gameId, "questionId", drawnBefore,
+                "teamName", "Red"));
+        assertThat(stale.statusCode()).as("buzz for a question no longer open").isEqualTo(409);
+    }
+
+    @Test
+    void eventsReachSubscribersOnTheOtherNode() throws Exception {
+        String gameId = startGame();
+        BlockingQueue<JsonNode> events = new LinkedBlockingQueue<>();
+        CompletableFuture<HttpResponse<Stream<String>>> stream = client.sendAsync(
+                HttpRequest.newBuilder(URI.create(baseUrls.get(1) + "/events?gameId=" + gameId)).GET().build(),
+                HttpResponse.BodyHandlers.ofLines());
+        Thread reader = new Thread(() -> {
+            String type = null;
+            try (Stream<String> lines = stream.join().body()) {
+                for (Iterator<String> it = lines.iterator(); it.hasNext(); ) {
+                    String line = it.next();
+                    if (line.startsWith("event:")) {
+                        type = line.substring("event:".length());
+                    } else if (line.startsWith("data:")) {
+                        JsonNode data = objectMapper.readTree(line.substring("data:".length()));
+                        events.add(objectMapper.createObjectNode().put("type", type).set("data", data));
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // closed when the test is done
+            }
+        }, "events-reader");
+        reader.setDaemon(true);
+        reader.start();
+        assertThat(next(events, "state")).as("first event").isNotNull();
+
+        JsonNode answer = post(0, "/answer", Map.of("gameId", gameId, "questionId", 1L, "teamName", "Blue",
+                "answer", nodes.get(0).getBean(GameService.class).getCorrectAnswer(1L)));
+        JsonNode state = next(events, "state");
+        assertThat(state).as("scores changed on the other node").isNotNull();
+        assertThat(state.path("scoreVersion").asLong()).isEqualTo(answer.path("version").asLong());
+        assertThat(state.path("teams").findValuesAsText("name")).containsExactlyElementsOf(TEAMS);
+        assertThat(state.path("teams").get(TEAMS.indexOf("Blue")).path("score").asInt()).isEqualTo(5);
+
+        long questionId = get(0, "/random-question?gameId=" + gameId + "&category=Doctor").path("id").asLong();
+        JsonNode question = next(events, "question");
+        assertThat(question).as("question drawn on the other node").isNotNull();
+        assertThat(question.path("question").path("id").asLong()).isEqualTo(questionId);
+
+        post(0, "/buzz", Map.of("gameId", gameId, "questionId", questionId, "teamName", "Gold"));
+        JsonNode buzz = next(events, "buzz");
+        assertThat(buzz).as("buzz won on the other node").isNotNull();
+        assertThat(buzz.path("buzz").path("teamName").asText()).isEqualTo("Gold");
+        assertThat(buzz.path("buzz").path("rank").asInt()).isEqualTo(1);
+
+        stream.thenAccept(response -> response.body().close());
+    }
+
+    @Test
+    void aGameEndsOnceNoNodeChangedItForTheIdleTimeout() throws Exception {
+        Path dir = Files.createDirectory(storeDir.resolve("ending"));
+        Duration idleTimeout = Duration.ofSeconds(1);
+        FileGameStateStore first = new FileGameStateStore(dir.toString(), Duration.ZERO, idleTimeout,
+                SessionExpiry.disabled());
+        FileGameStateStore second = new FileGameStateStore(dir.toString(), Duration.ZERO, idleTimeout,
+                SessionExpiry.disabled());
+        try {
+            GameSession session = new GameSession("game", TEAMS, GameJournal.disabled(), new LongAdder());
+            first.add(session);
+            GameSession elsewhere = second.get("game");
+            second.adjustTeamScore(elsewhere, "Red", 5);
+
+            // still being played on the second node: the first only forgets its own copy
+            assertThat(first.remove(session)).isTrue();
+            assertThat(dir.resolve("game.game")).exists();
+            assertThat(first.get("game").getTeams()).extracting("score").containsExactly(5, 0, 0, 0);
+
+            TimeUnit.MILLISECONDS.sleep(idleTimeout.toMillis() + 200);
+            assertThat(second.remove(elsewhere)).isTrue();
+            assertThat(dir.resolve("game.game")).doesNotExist();
+            assertThat(first.get("game")).isNull();
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+
+    private static String startGame() throws IOException, InterruptedException {
+        String gameId = post(0, "/start", Map.of("teamNames", TEAMS)).path("gameId").asText();
+        return URLEncoder.encode(gameId, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The data of the next event of {@code type}, skipping others, or
+     * {@code null} if none comes within a few seconds.
+     */
+    private static JsonNode next(BlockingQueue<JsonNode> events, String type) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        JsonNode event;
+        while ((event = events.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) != null) {
+            if (type.equals(event.path("type").asText())) {
+                return event.path("data");
+            }
+        }
+        return null;
+    }
+
+    private static JsonNode post(int node, String path, Object body) throws IOException, InterruptedException {
+        return check(send(node, path, body));
+    }
+
+    private static HttpResponse<byte[]> send(int node, String path, Object body)
+            throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(baseUrls.get(node) + path))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body))).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static JsonNode get(int node, String path) throws IOException, InterruptedException {
+        return check(client.send(HttpRequest.newBuilder(URI.create(baseUrls.get(node) + path)).GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray()));
+    }
+
+    private static JsonNode check(HttpResponse<byte[]> response) throws IOException {
+        assertThat(response.statusCode()).as("status of %s", response.uri()).isEqualTo(200);
+        return objectMapper.readTree(response.body());
+    }
+}
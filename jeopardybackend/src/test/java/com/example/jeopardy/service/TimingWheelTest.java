@@ -0,0 +1,127 @@
+package com.example.jeopardy.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Items are scheduled on a wheel that starts off any level boundary, at
+ * random times and with deadlines on every level, and the wheel is moved
+ * one tick at a time. Each item must fire exactly once, on its due tick,
+ * however many levels it cascaded down through. A deadline past the
+ * horizon fires at the horizon and lands exactly once scheduled again,
+ * and so does an item rescheduled from inside the callback.
+ */
+class TimingWheelTest {
+
+    // four levels of 64 slots
+    private static final long HORIZON = 1L << 24;
+    private static final long START = 1_000_003;
+
+    @Test
+    void everyItemFiresOnItsDueTick() {
+        Random random = new Random(42);
+        int items = 100_000;
+        long[] scheduledAt = new long[items];
+        long[] deadlines = new long[items];
+        for (int i = 0; i < items; i++) {
+            scheduledAt[i] = START + random.nextInt(1 << 20);
+            deadlines[i] = scheduledAt[i] + delta(random);
+        }
+        Integer[] order = new Integer[items];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, (a, b) -> Long.compare(scheduledAt[a], scheduledAt[b]));
+
+        TimingWheel<Integer> wheel = new TimingWheel<>(START);
+        long[] firedAt = new long[items];
+        long end = Arrays.stream(deadlines).max().getAsLong();
+        int next = 0;
+        for (long tick = START; tick < end; tick++) {
+            while (next < items && scheduledAt[order[next]] == tick) {
+                wheel.schedule(order[next], deadlines[order[next]]);
+                next++;
+            }
+            long now = tick + 1;
+            wheel.advance(now, item -> {
+                assertThat(firedAt[item]).as("item %d fired twice", item).isZero();
+                firedAt[item] = now;
+            });
+        }
+        assertThat(firedAt).containsExactly(deadlines);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void deadlinesPastTheHorizonFireThereAndThenOnTime() {
+        TimingWheel<String> wheel = new TimingWheel<>(START);
+        long deadline = START + 2 * HORIZON + 12_345;
+        wheel.schedule("far", deadline);
+        wheel.schedule("passed", START - 10);
+
+        List<Long> fired = new ArrayList<>();
+        List<String> items = new ArrayList<>();
+        for (long tick = START + 1; tick <= deadline; tick++) {
+            long now = tick;
+            wheel.advance(now, item -> {
+                fired.add(now);
+                items.add(item);
+                if (item.equals("far") && now < deadline) {
+                    wheel.schedule(item, deadline);
+                }
+            });
+        }
+        // a passed deadline fires on the next tick; the far one at each horizon until it is in reach
+        assertThat(items).containsExactly("passed", "far", "far", "far");
+        assertThat(fired).containsExactly(START + 1, START + HORIZON - 1, START + 2 * (HORIZON - 1), deadline);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void itemsRescheduledFromTheCallbackFireAgainOnTime() {
+        // 0 has passed by the time it is scheduled, so it means the next tick
+        long[] delays = {1, 0, 63, 64, 65, 4095, 4096, 262_143, 262_144, 300_000, 1};
+        TimingWheel<Integer> wheel = new TimingWheel<>(START);
+        wheel.schedule(0, START + 5);
+        long[] expected = new long[delays.length + 1];
+        expected[0] = START + 5;
+        for (int i = 0; i < delays.length; i++) {
+            expected[i + 1] = expected[i] + Math.max(1, delays[i]);
+        }
+
+        List<Long> fired = new ArrayList<>();
+        long end = expected[delays.length];
+        for (long tick = START + 1; tick <= end; tick++) {
+            long now = tick;
+            wheel.advance(now, round -> {
+                fired.add(now);
+                if (round < delays.length) {
+                    wheel.schedule(round + 1, now + delays[round]);
+                }
+            });
+        }
+        assertThat(fired).containsExactly(Arrays.stream(expected).boxed().toArray(Long[]::new));
+        assertThat(wheel.size()).isZero();
+    }
+
+    /**
+     * A delay on a random level, now and then right at a level boundary.
+     */
+    private static long delta(Random random) {
+        int level = random.nextInt(4);
+        long low = level == 0 ? 1 : 1L << (6 * level);
+        long high = 1L << (6 * (level + 1));
+        switch (random.nextInt(8)) {
+            case 0:
+                return low;
+            case 1:
+                return high - 1;
+            default:
+                return low + (long) (random.nextDouble() * (high - low));
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.jeopardy.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Grades a randomized corpus with both {@link AiAnswerEvaluator} and
+ * {@link ReferenceAnswerEvaluator}, the original commons-text cascade:
+ * verdicts, similarity scores and normalized forms must all agree. The
+ * reference has no n-gram stage, so answers only that stage accepts are
+ * not compared.
+ *
+ * <p>Each test grades {@value #DEFAULT_CASES} cases; run more with
+ * {@code mvn test -Dtest=VerdictEquivalenceTest -Djeopardy.equivalence.cases=1000000}.
+ */
+class VerdictEquivalenceTest {
+
+    private static final int DEFAULT_CASES = 50_000;
+    private static final int CASES = Integer.getInteger("jeopardy.equivalence.cases", DEFAULT_CASES);
+    private static final long SEED = Long.getLong("jeopardy.equivalence.seed", 42L);
+
+    private static final String[] SEED_ANSWERS = {
+            "NEET (National Eligibility cum Entrance Test)", "17 years", "5.5 years", "Class 12",
+            "Bachelor of Laws", "Constitutional Law, Criminal Law, Civil Law, Contract Law",
+            "Charles Frederick Worth", "Polyester", "Cotton", "A drawing of a clothing design",
+            "Café crème", "Ångström naïve façade", "ﬁve ＦＵＬＬ width"
+    };
+    private static final String NOISE = "abcdefghijklmnopqrstuvwxyz  0123456789.,-()'éüñçÅ\tİßﬁ²Ⅻ\u00a0\u2003";
+    // assertion description, only formatted when a case fails
+    private static final String CASE = "case %d: %s for \"%s\"";
+    private static final double[] THRESHOLDS = {0.5, 0.8, 0.9, 0.95};
+
+    private final ReferenceAnswerEvaluator reference = new ReferenceAnswerEvaluator();
+
+    /**
+     * The single-pass normalizer must reproduce the regex pipeline: the
+     * same lower-cased text, strict form and distinct token set.
+     */
+    @Test
+    void normalizerMatchesRegexPipeline() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < CASES; i++) {
+            String provided = mutate(random, expected(random));
+            TextNormalizer text = TextNormalizer.forCurrentThread().normalize(provided);
+            String cleaned = provided.trim();
+            assertThat(new String(text.lower, 0, text.lowerLength)).as(CASE, i, "lower-cased form", provided)
+                    .isEqualTo(cleaned.toLowerCase(Locale.ROOT));
+            if (cleaned.isEmpty()) {
+                continue;
+            }
+            assertThat(new String(text.strict, 0, text.strictLength)).as(CASE, i, "strict form", provided)
+                    .isEqualTo(reference.normalizeStrict(cleaned));
+            Set<String> tokens = new HashSet<>();
+            for (int t = 0; t < text.tokenCount; t++) {
+                String token = new String(text.strict, text.tokenStart[t], text.tokenEnd[t] - text.tokenStart[t]);
+                assertThat(tokens.add(token)).as(CASE, i, "duplicate token " + token, provided).isTrue();
+            }
+            assertThat(tokens).as(CASE, i, "tokens", provided).isEqualTo(reference.tokenize(cleaned));
+        }
+    }
+
+    @Test
+    void similarityKernelsMatchCommonsText() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < CASES; i++) {
+            String expected = expected(random);
+            String provided = mutate(random, expected);
+
+            String left = expected.trim().toLowerCase();
+            String right = provided.trim().toLowerCase();
+            double jaro = reference.jaroWinkler(left, right);
+            assertThat(SimilarityKernels.jaroWinkler(left, right)).as(CASE, i, "jaro-winkler", provided)
+                    .isEqualTo(jaro);
+            for (double threshold : THRESHOLDS) {
+                assertThat(SimilarityKernels.jaroWinklerAtLeast(left, right, threshold))
+                        .as(CASE, i, "jaro-winkler at least " + threshold, provided)
+                        .isEqualTo(jaro >= threshold);
+            }
+
+            List<String> expectedTokens = new ArrayList<>(reference.tokenize(expected));
+            Set<String> providedTokens = reference.tokenize(provided);
+            int overlap = (int) expectedTokens.stream().filter(providedTokens::contains).count();
+            assertThat(SimilarityKernels.cosine(overlap, expectedTokens.size(), providedTokens.size()))
+                    .as(CASE, i, "cosine", provided).isEqualTo(reference.cosine(expected, provided));
+        }
+    }
+
+    @Test
+    void verdictsMatchReferenceCascade() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        AiAnswerEvaluator evaluator = new AiAnswerEvaluator();
+        int accepted = 0;
+        int rejected = 0;
+        for (int i = 0; i < CASES; i++) {
+            String expected = expected(random);
+            String provided = mutate(random, expected);
+            AiAnswerEvaluator.Stage stage = evaluator.evaluate(evaluator.compile(expected), provided);
+            boolean referenceVerdict = reference.isCorrect(expected, provided);
+            if (stage == AiAnswerEvaluator.Stage.NGRAM && !referenceVerdict) {
+                // only the n-gram stage accepts it; NgramStageComparison looks at those
+                continue;
+            }
+            assertThat(stage != AiAnswerEvaluator.Stage.REJECTED)
+                    .as(CASE, i, "verdict for expected \"" + expected + "\"", provided)
+                    .isEqualTo(referenceVerdict);
+            if (referenceVerdict) {
+                accepted++;
+            } else {
+                rejected++;
+            }
+        }
+        // the corpus must exercise both sides, or agreement proves little
+        assertThat(accepted).isGreaterThan(CASES / 10);
+        assertThat(rejected).isGreaterThan(CASES / 10);
+    }
+
+    private static String expected(SplittableRandom random) {
+        return random.nextInt(4) == 0 ? randomText(random, 1 + random.nextInt(40))
+                : SEED_ANSWERS[random.nextInt(SEED_ANSWERS.length)];
+    }
+
+    private static String mutate(SplittableRandom random, String expected) {
+        switch (random.nextInt(6)) {
+            case 0:
+                return expected;
+            case 1:
+                return randomText(random, random.nextInt(30));
+            case 2:
+                return expected.toUpperCase();
+            default:
+                StringBuilder text = new StringBuilder(expected);
+                int edits = 1 + random.nextInt(Math.max(1, expected.length() / 3));
+                for (int e = 0; e < edits; e++) {
+                    int at = text.length() == 0 ? 0 : random.nextInt(text.length());
+                    int op = random.nextInt(3);
+                    if (op == 0 || text.length() == 0) {
+                        text.insert(at, NOISE.charAt(random.nextInt(NOISE.length())));
+                    } else if (op == 1) {
+                        text.deleteCharAt(at);
+                    } else {
+                        text.setCharAt(at, NOISE.charAt(random.nextInt(NOISE.length())));
+                    }
+                }
+                return text.toString();
+        }
+    }
+
+    private static String randomText(SplittableRandom random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(NOISE.charAt(random.nextInt(NOISE.length())));
+        }
+        return text.toString();
+    }
+}
@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from "react";
+import React, { useState, useEffect, useRef, useCallback } from "react";
 import "./App.css";
 
 const API_BASE_URL = "http://localhost:8080";
@@ -9,7 +9,10 @@ function App() {
   const [loginError, setLoginError] = useState("");
   const [teamCount, setTeamCount] = useState(2);
   const [teamNames, setTeamNames] = useState(["Team 1", "Team 2"]);
+  const [gameId, setGameId] = useState(null);
   const [teams, setTeams] = useState([]);
+  // Scoreboard version of `teams`; anything older arriving later is ignored
+  const scoreVersion = useRef(-1);
   const [categories, setCategories] = useState([]);
   const [loadingCategories, setLoadingCategories] = useState(false);
   const [activeQuestion, setActiveQuestion] = useState(null);
@@ -32,6 +35,31 @@ function App() {
     });
   }, [teamCount]);
 
+  const applyScores = useCallback((version, update) => {
+    if (version < scoreVersion.current) return;
+    scoreVersion.current = version;
+    setTeams(update);
+  }, []);
+
+  // Live scoreboard updates pushed by the backend
+  useEffect(() => {
+    if (!gameId) return undefined;
+    const source = new EventSource(
+      `${API_BASE_URL}/api/game/events?gameId=${encodeURIComponent(gameId)}`
+    );
+    source.addEventListener("state", (e) => {
+      const data = JSON.parse(e.data);
+      applyScores(data.scoreVersion, data.teams || []);
+    });
+    source.addEventListener("score", (e) => {
+      const { team, scoreVersion: version } = JSON.parse(e.data);
+      applyScores(version, (prev) =>
+        prev.map((t) => (t.name === team.name ? { ...t, score: team.score } : t))
+      );
+    });
+    return () => source.close();
+  }, [gameId, applyScores]);
+
   const handleLoginChange = (e) => {
     const { name, value } = e.target;
     setLoginForm((prev) => ({ ...prev, [name]: value }));
@@ -93,7 +121,9 @@ function App() {
         body: JSON.stringify({ teamNames: trimmedNames }),
       });
       const data = await res.json();
-      setTeams(data.teams || []);
+      scoreVersion.current = -1;
+      setGameId(data.gameId);
+      applyScores(data.version, data.teams || []);
       await fetchCategories();
       setStep("game");
       setActiveQuestion(null);
@@ -113,9 +143,9 @@ function App() {
     });
     try {
       const res = await fetch(
-        `${API_BASE_URL}/api/game/random-question?category=${encodeURIComponent(
-          category
-        )}`
+        `${API_BASE_URL}/api/game/random-question?gameId=${encodeURIComponent(
+          gameId
+        )}&category=${encodeURIComponent(category)}`
       );
       if (res.status === 404) {
         setActiveQuestion(null);
@@ -149,6 +179,7 @@ function App() {
         method: "POST",
         headers: { "Content-Type": "application/json" },
         body: JSON.stringify({
+          gameId,
           questionId: activeQuestion.id,
           teamName: answerForm.teamName,
           answer: answerForm.answer,
@@ -159,7 +190,7 @@ function App() {
         correct: data.correct,
         correctAnswer: data.correctAnswer,
       });
-      setTeams(data.teams || []);
+      applyScores(data.version, data.teams || []);
     } catch (err) {
       console.error(err);
       alert("Failed to submit answer.");